@@ -0,0 +1,132 @@
+package parser.benchmarks;
+
+// Traversal speed of the object AST against the flat AstArena: each
+// counts the + operators in a random program.  The arena is traversed two
+// ways, as a tree by following handles, and as a plain scan over its
+// rows, which is possible because every operator node is its own row.
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.AstArena;
+import parser.BlockStmt;
+import parser.IfStmt;
+import parser.Node;
+import parser.OpExp;
+import parser.ParseException;
+import parser.PlusOp;
+import parser.Parser;
+import parser.PrintlnStmt;
+import parser.Program;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArenaBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Program program;
+    private AstArena arena;
+    private int[] stack;
+
+    @Setup
+    public void setup() throws ParseException {
+        program = new Parser(Workloads.program(Workloads.RANDOM, size)).parseProgram();
+        arena = AstArena.fromProgram(program);
+        // every row is pushed at most once, except shared leaves, which
+        // each operator pushes at most twice
+        stack = new int[3 * arena.size()];
+    }
+
+    @Benchmark
+    public int objectTree() {
+        int count = 0;
+        final ArrayDeque<Node> pending = new ArrayDeque<Node>();
+        pending.push(program.stmt);
+        while (!pending.isEmpty()) {
+            final Node node = pending.pop();
+            if (node instanceof OpExp) {
+                if (((OpExp)node).op instanceof PlusOp) {
+                    count++;
+                }
+                pending.push(((OpExp)node).left);
+                pending.push(((OpExp)node).right);
+            } else if (node instanceof PrintlnStmt) {
+                pending.push(((PrintlnStmt)node).exp);
+            } else if (node instanceof IfStmt) {
+                final IfStmt stmt = (IfStmt)node;
+                pending.push(stmt.guard);
+                pending.push(stmt.trueBranch);
+                pending.push(stmt.falseBranch);
+            } else if (node instanceof BlockStmt) {
+                for (final Node stmt : ((BlockStmt)node).stmts) {
+                    pending.push(stmt);
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int arenaTree() {
+        int count = 0;
+        int depth = 0;
+        stack[depth++] = arena.getRoot();
+        while (depth > 0) {
+            final int handle = stack[--depth];
+            switch (arena.kind(handle)) {
+            case AstArena.OP:
+                if (arena.opCode(handle) == AstArena.PLUS) {
+                    count++;
+                }
+                stack[depth++] = arena.opLeft(handle);
+                stack[depth++] = arena.opRight(handle);
+                break;
+            case AstArena.PRINTLN:
+                stack[depth++] = arena.printlnExp(handle);
+                break;
+            case AstArena.IF:
+                stack[depth++] = arena.ifGuard(handle);
+                stack[depth++] = arena.ifTrueBranch(handle);
+                stack[depth++] = arena.ifFalseBranch(handle);
+                break;
+            case AstArena.BLOCK:
+                for (int index = 0; index < arena.blockSize(handle); index++) {
+                    stack[depth++] = arena.blockStmt(handle, index);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int arenaScan() {
+        int count = 0;
+        final int size = arena.size();
+        for (int handle = 0; handle < size; handle++) {
+            if (arena.kind(handle) == AstArena.OP && arena.opCode(handle) == AstArena.PLUS) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
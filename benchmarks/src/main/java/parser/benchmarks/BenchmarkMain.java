@@ -0,0 +1,22 @@
+package parser.benchmarks;
+
+// Runs the benchmarks with the GC profiler, so every result also reports
+// gc.alloc.rate.norm (bytes allocated per operation).
+//
+// java -jar target/benchmarks.jar [benchmark name regex]
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain {
+    public static void main(final String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+            .include((args.length > 0) ? args[0] : ".*")
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
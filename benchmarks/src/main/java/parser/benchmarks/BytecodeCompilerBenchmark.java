@@ -0,0 +1,64 @@
+package parser.benchmarks;
+
+// Running a program with the Interpreter against running it compiled to
+// JVM bytecode by the BytecodeCompiler.  Output goes nowhere.
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.CompiledProgram;
+import parser.BytecodeCompiler;
+import parser.CompilerException;
+import parser.Interpreter;
+import parser.ParseException;
+import parser.Parser;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BytecodeCompilerBenchmark {
+    @Param({Workloads.WIDE, Workloads.ADDITIVE, Workloads.RANDOM})
+    public String workload;
+
+    @Param({"1000"})
+    public int size;
+
+    private Interpreter interpreter;
+    private CompiledProgram compiled;
+    private int[] frame;
+
+    @Setup
+    public void setup() throws ParseException, CompilerException {
+        interpreter = new Interpreter(new Parser(Workloads.program(workload, size)).parseProgram());
+        compiled = BytecodeCompiler.compile(interpreter);
+        frame = interpreter.newFrame();
+        for (int slot = 0; slot < frame.length; slot++) {
+            frame[slot] = slot;
+        }
+    }
+
+    @Benchmark
+    public void interpreted() throws IOException {
+        interpreter.run(frame, InterpreterBenchmark.DISCARD);
+    }
+
+    @Benchmark
+    public void compiled() throws IOException {
+        compiled.run(frame, InterpreterBenchmark.DISCARD);
+    }
+}
@@ -0,0 +1,55 @@
+package parser.benchmarks;
+
+// Parser.parseExp (table-driven operator precedence) against the old
+// one-method-per-level recursive chain, on long operator chains.
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.Exp;
+import parser.ParseException;
+import parser.ParseResult;
+import parser.Parser;
+import parser.TokenBuffer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+    @Param({Workloads.ADDITIVE, Workloads.COMPARISON})
+    public String workload;
+
+    @Param({"1", "1000", "100000"})
+    public int size;
+
+    private TokenBuffer tokens;
+
+    @Setup
+    public void setup() {
+        tokens = Workloads.expression(workload, size);
+    }
+
+    @Benchmark
+    public ParseResult<Exp> parseExp() throws ParseException {
+        return new Parser(tokens).parseExp(0);
+    }
+
+    @Benchmark
+    public ParseResult<Exp> recursiveChain() throws ParseException {
+        return new RecursiveDescentBaseline(tokens).parseExp(0);
+    }
+}
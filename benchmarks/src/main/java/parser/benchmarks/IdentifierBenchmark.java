@@ -0,0 +1,93 @@
+package parser.benchmarks;
+
+// Identifier handling on variable-heavy source: one block of printlns,
+// each adding up eight variables drawn from `names` distinct names.  The
+// `identifiers` counter is identifiers per second, so 1e9 / identifiers
+// is nanoseconds per identifier; run with -prof gc to see allocation per
+// operation.
+//
+// - tokenize: source to TokenBuffer, interning every identifier
+// - parse: TokenBuffer to AST, where each distinct name becomes a String
+//   and a VariableExp
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.ParseException;
+import parser.Parser;
+import parser.Program;
+import parser.TokenBuffer;
+import parser.Tokenizer;
+import parser.TokenizerException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentifierBenchmark {
+    private static final int VARIABLES_PER_STMT = 8;
+
+    @Param({"16", "10000"})
+    public int names;
+
+    @Param({"20000"})
+    public int size;
+
+    private String source;
+    private TokenBuffer tokens;
+    private int numIdentifiers;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double identifiers;
+    }
+
+    @Setup
+    public void setup() throws TokenizerException {
+        final StringBuilder builder = new StringBuilder("{\n");
+        int next = 0;
+        for (int stmt = 0; stmt < size; stmt++) {
+            builder.append("    println(");
+            for (int index = 0; index < VARIABLES_PER_STMT; index++) {
+                if (index > 0) {
+                    builder.append(" + ");
+                }
+                // spread uses around, so names aren't seen in runs
+                builder.append("value_").append((next * 7919) % names);
+                next++;
+            }
+            builder.append(");\n");
+        }
+        builder.append("}\n");
+        source = builder.toString();
+        tokens = new Tokenizer(source).tokenizeToBuffer();
+        numIdentifiers = size * VARIABLES_PER_STMT;
+    }
+
+    @Benchmark
+    public TokenBuffer tokenize(final Throughput throughput) throws TokenizerException {
+        throughput.identifiers += numIdentifiers;
+        return new Tokenizer(source).tokenizeToBuffer();
+    }
+
+    @Benchmark
+    public Program parse(final Throughput throughput) throws ParseException {
+        throughput.identifiers += numIdentifiers;
+        return new Parser(tokens).parseProgram();
+    }
+}
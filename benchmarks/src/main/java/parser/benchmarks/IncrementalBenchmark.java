@@ -0,0 +1,75 @@
+package parser.benchmarks;
+
+// Latency of re-parsing after a single-token edit: IncrementalParser.edit
+// against parsing the whole program again.  The edit swaps an integer in
+// the middle of the program back and forth, so every invocation does the
+// same amount of work.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.IncrementalParser;
+import parser.IntegerToken;
+import parser.ParseException;
+import parser.Parser;
+import parser.Program;
+import parser.ProgramGenerator;
+import parser.Token;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private List<Token> tokens;
+    private IncrementalParser incremental;
+    private int editPosition;
+    private int nextValue;
+
+    @Setup
+    public void setup() throws ParseException {
+        tokens = new ArrayList<Token>();
+        new ProgramGenerator(430, 4, 4, 4, 16).generate(size, new Consumer<Token>() {
+                public void accept(final Token token) {
+                    tokens.add(token);
+                }
+            });
+        editPosition = tokens.size() / 2;
+        while (!(tokens.get(editPosition) instanceof IntegerToken)) {
+            editPosition++;
+        }
+        incremental = new IncrementalParser(tokens);
+    }
+
+    @Benchmark
+    public Program incrementalEdit() throws ParseException {
+        nextValue = 1 - nextValue;
+        return incremental.edit(editPosition, editPosition + 1,
+                                Arrays.<Token>asList(IntegerToken.valueOf(nextValue)));
+    }
+
+    @Benchmark
+    public Program fullReparse() throws ParseException {
+        return new Parser(tokens).parseProgram();
+    }
+}
@@ -0,0 +1,58 @@
+package parser.benchmarks;
+
+// Parsing with and without a ParseMetrics listener attached, to show what
+// the instrumentation hooks cost when they're off (the `none` case should
+// match ParserBenchmark) and when they're on.
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.ParseException;
+import parser.ParseMetrics;
+import parser.Parser;
+import parser.Program;
+import parser.TokenBuffer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+    @Param({Workloads.WIDE, Workloads.RANDOM})
+    public String workload;
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"none", "metrics"})
+    public String listener;
+
+    private TokenBuffer tokens;
+    private ParseMetrics metrics;
+
+    @Setup
+    public void setup() {
+        tokens = Workloads.program(workload, size);
+        metrics = listener.equals("metrics") ? new ParseMetrics() : null;
+    }
+
+    @Benchmark
+    public Program parse() throws ParseException {
+        final Parser parser = new Parser(tokens);
+        parser.setParseListener(metrics);
+        return parser.parseProgram();
+    }
+}
@@ -0,0 +1,97 @@
+package parser.benchmarks;
+
+// Interpreter speed: programs run per second, and the `nodes` counter,
+// AST nodes executed per second (so 1e9 / nodes is nanoseconds per node).
+// Only workloads which execute every node are used, so the node count is
+// exact.  Output goes nowhere, so formatting is measured but I/O is not.
+//
+// walk is the tree-walking interpreter, and run the postfix code the
+// Interpreter emits.  walkAndRun also builds the Interpreter each time: a
+// walk over the tree resolving variables and emitting code, then the run.
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.AstArena;
+import parser.Interpreter;
+import parser.ParseException;
+import parser.Parser;
+import parser.Program;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+    @Param({Workloads.WIDE, Workloads.ADDITIVE, Workloads.COMPARISON})
+    public String workload;
+
+    @Param({"10000"})
+    public int size;
+
+    private Program program;
+    private Interpreter interpreter;
+    private int[] frame;
+    private int numNodes;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double nodes;
+    }
+
+    // discards what it is given
+    static class NullWriter extends Writer {
+        public void write(final char[] buffer, final int offset, final int length) {}
+        public void flush() {}
+        public void close() {}
+    }
+
+    static final Writer DISCARD = new NullWriter();
+
+    @Setup
+    public void setup() throws ParseException {
+        program = new Parser(Workloads.program(workload, size)).parseProgram();
+        final AstArena arena = AstArena.fromProgram(program);
+        numNodes = MemoryReport.countNodes(arena, arena.getRoot());
+        interpreter = new Interpreter(program);
+        frame = interpreter.newFrame();
+        for (int slot = 0; slot < frame.length; slot++) {
+            frame[slot] = slot;
+        }
+    }
+
+    @Benchmark
+    public void run(final Throughput throughput) throws IOException {
+        throughput.nodes += numNodes;
+        interpreter.run(frame, DISCARD);
+    }
+
+    @Benchmark
+    public void walk(final Throughput throughput) throws IOException {
+        throughput.nodes += numNodes;
+        interpreter.walk(frame, DISCARD);
+    }
+
+    @Benchmark
+    public void walkAndRun(final Throughput throughput) throws IOException {
+        throughput.nodes += numNodes;
+        new Interpreter(program).run(frame, DISCARD);
+    }
+}
@@ -0,0 +1,60 @@
+package parser.benchmarks;
+
+// A caller which probes parseStmt at every statement start, as an editor
+// might, on deeply nested input.  Without memoization every probe
+// re-parses everything nested inside it, which is quadratic in the
+// nesting depth; with memoization each statement is parsed once.
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.ParseException;
+import parser.Parser;
+import parser.TokenBuffer;
+import parser.TokenKind;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoizationBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int depth;
+
+    @Param({"false", "true"})
+    public boolean memoizing;
+
+    private TokenBuffer tokens;
+
+    @Setup
+    public void setup() {
+        tokens = Workloads.program(Workloads.DEEP, depth);
+    }
+
+    @Benchmark
+    public int probeEveryStmt() throws ParseException {
+        final Parser parser = new Parser(tokens);
+        parser.setMemoizing(memoizing);
+        int total = 0;
+        for (int position = 0; position < tokens.size(); position++) {
+            final int kind = tokens.kind(position);
+            if (kind == TokenKind.IF || kind == TokenKind.LEFT_CURLY || kind == TokenKind.PRINTLN) {
+                total += parser.parseStmt(position).position;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,106 @@
+package parser.benchmarks;
+
+// Prints the retained heap per AST node for the object AST, the object
+// AST with equal subtrees shared by a HashConsingNodeFactory (with and
+// without the factory's table), the object AST with a SpanTable (and the
+// table alone, the difference), and the AstArena, measured as the growth
+// in used heap as each is built.  Nodes are counted as in the tree, so
+// shared leaves count once per use.
+//
+// java -cp target/benchmarks.jar parser.benchmarks.MemoryReport [size]
+
+import parser.AstArena;
+import parser.HashConsingNodeFactory;
+import parser.ParseException;
+import parser.Parser;
+import parser.Program;
+import parser.SpanTable;
+import parser.TokenBuffer;
+
+public class MemoryReport {
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int round = 0; round < 4; round++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(final String what, final long bytes, final int numNodes) {
+        System.out.printf("%-12s %12d bytes %8.1f bytes/node%n",
+                          what, bytes, (double)bytes / numNodes);
+    }
+
+    public static void main(final String[] args) throws ParseException {
+        final int size = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+        final TokenBuffer tokens = Workloads.program(Workloads.RANDOM, size);
+
+        final long before = usedHeap();
+        final Program program = new Parser(tokens).parseProgram();
+        final long withObjects = usedHeap();
+        final AstArena arena = AstArena.fromProgram(program);
+        final long withArena = usedHeap();
+        final HashConsingNodeFactory nodeFactory = new HashConsingNodeFactory();
+        final Parser sharingParser = new Parser(tokens);
+        sharingParser.setNodeFactory(nodeFactory);
+        final Program shared = sharingParser.parseProgram();
+        final long withShared = usedHeap();
+        final int numShared = nodeFactory.size();
+        nodeFactory.clear();
+        final long withSharedOnly = usedHeap();
+        final SpanTable spans = new SpanTable();
+        final Parser spanningParser = new Parser(tokens);
+        spanningParser.setSpanTable(spans);
+        final Program spanned = spanningParser.parseProgram();
+        final long withSpans = usedHeap();
+        final int numNodes = countNodes(arena, arena.getRoot());
+
+        System.out.println(numNodes + " nodes, " + arena.size() + " arena rows, " +
+                           numShared + " distinct subtrees, " + spans.size() + " spans");
+        report("objects", withObjects - before, numNodes);
+        report("shared+table", withShared - withArena, numNodes);
+        report("shared", withSharedOnly - withArena, numNodes);
+        report("spans", withSpans - withSharedOnly, numNodes);
+        report("span table", (withSpans - withSharedOnly) - (withObjects - before), numNodes);
+        report("arena", withArena - withObjects, numNodes);
+        // keeps everything reachable until measured
+        if (program.stmt == null || shared.stmt == null || spanned.stmt == null) {
+            throw new AssertionError();
+        }
+    }
+
+    // nodes in the tree, counting shared leaves once per use
+    static int countNodes(final AstArena arena, final int root) {
+        // rows are pushed at most once, apart from shared leaves
+        final int[] stack = new int[3 * arena.size()];
+        int depth = 0;
+        int count = 0;
+        stack[depth++] = root;
+        while (depth > 0) {
+            final int handle = stack[--depth];
+            count++;
+            switch (arena.kind(handle)) {
+            case AstArena.OP:
+                stack[depth++] = arena.opLeft(handle);
+                stack[depth++] = arena.opRight(handle);
+                break;
+            case AstArena.PRINTLN:
+                stack[depth++] = arena.printlnExp(handle);
+                break;
+            case AstArena.IF:
+                stack[depth++] = arena.ifGuard(handle);
+                stack[depth++] = arena.ifTrueBranch(handle);
+                stack[depth++] = arena.ifFalseBranch(handle);
+                break;
+            case AstArena.BLOCK:
+                for (int index = 0; index < arena.blockSize(handle); index++) {
+                    stack[depth++] = arena.blockStmt(handle, index);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        return count;
+    } // countNodes
+}
@@ -0,0 +1,66 @@
+package parser.benchmarks;
+
+// equals, hashCode and toString on whole trees (see parser.Nodes).  Two
+// separate parses are compared, so equals has to look at every node but
+// the shared leaves.  Every workload's root keeps its hash (the additive
+// workload's root is a println, whose operator chain keeps it), so hash
+// measures hashCode after the first call.
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.ParseException;
+import parser.Parser;
+import parser.Stmt;
+import parser.TokenBuffer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodesBenchmark {
+    @Param({Workloads.WIDE, Workloads.DEEP, Workloads.ADDITIVE, Workloads.RANDOM})
+    public String workload;
+
+    // small enough for a recursive equals to compare against
+    @Param({"2000"})
+    public int size;
+
+    private Stmt first;
+    private Stmt second;
+
+    @Setup
+    public void setup() throws ParseException {
+        final TokenBuffer tokens = Workloads.program(workload, size);
+        first = new Parser(tokens).parseProgram().stmt;
+        second = new Parser(tokens).parseProgram().stmt;
+    }
+
+    @Benchmark
+    public boolean equal() {
+        return first.equals(second);
+    }
+
+    @Benchmark
+    public int hash() {
+        return first.hashCode();
+    }
+
+    @Benchmark
+    public String print() {
+        return first.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package parser.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.ParseException;
+import parser.ParseResult;
+import parser.Parser;
+import parser.Program;
+import parser.Stmt;
+import parser.TokenBuffer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({Workloads.WIDE, Workloads.DEEP, Workloads.ADDITIVE,
+            Workloads.COMPARISON, Workloads.RANDOM})
+    public String workload;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private TokenBuffer tokens;
+
+    @Setup
+    public void setup() {
+        tokens = Workloads.program(workload, size);
+    }
+
+    @Benchmark
+    public Program parseProgram() throws ParseException {
+        return new Parser(tokens).parseProgram();
+    }
+
+    @Benchmark
+    public ParseResult<Stmt> parseStmt() throws ParseException {
+        return new Parser(tokens).parseStmt(0);
+    }
+}
@@ -0,0 +1,85 @@
+package parser.benchmarks;
+
+// The expression parser as it was before Parser switched to an
+// operator-precedence loop: one recursive method per precedence level
+// (equals_exp -> less_than_exp -> additive_exp -> primary_exp).  Kept
+// only as a baseline for ExpressionBenchmark.
+
+import parser.EqualsOp;
+import parser.Exp;
+import parser.IntegerExp;
+import parser.LessThanOp;
+import parser.MinusOp;
+import parser.OpExp;
+import parser.ParseException;
+import parser.ParseResult;
+import parser.PlusOp;
+import parser.TokenBuffer;
+import parser.TokenKind;
+import parser.Variable;
+import parser.VariableExp;
+
+public class RecursiveDescentBaseline {
+    private final TokenBuffer tokens;
+
+    public RecursiveDescentBaseline(final TokenBuffer tokens) {
+        this.tokens = tokens;
+    }
+
+    private void assertKindHereIs(final int position, final int expected) throws ParseException {
+        if (tokens.kindOrNone(position) != expected) {
+            throw new ParseException("expected: " + TokenKind.sharedToken(expected));
+        }
+    }
+
+    public ParseResult<Exp> parsePrimaryExp(final int position) throws ParseException {
+        switch (tokens.kindOrNone(position)) {
+        case TokenKind.VARIABLE:
+            return new ParseResult<Exp>(new VariableExp(new Variable(tokens.name(tokens.payload(position)))),
+                                        position + 1);
+        case TokenKind.INTEGER:
+            return new ParseResult<Exp>(IntegerExp.valueOf(tokens.payload(position)),
+                                        position + 1);
+        case TokenKind.LEFT_PAREN:
+            final ParseResult<Exp> inParens = parseExp(position + 1);
+            assertKindHereIs(inParens.position, TokenKind.RIGHT_PAREN);
+            return new ParseResult<Exp>(inParens.result, inParens.position + 1);
+        default:
+            throw new ParseException("Expected primary expression");
+        }
+    } // parsePrimaryExp
+
+    public ParseResult<Exp> parseAdditiveExp(final int position) throws ParseException {
+        ParseResult<Exp> current = parsePrimaryExp(position);
+        int next = tokens.kindOrNone(current.position);
+        while (next == TokenKind.PLUS || next == TokenKind.MINUS) {
+            final ParseResult<Exp> other = parsePrimaryExp(current.position + 1);
+            current = new ParseResult<Exp>(new OpExp(current.result,
+                                                     (next == TokenKind.PLUS) ? PlusOp.INSTANCE : MinusOp.INSTANCE,
+                                                     other.result),
+                                           other.position);
+            next = tokens.kindOrNone(current.position);
+        }
+        return current;
+    } // parseAdditiveExp
+
+    public ParseResult<Exp> parseLessThanExp(final int position) throws ParseException {
+        ParseResult<Exp> current = parseAdditiveExp(position);
+        while (tokens.kindOrNone(current.position) == TokenKind.LESS_THAN) {
+            final ParseResult<Exp> other = parseAdditiveExp(current.position + 1);
+            current = new ParseResult<Exp>(new OpExp(current.result, LessThanOp.INSTANCE, other.result),
+                                           other.position);
+        }
+        return current;
+    } // parseLessThanExp
+
+    public ParseResult<Exp> parseExp(final int position) throws ParseException {
+        ParseResult<Exp> current = parseLessThanExp(position);
+        while (tokens.kindOrNone(current.position) == TokenKind.EQUALS) {
+            final ParseResult<Exp> other = parseLessThanExp(current.position + 1);
+            current = new ParseResult<Exp>(new OpExp(current.result, EqualsOp.INSTANCE, other.result),
+                                           other.position);
+        }
+        return current;
+    } // parseExp
+}
@@ -0,0 +1,67 @@
+package parser.benchmarks;
+
+// ParserService throughput against the number of threads: parsing a batch
+// of small programs from source.  The score is batches per second.
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.ParseException;
+import parser.ParserService;
+import parser.Program;
+import parser.ProgramGenerator;
+import parser.TokenizerException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+    // 0 means the default executor (virtual threads where available)
+    @Param({"0", "1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private List<String> sources;
+    private ParserService service;
+
+    @Setup
+    public void setup() throws IOException {
+        sources = new ArrayList<String>();
+        for (int seed = 0; seed < batchSize; seed++) {
+            final StringBuilder source = new StringBuilder();
+            new ProgramGenerator(seed, 3, 3, 3, 8).generateSource(20, source);
+            sources.add(source.toString());
+        }
+        service = (threads == 0) ? new ParserService() : new ParserService(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    public Program[] parseAll() throws ParseException, TokenizerException, InterruptedException {
+        return service.parseAll(sources);
+    }
+}
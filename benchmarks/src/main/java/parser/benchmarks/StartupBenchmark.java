@@ -0,0 +1,79 @@
+package parser.benchmarks;
+
+// Time to get a Program at process start: reading the source file,
+// tokenizing and parsing it, against loading it from a ProgramCache
+// entry mapped into memory.  Each measurement is a single cold call in a
+// fresh JVM, with no warmup, as at startup.
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.AstReader;
+import parser.ParseException;
+import parser.Parser;
+import parser.Program;
+import parser.ProgramCache;
+import parser.Tokenizer;
+import parser.TokenizerException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+    @Param({"10000", "100000"})
+    public int size;
+
+    private Path directory;
+    private Path sourcePath;
+    private Path cachedPath;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ParseException, TokenizerException {
+        directory = Files.createTempDirectory("startup");
+        final String source = Workloads.toSource(Workloads.program(Workloads.RANDOM, size));
+        sourcePath = directory.resolve("program.txt");
+        Files.write(sourcePath, source.getBytes(StandardCharsets.UTF_8));
+        final ProgramCache cache = new ProgramCache(directory.resolve("cache"));
+        cache.load(source);
+        cachedPath = cache.path(source);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(cachedPath);
+        Files.delete(directory.resolve("cache"));
+        Files.delete(sourcePath);
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public Program coldParse() throws IOException, ParseException, TokenizerException {
+        final String source = new String(Files.readAllBytes(sourcePath), StandardCharsets.UTF_8);
+        return new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram();
+    }
+
+    @Benchmark
+    public Program mappedLoad() throws IOException {
+        return new AstReader().read(cachedPath);
+    }
+}
@@ -0,0 +1,73 @@
+package parser.benchmarks;
+
+// Tokenizer throughput.  The `megabytes` counter is reported per second,
+// i.e. in MB/s of source text.
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.TokenBuffer;
+import parser.Tokenizer;
+import parser.TokenizerException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+    @Param({Workloads.WIDE, Workloads.RANDOM})
+    public String workload;
+
+    @Param({"100000"})
+    public int size;
+
+    private String source;
+    private byte[] bytes;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double megabytes;
+    }
+
+    @Setup
+    public void setup() {
+        source = Workloads.toSource(Workloads.program(workload, size));
+        bytes = source.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public TokenBuffer charSequence(final Throughput throughput) throws TokenizerException {
+        throughput.megabytes += source.length() / 1e6;
+        return new Tokenizer(source).tokenizeToBuffer();
+    }
+
+    @Benchmark
+    public TokenBuffer byteBuffer(final Throughput throughput) throws TokenizerException {
+        throughput.megabytes += bytes.length / 1e6;
+        return new Tokenizer(ByteBuffer.wrap(bytes)).tokenizeToBuffer();
+    }
+
+    @Benchmark
+    public TokenBuffer reader(final Throughput throughput) throws TokenizerException {
+        throughput.megabytes += source.length() / 1e6;
+        return new Tokenizer(new StringReader(source)).tokenizeToBuffer();
+    }
+}
@@ -0,0 +1,164 @@
+package parser.benchmarks;
+
+// TreeWalker against a plain recursive walk making the same Visitor
+// calls, counting nodes.  The `nodes` counter is nodes visited per
+// second.  size is kept small enough for the recursive walk not to
+// overflow the stack on the deep workloads (nested ifs, and a long
+// additive chain, which is as deep as it is long); TreeWalker has no such
+// limit.
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parser.BlockStmt;
+import parser.IfStmt;
+import parser.IntegerExp;
+import parser.Node;
+import parser.OpExp;
+import parser.ParseException;
+import parser.Parser;
+import parser.PrintlnStmt;
+import parser.Program;
+import parser.Stmt;
+import parser.TreeWalker;
+import parser.VariableExp;
+import parser.Visitor;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitorBenchmark {
+    @Param({Workloads.WIDE, Workloads.DEEP, Workloads.ADDITIVE, Workloads.RANDOM})
+    public String workload;
+
+    @Param({"2000"})
+    public int size;
+
+    private Program program;
+    private TreeWalker walker;
+    private CountingVisitor visitor;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double nodes;
+    }
+
+    static class CountingVisitor implements Visitor {
+        public int count;
+
+        public void visitIntegerExp(final IntegerExp exp) {
+            count++;
+        }
+
+        public void visitVariableExp(final VariableExp exp) {
+            count++;
+        }
+
+        public boolean enterOpExp(final OpExp exp) {
+            count++;
+            return true;
+        }
+
+        public void leaveOpExp(final OpExp exp) {}
+
+        public boolean enterPrintlnStmt(final PrintlnStmt stmt) {
+            count++;
+            return true;
+        }
+
+        public void leavePrintlnStmt(final PrintlnStmt stmt) {}
+
+        public boolean enterIfStmt(final IfStmt stmt) {
+            count++;
+            return true;
+        }
+
+        public void leaveIfStmt(final IfStmt stmt) {}
+
+        public boolean enterBlockStmt(final BlockStmt stmt) {
+            count++;
+            return true;
+        }
+
+        public void leaveBlockStmt(final BlockStmt stmt) {}
+    }
+
+    @Setup
+    public void setup() throws ParseException {
+        program = new Parser(Workloads.program(workload, size)).parseProgram();
+        walker = new TreeWalker();
+        visitor = new CountingVisitor();
+    }
+
+    // the obvious recursive walk, as a caller would write it by hand
+    static void walkRecursively(final Node node, final Visitor visitor) {
+        if (node instanceof IntegerExp) {
+            visitor.visitIntegerExp((IntegerExp)node);
+        } else if (node instanceof VariableExp) {
+            visitor.visitVariableExp((VariableExp)node);
+        } else if (node instanceof OpExp) {
+            final OpExp exp = (OpExp)node;
+            if (visitor.enterOpExp(exp)) {
+                walkRecursively(exp.left, visitor);
+                walkRecursively(exp.right, visitor);
+            }
+            visitor.leaveOpExp(exp);
+        } else if (node instanceof PrintlnStmt) {
+            final PrintlnStmt stmt = (PrintlnStmt)node;
+            if (visitor.enterPrintlnStmt(stmt)) {
+                walkRecursively(stmt.exp, visitor);
+            }
+            visitor.leavePrintlnStmt(stmt);
+        } else if (node instanceof IfStmt) {
+            final IfStmt stmt = (IfStmt)node;
+            if (visitor.enterIfStmt(stmt)) {
+                walkRecursively(stmt.guard, visitor);
+                walkRecursively(stmt.trueBranch, visitor);
+                walkRecursively(stmt.falseBranch, visitor);
+            }
+            visitor.leaveIfStmt(stmt);
+        } else {
+            final BlockStmt stmt = (BlockStmt)node;
+            if (visitor.enterBlockStmt(stmt)) {
+                final List<Stmt> stmts = stmt.stmts;
+                for (int index = 0; index < stmts.size(); index++) {
+                    walkRecursively(stmts.get(index), visitor);
+                }
+            }
+            visitor.leaveBlockStmt(stmt);
+        }
+    } // walkRecursively
+
+    @Benchmark
+    public int treeWalker(final Throughput throughput) {
+        visitor.count = 0;
+        walker.walk(program, visitor);
+        throughput.nodes += visitor.count;
+        return visitor.count;
+    }
+
+    @Benchmark
+    public int recursive(final Throughput throughput) {
+        visitor.count = 0;
+        walkRecursively(program.stmt, visitor);
+        throughput.nodes += visitor.count;
+        return visitor.count;
+    }
+}
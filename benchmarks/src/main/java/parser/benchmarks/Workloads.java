@@ -0,0 +1,123 @@
+package parser.benchmarks;
+
+// Token streams for the benchmarks, one per shape of input that stresses
+// a different part of the parser:
+// - wide: one block with `size` println statements
+// - deep: `size` nested if statements
+// - additive: one println of a `size`-operator +/- chain
+// - comparison: one println of a `size`-operator mixed </== chain
+// - random: a ProgramGenerator program of `size` top-level statements
+
+import parser.ProgramGenerator;
+import parser.TokenBuffer;
+import parser.TokenKind;
+
+public class Workloads {
+    public static final String WIDE = "wide";
+    public static final String DEEP = "deep";
+    public static final String ADDITIVE = "additive";
+    public static final String COMPARISON = "comparison";
+    public static final String RANDOM = "random";
+
+    private static final long SEED = 430;
+    private static final int NUM_VARIABLES = 16;
+
+    private Workloads() {}
+
+    public static TokenBuffer program(final String workload, final int size) {
+        final TokenBuffer tokens = new TokenBuffer();
+        if (workload.equals(WIDE)) {
+            tokens.add(TokenKind.LEFT_CURLY, 0, -1);
+            for (int index = 0; index < size; index++) {
+                addPrintln(tokens, index);
+            }
+            tokens.add(TokenKind.RIGHT_CURLY, 0, -1);
+        } else if (workload.equals(DEEP)) {
+            for (int index = 0; index < size; index++) {
+                tokens.add(TokenKind.IF, 0, -1);
+                tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+                tokens.addVariable("x" + (index % NUM_VARIABLES), -1);
+                tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+                tokens.add(TokenKind.LEFT_CURLY, 0, -1);
+            }
+            addPrintln(tokens, 0);
+            for (int index = 0; index < size; index++) {
+                tokens.add(TokenKind.RIGHT_CURLY, 0, -1);
+                tokens.add(TokenKind.ELSE, 0, -1);
+                addPrintln(tokens, index);
+            }
+        } else if (workload.equals(ADDITIVE) || workload.equals(COMPARISON)) {
+            tokens.add(TokenKind.PRINTLN, 0, -1);
+            tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+            addChain(tokens, workload, size);
+            tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+            tokens.add(TokenKind.SEMICOLON, 0, -1);
+        } else if (workload.equals(RANDOM)) {
+            new ProgramGenerator(SEED, 4, 4, 4, NUM_VARIABLES).generate(size, tokens);
+        } else {
+            throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+        return tokens;
+    } // program
+
+    // just the expression of the additive or comparison workload
+    public static TokenBuffer expression(final String workload, final int size) {
+        final TokenBuffer tokens = new TokenBuffer();
+        addChain(tokens, workload, size);
+        return tokens;
+    }
+
+    private static void addOperand(final TokenBuffer tokens, final int index) {
+        if (index % 2 == 0) {
+            tokens.add(TokenKind.INTEGER, index, -1);
+        } else {
+            tokens.addVariable("x" + (index % NUM_VARIABLES), -1);
+        }
+    }
+
+    private static void addPrintln(final TokenBuffer tokens, final int index) {
+        tokens.add(TokenKind.PRINTLN, 0, -1);
+        tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+        addOperand(tokens, index);
+        tokens.add(TokenKind.PLUS, 0, -1);
+        addOperand(tokens, index + 1);
+        tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+        tokens.add(TokenKind.SEMICOLON, 0, -1);
+    }
+
+    private static void addChain(final TokenBuffer tokens, final String workload, final int size) {
+        addOperand(tokens, 0);
+        for (int index = 1; index <= size; index++) {
+            if (workload.equals(ADDITIVE)) {
+                tokens.add((index % 2 == 0) ? TokenKind.PLUS : TokenKind.MINUS, 0, -1);
+            } else {
+                tokens.add((index % 2 == 0) ? TokenKind.LESS_THAN : TokenKind.EQUALS, 0, -1);
+            }
+            addOperand(tokens, index);
+        }
+    } // addChain
+
+    // source text for a token stream, for benchmarking the Tokenizer
+    public static String toSource(final TokenBuffer tokens) {
+        final StringBuilder builder = new StringBuilder();
+        for (int position = 0; position < tokens.size(); position++) {
+            switch (tokens.kind(position)) {
+            case TokenKind.IF: builder.append("if "); break;
+            case TokenKind.ELSE: builder.append(" else "); break;
+            case TokenKind.PRINTLN: builder.append("println"); break;
+            case TokenKind.VARIABLE: builder.append(tokens.name(tokens.payload(position))); break;
+            case TokenKind.INTEGER: builder.append(tokens.payload(position)); break;
+            case TokenKind.PLUS: builder.append(" + "); break;
+            case TokenKind.MINUS: builder.append(" - "); break;
+            case TokenKind.LESS_THAN: builder.append(" < "); break;
+            case TokenKind.EQUALS: builder.append(" == "); break;
+            case TokenKind.LEFT_PAREN: builder.append('('); break;
+            case TokenKind.RIGHT_PAREN: builder.append(')'); break;
+            case TokenKind.LEFT_CURLY: builder.append("{\n"); break;
+            case TokenKind.RIGHT_CURLY: builder.append("}\n"); break;
+            default: builder.append(";\n"); break;
+            }
+        }
+        return builder.toString();
+    } // toSource
+}
@@ -0,0 +1,510 @@
+package parser;
+
+// An AST stored flat: each node is a row across parallel int arrays,
+// and a node is referred to by its row number (its handle).  There are
+// no per-node objects, headers or pointers.
+//
+// kind     | first       | second      | third
+// ---------+-------------+-------------+------------
+// INTEGER  | value       |             |
+// VARIABLE | name index  |             |
+// OP       | left        | right       | op code
+// PRINTLN  | exp         |             |
+// IF       | guard       | true branch | false branch
+// BLOCK    | start in    | number of   |
+//          | children    | statements  |
+//
+// A block's statement handles are stored consecutively in a separate
+// children array.  As in the object AST, leaves are shared: each name has
+// one VARIABLE row, and each small integer one INTEGER row.  Children
+// always have lower handles than their parents, since a node can only be
+// added once its children have been.  Names are kept in a SymbolTable,
+// and a VARIABLE row holds the name's id there.
+//
+// parse fills an arena straight from the parser (see ArenaBuilder), so
+// the object AST is never built.  fromProgram copies one which
+// already has been.  toStmt/toExp/toProgram build the ordinary Exp/Stmt
+// objects for any node on demand.  Both directions of conversion use
+// explicit stacks, so any depth works.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class AstArena {
+    public static final int INTEGER = 0;
+    public static final int VARIABLE = 1;
+    public static final int OP = 2;
+    public static final int PRINTLN = 3;
+    public static final int IF = 4;
+    public static final int BLOCK = 5;
+
+    public static final int PLUS = 0;
+    public static final int MINUS = 1;
+    public static final int LESS_THAN = 2;
+    public static final int EQUALS = 3;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NUM_CACHED_INTEGERS = 1024;
+
+    private byte[] kinds;
+    private int[] firsts;
+    private int[] seconds;
+    private int[] thirds;
+    private int size;
+
+    private int[] children;
+    private int numChildren;
+
+    private final SymbolTable names;
+
+    // handle + 1 of the shared row for each name index and small integer,
+    // or 0 if none yet
+    private int[] variableRows;
+    private final int[] integerRows;
+
+    // the program's statement, or -1 if not set
+    private int root;
+
+    public AstArena() {
+        kinds = new byte[INITIAL_CAPACITY];
+        firsts = new int[INITIAL_CAPACITY];
+        seconds = new int[INITIAL_CAPACITY];
+        thirds = new int[INITIAL_CAPACITY];
+        children = new int[INITIAL_CAPACITY];
+        names = new SymbolTable();
+        variableRows = new int[INITIAL_CAPACITY];
+        integerRows = new int[NUM_CACHED_INTEGERS];
+        root = -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public void setRoot(final int root) {
+        this.root = root;
+    }
+
+    private int add(final int kind, final int first, final int second, final int third) {
+        if (size == kinds.length) {
+            final int capacity = Math.max(size * 2, INITIAL_CAPACITY);
+            kinds = Arrays.copyOf(kinds, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+            thirds = Arrays.copyOf(thirds, capacity);
+        }
+        kinds[size] = (byte)kind;
+        firsts[size] = first;
+        seconds[size] = second;
+        thirds[size] = third;
+        return size++;
+    } // add
+
+    public int addInteger(final int value) {
+        if (value < 0 || value >= NUM_CACHED_INTEGERS) {
+            return add(INTEGER, value, 0, 0);
+        }
+        if (integerRows[value] == 0) {
+            integerRows[value] = add(INTEGER, value, 0, 0) + 1;
+        }
+        return integerRows[value] - 1;
+    } // addInteger
+
+    public int addVariable(final String name) {
+        final int id = names.intern(name);
+        if (id == variableRows.length) {
+            variableRows = Arrays.copyOf(variableRows, id * 2);
+        }
+        if (variableRows[id] == 0) {
+            variableRows[id] = add(VARIABLE, id, 0, 0) + 1;
+        }
+        return variableRows[id] - 1;
+    } // addVariable
+
+    public int addOp(final int left, final int opCode, final int right) {
+        return add(OP, left, right, opCode);
+    }
+
+    public int addPrintln(final int exp) {
+        return add(PRINTLN, exp, 0, 0);
+    }
+
+    public int addIf(final int guard, final int trueBranch, final int falseBranch) {
+        return add(IF, guard, trueBranch, falseBranch);
+    }
+
+    // the block's statements are stmts[from], ..., stmts[from + count - 1]
+    public int addBlock(final int[] stmts, final int from, final int count) {
+        if (numChildren + count > children.length) {
+            children = Arrays.copyOf(children, Math.max(children.length * 2, numChildren + count));
+        }
+        System.arraycopy(stmts, from, children, numChildren, count);
+        final int handle = add(BLOCK, numChildren, count, 0);
+        numChildren += count;
+        return handle;
+    } // addBlock
+
+    // drops the spare capacity left from growing the arrays
+    public void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        firsts = Arrays.copyOf(firsts, size);
+        seconds = Arrays.copyOf(seconds, size);
+        thirds = Arrays.copyOf(thirds, size);
+        children = Arrays.copyOf(children, numChildren);
+    }
+
+    public int kind(final int handle) {
+        return kinds[handle];
+    }
+
+    public int integerValue(final int handle) {
+        return firsts[handle];
+    }
+
+    public String variableName(final int handle) {
+        return names.name(firsts[handle]);
+    }
+
+    public int opLeft(final int handle) {
+        return firsts[handle];
+    }
+
+    public int opRight(final int handle) {
+        return seconds[handle];
+    }
+
+    public int opCode(final int handle) {
+        return thirds[handle];
+    }
+
+    public int printlnExp(final int handle) {
+        return firsts[handle];
+    }
+
+    public int ifGuard(final int handle) {
+        return firsts[handle];
+    }
+
+    public int ifTrueBranch(final int handle) {
+        return seconds[handle];
+    }
+
+    public int ifFalseBranch(final int handle) {
+        return thirds[handle];
+    }
+
+    public int blockSize(final int handle) {
+        return seconds[handle];
+    }
+
+    public int blockStmt(final int handle, final int index) {
+        return children[firsts[handle] + index];
+    }
+
+    public static int opCode(final Op op) {
+        if (op instanceof PlusOp) {
+            return PLUS;
+        } else if (op instanceof MinusOp) {
+            return MINUS;
+        } else if (op instanceof LessThanOp) {
+            return LESS_THAN;
+        } else {
+            return EQUALS;
+        }
+    } // opCode
+
+    public static Op op(final int opCode) {
+        switch (opCode) {
+        case PLUS: return PlusOp.INSTANCE;
+        case MINUS: return MinusOp.INSTANCE;
+        case LESS_THAN: return LessThanOp.INSTANCE;
+        default: return EqualsOp.INSTANCE;
+        }
+    } // op
+
+    // the sub-nodes of an object node, in order
+    private static int numSubnodes(final Node node) {
+        if (node instanceof OpExp) {
+            return 2;
+        } else if (node instanceof PrintlnStmt) {
+            return 1;
+        } else if (node instanceof IfStmt) {
+            return 3;
+        } else if (node instanceof BlockStmt) {
+            return ((BlockStmt)node).stmts.size();
+        } else {
+            return 0;
+        }
+    } // numSubnodes
+
+    private static Node subnode(final Node node, final int index) {
+        if (node instanceof OpExp) {
+            return (index == 0) ? ((OpExp)node).left : ((OpExp)node).right;
+        } else if (node instanceof PrintlnStmt) {
+            return ((PrintlnStmt)node).exp;
+        } else if (node instanceof IfStmt) {
+            final IfStmt stmt = (IfStmt)node;
+            return (index == 0) ? stmt.guard : (index == 1) ? stmt.trueBranch : stmt.falseBranch;
+        } else {
+            return ((BlockStmt)node).stmts.get(index);
+        }
+    } // subnode
+
+    // Adds an Exp or Stmt and everything under it, returning its handle.
+    // Nodes are added children first (post-order).
+    public int add(final Node node) {
+        // the nodes being added, with how many of their sub-nodes have
+        // been added so far
+        Node[] nodes = new Node[16];
+        int[] visited = new int[16];
+        int depth = 0;
+        // the handles of added sub-nodes not yet given to their parent
+        int[] handles = new int[16];
+        int numHandles = 0;
+
+        nodes[depth++] = node;
+        while (depth > 0) {
+            final Node current = nodes[depth - 1];
+            final int numSubnodes = numSubnodes(current);
+            if (visited[depth - 1] < numSubnodes) {
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    visited = Arrays.copyOf(visited, depth * 2);
+                }
+                nodes[depth] = subnode(current, visited[depth - 1]++);
+                visited[depth] = 0;
+                depth++;
+                continue;
+            }
+
+            depth--;
+            nodes[depth] = null;
+            numHandles -= numSubnodes;
+            final int handle;
+            if (current instanceof IntegerExp) {
+                handle = addInteger(((IntegerExp)current).value);
+            } else if (current instanceof VariableExp) {
+                handle = addVariable(((VariableExp)current).variable.name);
+            } else if (current instanceof OpExp) {
+                handle = addOp(handles[numHandles], opCode(((OpExp)current).op), handles[numHandles + 1]);
+            } else if (current instanceof PrintlnStmt) {
+                handle = addPrintln(handles[numHandles]);
+            } else if (current instanceof IfStmt) {
+                handle = addIf(handles[numHandles], handles[numHandles + 1], handles[numHandles + 2]);
+            } else {
+                handle = addBlock(handles, numHandles, numSubnodes);
+            }
+            if (numHandles == handles.length) {
+                handles = Arrays.copyOf(handles, numHandles * 2);
+            }
+            handles[numHandles++] = handle;
+        }
+        return handles[0];
+    } // add
+
+    // Adds each node to an arena as the parser makes it, children first.
+    // The handles of the nodes not yet given to a parent are kept on a
+    // stack, in the order the parser holds the nodes themselves, so each
+    // parent takes its sub-nodes' handles off the top.  What the parser
+    // gets back is a placeholder, one shared node of each kind, so it
+    // holds none of the tree.  The exception is variables: a parser asks
+    // once per name and shares the VariableExp, so each name gets a real
+    // one, which isn't on the stack and is looked up by name instead.
+    private static class ArenaBuilder implements NodeFactory {
+        private static final IntegerExp PLACEHOLDER_INTEGER = new IntegerExp(0);
+        private static final OpExp PLACEHOLDER_OP =
+            new OpExp(PLACEHOLDER_INTEGER, PlusOp.INSTANCE, PLACEHOLDER_INTEGER);
+        private static final PrintlnStmt PLACEHOLDER_PRINTLN = new PrintlnStmt(PLACEHOLDER_INTEGER);
+        private static final IfStmt PLACEHOLDER_IF =
+            new IfStmt(PLACEHOLDER_INTEGER, PLACEHOLDER_PRINTLN, PLACEHOLDER_PRINTLN);
+        private static final BlockStmt PLACEHOLDER_BLOCK = new BlockStmt(Collections.<Stmt>emptyList());
+
+        private final AstArena arena;
+        private int[] handles;
+        private int numHandles;
+
+        public ArenaBuilder(final AstArena arena) {
+            this.arena = arena;
+            handles = new int[16];
+        }
+
+        private void push(final int handle) {
+            if (numHandles == handles.length) {
+                handles = Arrays.copyOf(handles, numHandles * 2);
+            }
+            handles[numHandles++] = handle;
+        }
+
+        // the handle of exp, the latest sub-node not yet taken
+        private int take(final Exp exp) {
+            if (exp instanceof VariableExp) {
+                return arena.addVariable(((VariableExp)exp).variable.name);
+            }
+            return handles[--numHandles];
+        }
+
+        // the root's handle, once the parse is done
+        public int root() {
+            return handles[numHandles - 1];
+        }
+
+        public IntegerExp integerExp(final int value) {
+            push(arena.addInteger(value));
+            return PLACEHOLDER_INTEGER;
+        }
+
+        public VariableExp variableExp(final String name) {
+            return new VariableExp(new Variable(name));
+        }
+
+        public OpExp opExp(final Exp left, final Op op, final Exp right) {
+            final int rightHandle = take(right);
+            final int leftHandle = take(left);
+            push(arena.addOp(leftHandle, opCode(op), rightHandle));
+            return PLACEHOLDER_OP;
+        }
+
+        public PrintlnStmt printlnStmt(final Exp exp) {
+            push(arena.addPrintln(take(exp)));
+            return PLACEHOLDER_PRINTLN;
+        }
+
+        public IfStmt ifStmt(final Exp guard, final Stmt trueBranch, final Stmt falseBranch) {
+            final int falseHandle = handles[--numHandles];
+            final int trueHandle = handles[--numHandles];
+            push(arena.addIf(take(guard), trueHandle, falseHandle));
+            return PLACEHOLDER_IF;
+        }
+
+        public BlockStmt blockStmt(final List<Stmt> stmts) {
+            numHandles -= stmts.size();
+            push(arena.addBlock(handles, numHandles, stmts.size()));
+            return PLACEHOLDER_BLOCK;
+        }
+    }
+
+    // Parses a program straight into a new arena.  Only the arena and the
+    // handles of the nodes still waiting for a parent are in memory,
+    // never the whole object AST.
+    public static AstArena parse(final TokenBuffer tokens) throws ParseException {
+        final AstArena arena = new AstArena();
+        final ArenaBuilder builder = new ArenaBuilder(arena);
+        final Parser parser = new Parser(tokens);
+        parser.setNodeFactory(builder);
+        parser.parseProgram();
+        arena.setRoot(builder.root());
+        arena.trim();
+        return arena;
+    } // parse
+
+    public static AstArena fromProgram(final Program program) {
+        final AstArena arena = new AstArena();
+        arena.setRoot(arena.add(program.stmt));
+        arena.trim();
+        return arena;
+    }
+
+    private int numSubnodes(final int handle) {
+        switch (kinds[handle]) {
+        case OP: return 2;
+        case PRINTLN: return 1;
+        case IF: return 3;
+        case BLOCK: return seconds[handle];
+        default: return 0;
+        }
+    } // numSubnodes
+
+    private int subnode(final int handle, final int index) {
+        switch (kinds[handle]) {
+        case OP: return (index == 0) ? firsts[handle] : seconds[handle];
+        case PRINTLN: return firsts[handle];
+        case IF: return (index == 0) ? firsts[handle] : (index == 1) ? seconds[handle] : thirds[handle];
+        default: return children[firsts[handle] + index];
+        }
+    } // subnode
+
+    // builds the Exp or Stmt objects for a node and everything under it
+    public Node toNode(final int handle) {
+        int[] stack = new int[16];
+        int[] visited = new int[16];
+        int depth = 0;
+        Node[] built = new Node[16];
+        int numBuilt = 0;
+        // each distinct name gets one VariableExp, as from the Parser
+        final VariableExp[] variables = new VariableExp[names.size()];
+
+        stack[depth++] = handle;
+        while (depth > 0) {
+            final int current = stack[depth - 1];
+            final int numSubnodes = numSubnodes(current);
+            if (visited[depth - 1] < numSubnodes) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                    visited = Arrays.copyOf(visited, depth * 2);
+                }
+                stack[depth] = subnode(current, visited[depth - 1]++);
+                visited[depth] = 0;
+                depth++;
+                continue;
+            }
+
+            depth--;
+            numBuilt -= numSubnodes;
+            final Node node;
+            switch (kinds[current]) {
+            case INTEGER:
+                node = IntegerExp.valueOf(firsts[current]);
+                break;
+            case VARIABLE: {
+                final int nameIndex = firsts[current];
+                if (variables[nameIndex] == null) {
+                    variables[nameIndex] = new VariableExp(new Variable(names.name(nameIndex)));
+                }
+                node = variables[nameIndex];
+                break;
+            }
+            case OP:
+                node = new OpExp((Exp)built[numBuilt], op(thirds[current]), (Exp)built[numBuilt + 1]);
+                break;
+            case PRINTLN:
+                node = new PrintlnStmt((Exp)built[numBuilt]);
+                break;
+            case IF:
+                node = new IfStmt((Exp)built[numBuilt], (Stmt)built[numBuilt + 1], (Stmt)built[numBuilt + 2]);
+                break;
+            default: {
+                final List<Stmt> stmts = new ArrayList<Stmt>(numSubnodes);
+                for (int index = 0; index < numSubnodes; index++) {
+                    stmts.add((Stmt)built[numBuilt + index]);
+                }
+                node = new BlockStmt(stmts);
+                break;
+            }
+            }
+            Arrays.fill(built, numBuilt, numBuilt + numSubnodes, null);
+            if (numBuilt == built.length) {
+                built = Arrays.copyOf(built, numBuilt * 2);
+            }
+            built[numBuilt++] = node;
+        }
+        return built[0];
+    } // toNode
+
+    public Exp toExp(final int handle) {
+        return (Exp)toNode(handle);
+    }
+
+    public Stmt toStmt(final int handle) {
+        return (Stmt)toNode(handle);
+    }
+
+    public Program toProgram() {
+        return new Program(toStmt(root));
+    }
+}
@@ -0,0 +1,170 @@
+package parser;
+
+// Reads a Program written by AstWriter, straight from a ByteBuffer: a
+// heap buffer, or a file mapped into memory with FileChannel.map, in
+// which case loading costs paging the file in and building the nodes,
+// rather than tokenizing and parsing.  Reading is a single pass with an
+// explicit stack.  Malformed input raises an IOException.
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AstReader {
+    private final NodeFactory nodeFactory;
+
+    public AstReader(final NodeFactory nodeFactory) {
+        this.nodeFactory = nodeFactory;
+    }
+
+    public AstReader() {
+        this(DefaultNodeFactory.INSTANCE);
+    }
+
+    private static int readVarInt(final ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int part = in.get();
+            value |= (part & 0x7F) << shift;
+            if ((part & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint at byte " + in.position());
+    }
+
+    private static int readSignedVarInt(final ByteBuffer in) throws IOException {
+        final int zigzag = readVarInt(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    // a node needs numSubnodes nodes already on the stack
+    private static void checkSubnodes(final int depth, final int numSubnodes, final String kind)
+        throws IOException {
+        if (numSubnodes < 0 || numSubnodes > depth) {
+            throw new IOException("corrupt AST: " + kind + " of " + numSubnodes +
+                                  " sub-nodes, with " + depth + " read");
+        }
+    }
+
+    public Program read(final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(mapped);
+        } finally {
+            channel.close();
+        }
+    } // read
+
+    // reads from the buffer's position onwards
+    public Program read(final ByteBuffer in) throws IOException {
+        try {
+            return readProgram(in);
+        } catch (final BufferUnderflowException e) {
+            throw new IOException("Truncated program", e);
+        } catch (final ClassCastException e) {
+            throw new IOException("Malformed program: node of the wrong kind", e);
+        } catch (final ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed program: missing sub-nodes", e);
+        }
+    } // read
+
+    private Program readProgram(final ByteBuffer in) throws IOException {
+        if (in.getInt() != AstWriter.MAGIC) {
+            throw new IOException("Not a program file");
+        }
+        final int version = readVarInt(in);
+        if (version != AstWriter.VERSION) {
+            throw new IOException("Unsupported program format version: " + version);
+        }
+
+        final List<VariableExp> variables = new ArrayList<VariableExp>();
+        Node[] stack = new Node[16];
+        int depth = 0;
+        while (true) {
+            final int tag = in.get();
+            final Node node;
+            int numSubnodes = 0;
+            switch (tag) {
+            case AstWriter.INTEGER:
+                node = nodeFactory.integerExp(readSignedVarInt(in));
+                break;
+            case AstWriter.VARIABLE: {
+                final int index = readVarInt(in);
+                if (index < 0 || index >= variables.size()) {
+                    throw new IOException("Unknown variable " + index);
+                }
+                node = variables.get(index);
+                break;
+            }
+            case AstWriter.NEW_VARIABLE: {
+                // checked before allocating, so a corrupt length can't
+                // make a huge (or negative) array
+                final int length = readVarInt(in);
+                if (length < 0 || length > in.remaining()) {
+                    throw new IOException("corrupt AST: name of " + length + " bytes, with " +
+                                          in.remaining() + " left");
+                }
+                final byte[] bytes = new byte[length];
+                in.get(bytes);
+                final VariableExp exp = nodeFactory.variableExp(new String(bytes, StandardCharsets.UTF_8));
+                variables.add(exp);
+                node = exp;
+                break;
+            }
+            case AstWriter.OP: {
+                final int opCode = in.get();
+                if (opCode < AstArena.PLUS || opCode > AstArena.EQUALS) {
+                    throw new IOException("Unknown op " + opCode);
+                }
+                numSubnodes = 2;
+                checkSubnodes(depth, numSubnodes, "op");
+                node = nodeFactory.opExp((Exp)stack[depth - 2], AstArena.op(opCode), (Exp)stack[depth - 1]);
+                break;
+            }
+            case AstWriter.PRINTLN:
+                numSubnodes = 1;
+                checkSubnodes(depth, numSubnodes, "println");
+                node = nodeFactory.printlnStmt((Exp)stack[depth - 1]);
+                break;
+            case AstWriter.IF:
+                numSubnodes = 3;
+                checkSubnodes(depth, numSubnodes, "if");
+                node = nodeFactory.ifStmt((Exp)stack[depth - 3], (Stmt)stack[depth - 2], (Stmt)stack[depth - 1]);
+                break;
+            case AstWriter.BLOCK: {
+                numSubnodes = readVarInt(in);
+                checkSubnodes(depth, numSubnodes, "block");
+                final List<Stmt> stmts = new ArrayList<Stmt>(numSubnodes);
+                for (int index = depth - numSubnodes; index < depth; index++) {
+                    stmts.add((Stmt)stack[index]);
+                }
+                node = nodeFactory.blockStmt(stmts);
+                break;
+            }
+            case AstWriter.END:
+                if (depth != 1) {
+                    throw new IOException("Malformed program: " + depth + " nodes at the end");
+                }
+                return new Program((Stmt)stack[0]);
+            default:
+                throw new IOException("Unknown node tag " + tag);
+            }
+            Arrays.fill(stack, depth - numSubnodes, depth, null);
+            depth -= numSubnodes;
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth++] = node;
+        }
+    } // readProgram
+}
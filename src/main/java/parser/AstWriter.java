@@ -0,0 +1,152 @@
+package parser;
+
+// Writes a Program in a compact binary form, read back by AstReader.
+//
+// After a header (magic number, format version), the nodes follow in
+// post-order, so a reader can rebuild the tree with a stack: each node's
+// sub-nodes come right before it.  Each node is a tag byte, then:
+//
+// INTEGER       the value (signed varint)
+// VARIABLE      the index of a name already seen (varint)
+// NEW_VARIABLE  a new name: its UTF-8 length (varint), then its bytes;
+//               names are numbered in order of first appearance
+// OP            the op: 0 for +, 1 for -, 2 for <, 3 for ==
+// PRINTLN, IF   nothing
+// BLOCK         the number of statements (varint)
+//
+// then END.  Varints hold 7 bits per byte, low bits first, with the top
+// bit set on all but the last byte; signed values are zigzag-encoded
+// first, so small negative numbers stay short.
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AstWriter {
+    static final int MAGIC = 0x50415354; // "PAST"
+    static final int VERSION = 1;
+
+    static final int INTEGER = 0;
+    static final int VARIABLE = 1;
+    static final int NEW_VARIABLE = 2;
+    static final int OP = 3;
+    static final int PRINTLN = 4;
+    static final int IF = 5;
+    static final int BLOCK = 6;
+    static final int END = 7;
+
+    private final OutputStream out;
+    private final Map<String, Integer> nameIndices;
+
+    public AstWriter(final OutputStream out) {
+        this.out = new BufferedOutputStream(out);
+        nameIndices = new HashMap<String, Integer>();
+    }
+
+    private void writeVarInt(final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    private void writeSignedVarInt(final int value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVariable(final String name) throws IOException {
+        final Integer index = nameIndices.get(name);
+        if (index != null) {
+            out.write(VARIABLE);
+            writeVarInt(index.intValue());
+        } else {
+            nameIndices.put(name, Integer.valueOf(nameIndices.size()));
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            out.write(NEW_VARIABLE);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+    } // writeVariable
+
+    private static int numSubnodes(final Node node) {
+        if (node instanceof OpExp) {
+            return 2;
+        } else if (node instanceof PrintlnStmt) {
+            return 1;
+        } else if (node instanceof IfStmt) {
+            return 3;
+        } else if (node instanceof BlockStmt) {
+            return ((BlockStmt)node).stmts.size();
+        } else {
+            return 0;
+        }
+    } // numSubnodes
+
+    private static Node subnode(final Node node, final int index) {
+        if (node instanceof OpExp) {
+            return (index == 0) ? ((OpExp)node).left : ((OpExp)node).right;
+        } else if (node instanceof PrintlnStmt) {
+            return ((PrintlnStmt)node).exp;
+        } else if (node instanceof IfStmt) {
+            final IfStmt stmt = (IfStmt)node;
+            return (index == 0) ? stmt.guard : (index == 1) ? stmt.trueBranch : stmt.falseBranch;
+        } else {
+            return ((BlockStmt)node).stmts.get(index);
+        }
+    } // subnode
+
+    // writes the program, and flushes the underlying stream
+    public void write(final Program program) throws IOException {
+        out.write(MAGIC >>> 24);
+        out.write(MAGIC >>> 16);
+        out.write(MAGIC >>> 8);
+        out.write(MAGIC);
+        writeVarInt(VERSION);
+
+        Node[] nodes = new Node[16];
+        int[] visited = new int[16];
+        int depth = 0;
+        nodes[depth++] = program.stmt;
+        while (depth > 0) {
+            final Node current = nodes[depth - 1];
+            final int numSubnodes = numSubnodes(current);
+            if (visited[depth - 1] < numSubnodes) {
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    visited = Arrays.copyOf(visited, depth * 2);
+                }
+                nodes[depth] = subnode(current, visited[depth - 1]++);
+                visited[depth] = 0;
+                depth++;
+                continue;
+            }
+
+            depth--;
+            nodes[depth] = null;
+            if (current instanceof IntegerExp) {
+                out.write(INTEGER);
+                writeSignedVarInt(((IntegerExp)current).value);
+            } else if (current instanceof VariableExp) {
+                writeVariable(((VariableExp)current).variable.name);
+            } else if (current instanceof OpExp) {
+                out.write(OP);
+                out.write(AstArena.opCode(((OpExp)current).op));
+            } else if (current instanceof PrintlnStmt) {
+                out.write(PRINTLN);
+            } else if (current instanceof IfStmt) {
+                out.write(IF);
+            } else {
+                out.write(BLOCK);
+                writeVarInt(numSubnodes);
+            }
+        }
+        out.write(END);
+        out.flush();
+    } // write
+}
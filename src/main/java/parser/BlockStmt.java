@@ -1,11 +1,32 @@
 package parser;
 
+import java.util.Collections;
 import java.util.List;
 
 public class BlockStmt implements Stmt {
+    // The list it was made with, which the maker hands over and never
+    // changes again (the parser and the node factories make a new list for
+    // each block); it can't be changed through here either, so the kept
+    // hash stays right.
     public final List<Stmt> stmts;
+    // hashCode, once computed; 0 if not yet
+    int hash;
 
     public BlockStmt(final List<Stmt> stmts) {
-        this.stmts = stmts;
+        this.stmts = Collections.unmodifiableList(stmts);
+    }
+
+    // see Nodes
+    public boolean equals(final Object other) {
+        return (this == other ||
+                (other instanceof BlockStmt && Nodes.equal(this, (BlockStmt)other)));
+    }
+
+    public int hashCode() {
+        return Nodes.hash(this);
+    }
+
+    public String toString() {
+        return Nodes.toString(this);
     }
 }
@@ -0,0 +1,433 @@
+package parser;
+
+// Compiles a Program to a JVM class, which HotSpot then JIT-compiles like
+// any other code.
+//
+// The Interpreter's postfix code is translated instruction by instruction:
+// its operand stack becomes the JVM operand stack, and its jumps become
+// JVM branches.  Each variable is loaded from the frame into a local
+// variable once, at the start of each method.  A comparison whose result
+// is only used as an if guard becomes a single compare-and-branch.
+//
+// By default HotSpot never JIT-compiles a method over 8000 bytes of
+// bytecode, so the top-level statements are packed into as many methods
+// of at most JIT_METHOD_SIZE bytes as needed, with execute calling them
+// in turn; no JVM flags are needed.  A statement larger than that gets a
+// method of its own, which runs but is never JIT-compiled.  A conditional
+// branch only reaches 32 KB, so a single top-level statement larger than
+// MAX_METHOD_SIZE can't be compiled and raises a CompilerException; so
+// does a program needing more than 64K constants.
+//
+// Every compiled class gets its own class loader, so it can be unloaded
+// once the CompiledProgram is no longer used.
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class BytecodeCompiler {
+    private static final String CLASS_NAME = "parser.GeneratedProgram";
+    private static final String INTERNAL_NAME = "parser/GeneratedProgram";
+    private static final String SUPER_NAME = "parser/CompiledProgram";
+    private static final String LINE_WRITER = "parser/LineWriter";
+    private static final String EXECUTE_DESCRIPTOR = "([ILparser/LineWriter;)V";
+
+    private static final int JIT_METHOD_SIZE = 8000;
+    private static final int MAX_METHOD_SIZE = 32767;
+    // locals: this, frame, out, then one per variable
+    private static final int FIRST_SLOT_LOCAL = 3;
+
+    // opcodes
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int ILOAD = 0x15;
+    private static final int ILOAD_0 = 0x1a;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int IALOAD = 0x2e;
+    private static final int ISTORE = 0x36;
+    private static final int ISTORE_0 = 0x3b;
+    private static final int SWAP = 0x5f;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int IFEQ = 0x99;
+    private static final int IF_ICMPNE = 0xa0;
+    private static final int IF_ICMPGE = 0xa2;
+    private static final int GOTO = 0xa7;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int WIDE = 0xc4;
+
+    private final Interpreter interpreter;
+    private final int[] code;
+    private final ClassFileWriter classFile;
+    private final int printlnRef;
+
+    // bytecode being written
+    private byte[] bytes;
+    private int size;
+
+    // for the statement being translated: the bytecode offset of each
+    // instruction, relative to the statement's start, and which
+    // instructions are jump targets
+    private final int[] offsets;
+    private final boolean[] isTarget;
+
+    // variables used by the method being written
+    private final boolean[] usedSlots;
+
+    private BytecodeCompiler(final Interpreter interpreter) throws CompilerException, IOException {
+        this.interpreter = interpreter;
+        code = interpreter.code;
+        classFile = new ClassFileWriter();
+        printlnRef = classFile.methodRef(LINE_WRITER, "println", "(I)V");
+        bytes = new byte[1024];
+        offsets = new int[code.length + 1];
+        isTarget = new boolean[code.length + 1];
+        usedSlots = new boolean[interpreter.numSlots()];
+    }
+
+    public static CompiledProgram compile(final Program program) throws CompilerException {
+        return compile(new Interpreter(program));
+    }
+
+    public static CompiledProgram compile(final Interpreter interpreter) throws CompilerException {
+        final byte[] classBytes;
+        try {
+            classBytes = new BytecodeCompiler(interpreter).compileClass();
+        } catch (final IOException e) {
+            // only written to byte arrays
+            throw new IllegalStateException(e);
+        }
+        final CompiledProgram program;
+        try {
+            program = (CompiledProgram)new Loader().define(CLASS_NAME, classBytes)
+                .getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new CompilerException("Could not load compiled program", e);
+        }
+        final String[] slotNames = new String[interpreter.numSlots()];
+        for (int slot = 0; slot < slotNames.length; slot++) {
+            slotNames[slot] = interpreter.slotName(slot);
+        }
+        program.setSlotNames(slotNames);
+        return program;
+    } // compile
+
+    private static class Loader extends ClassLoader {
+        public Loader() {
+            super(CompiledProgram.class.getClassLoader());
+        }
+
+        public Class<?> define(final String name, final byte[] classBytes) {
+            return defineClass(name, classBytes, 0, classBytes.length);
+        }
+    }
+
+    private void write(final int value) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, size * 2);
+        }
+        bytes[size++] = (byte)value;
+    }
+
+    private void writeShort(final int value) {
+        write(value >> 8);
+        write(value);
+    }
+
+    private static int localOf(final int slot) {
+        return FIRST_SLOT_LOCAL + slot;
+    }
+
+    // the size of each JVM instruction written by the methods below
+    private static int localSize(final int local) {
+        return (local <= 3) ? 1 : (local <= 255) ? 2 : 4;
+    }
+
+    private int constantSize(final int value) throws CompilerException, IOException {
+        if (value >= -1 && value <= 5) {
+            return 1;
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            return 2;
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            return 3;
+        } else {
+            return (classFile.integer(value) <= 255) ? 2 : 3;
+        }
+    } // constantSize
+
+    private void writeConstant(final int value) throws CompilerException, IOException {
+        if (value >= -1 && value <= 5) {
+            write(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            write(BIPUSH);
+            write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            write(SIPUSH);
+            writeShort(value);
+        } else {
+            final int index = classFile.integer(value);
+            if (index <= 255) {
+                write(LDC);
+                write(index);
+            } else {
+                write(LDC_W);
+                writeShort(index);
+            }
+        }
+    } // writeConstant
+
+    // ILOAD or ISTORE
+    private void writeLocal(final int opcode, final int shortOpcode, final int local) {
+        if (local <= 3) {
+            write(shortOpcode + local);
+        } else if (local <= 255) {
+            write(opcode);
+            write(local);
+        } else {
+            write(WIDE);
+            write(opcode);
+            writeShort(local);
+        }
+    } // writeLocal
+
+    private static int length(final int opcode) {
+        switch (opcode) {
+        case Interpreter.PUSH_CONST:
+        case Interpreter.LOAD:
+        case Interpreter.JUMP_IF_ZERO:
+        case Interpreter.JUMP:
+            return 2;
+        default:
+            return 1;
+        }
+    } // length
+
+    // whether the comparison at pc is fused with the JUMP_IF_ZERO after it
+    private boolean isFused(final int pc, final int end) {
+        return ((code[pc] == Interpreter.LT || code[pc] == Interpreter.EQ) &&
+                pc + 1 < end &&
+                code[pc + 1] == Interpreter.JUMP_IF_ZERO &&
+                !isTarget[pc + 1]);
+    }
+
+    // Appends the bytecode for the Interpreter code in [start, end), one
+    // top-level statement, marking the variables it uses.
+    private void translateStmt(final int start, final int end) throws CompilerException, IOException {
+        // first pass: find jump targets, then lay out the code
+        for (int pc = start; pc < end; pc += length(code[pc])) {
+            if (code[pc] == Interpreter.JUMP_IF_ZERO || code[pc] == Interpreter.JUMP) {
+                isTarget[code[pc + 1]] = true;
+            }
+        }
+        int offset = 0;
+        for (int pc = start; pc < end; pc += length(code[pc])) {
+            offsets[pc] = offset;
+            switch (code[pc]) {
+            case Interpreter.PUSH_CONST:
+                offset += constantSize(code[pc + 1]);
+                break;
+            case Interpreter.LOAD:
+                offset += localSize(localOf(code[pc + 1]));
+                break;
+            case Interpreter.ADD:
+            case Interpreter.SUB:
+                offset += 1;
+                break;
+            case Interpreter.LT:
+            case Interpreter.EQ:
+                if (isFused(pc, end)) {
+                    // the JUMP_IF_ZERO is folded in; give it the same offset
+                    offsets[pc + 1] = offset;
+                    offset += 3;
+                    pc += length(code[pc]);
+                } else {
+                    offset += 8;
+                }
+                break;
+            case Interpreter.PRINT:
+                offset += 5;
+                break;
+            default:
+                // JUMP_IF_ZERO, JUMP
+                offset += 3;
+                break;
+            }
+        }
+        offsets[end] = offset;
+
+        // second pass: write it
+        final int base = size;
+        for (int pc = start; pc < end; pc += length(code[pc])) {
+            final int here = offsets[pc];
+            switch (code[pc]) {
+            case Interpreter.PUSH_CONST:
+                writeConstant(code[pc + 1]);
+                break;
+            case Interpreter.LOAD:
+                usedSlots[code[pc + 1]] = true;
+                writeLocal(ILOAD, ILOAD_0, localOf(code[pc + 1]));
+                break;
+            case Interpreter.ADD:
+                write(IADD);
+                break;
+            case Interpreter.SUB:
+                write(ISUB);
+                break;
+            case Interpreter.LT:
+            case Interpreter.EQ: {
+                // branch when the comparison is false
+                final int branch = (code[pc] == Interpreter.LT) ? IF_ICMPGE : IF_ICMPNE;
+                if (isFused(pc, end)) {
+                    pc += length(code[pc]);
+                    write(branch);
+                    writeShort(offsets[code[pc + 1]] - here);
+                } else {
+                    // push 1, or 0 if false
+                    write(branch);
+                    writeShort(7);
+                    write(ICONST_0 + 1);
+                    write(GOTO);
+                    writeShort(4);
+                    write(ICONST_0);
+                }
+                break;
+            }
+            case Interpreter.PRINT:
+                write(ALOAD_2);
+                write(SWAP);
+                write(INVOKEVIRTUAL);
+                writeShort(printlnRef);
+                break;
+            case Interpreter.JUMP_IF_ZERO:
+                write(IFEQ);
+                writeShort(offsets[code[pc + 1]] - here);
+                break;
+            default:
+                write(GOTO);
+                writeShort(offsets[code[pc + 1]] - here);
+                break;
+            }
+        }
+        if (size - base != offset) {
+            throw new IllegalStateException("Bytecode layout mismatch");
+        }
+        Arrays.fill(isTarget, start, end + 1, false);
+    } // translateStmt
+
+    private int prologueSize(final int slot) throws CompilerException, IOException {
+        // aload_1, the slot number, iaload, istore
+        return 1 + constantSize(slot) + 1 + localSize(localOf(slot));
+    }
+
+    // writes a method: loads the variables it uses, then runs body
+    private void addStmtsMethod(final String name, final byte[] body, final int bodySize)
+        throws CompilerException, IOException {
+        size = 0;
+        for (int slot = 0; slot < usedSlots.length; slot++) {
+            if (usedSlots[slot]) {
+                write(ALOAD_1);
+                writeConstant(slot);
+                write(IALOAD);
+                writeLocal(ISTORE, ISTORE_0, localOf(slot));
+            }
+        }
+        for (int index = 0; index < bodySize; index++) {
+            write(body[index]);
+        }
+        write(RETURN);
+        classFile.addMethod(ClassFileWriter.ACC_PRIVATE, name, EXECUTE_DESCRIPTOR,
+                            interpreter.maxStackDepth + 2, localOf(usedSlots.length),
+                            bytes, size);
+        Arrays.fill(usedSlots, false);
+    } // addStmtsMethod
+
+    private byte[] compileClass() throws CompilerException, IOException {
+        if (localOf(usedSlots.length) > 65535) {
+            throw new CompilerException("Too many variables to compile");
+        }
+        final int[] stmtStarts = interpreter.stmtStarts;
+        // the end of the last statement is the HALT
+        final int codeEnd = code.length - 1;
+        int numMethods = 0;
+
+        // the current method's statements, and their bytecode
+        byte[] body = new byte[1024];
+        int bodySize = 0;
+        int prologue = 0;
+        final boolean[] methodSlots = new boolean[usedSlots.length];
+
+        for (int index = 0; index < stmtStarts.length; index++) {
+            final int end = (index + 1 < stmtStarts.length) ? stmtStarts[index + 1] : codeEnd;
+            size = 0;
+            translateStmt(stmtStarts[index], end);
+            int stmtPrologue = 0;
+            for (int slot = 0; slot < usedSlots.length; slot++) {
+                if (usedSlots[slot] && !methodSlots[slot]) {
+                    stmtPrologue += prologueSize(slot);
+                }
+            }
+            if (bodySize > 0 && prologue + stmtPrologue + bodySize + size + 1 > JIT_METHOD_SIZE) {
+                // start a new method
+                System.arraycopy(methodSlots, 0, usedSlots, 0, usedSlots.length);
+                addStmtsMethod("stmts" + numMethods++, body, bodySize);
+                Arrays.fill(methodSlots, false);
+                bodySize = 0;
+                prologue = 0;
+                // the statement's bytecode is gone; translate it again
+                index--;
+                continue;
+            }
+            if (prologue + stmtPrologue + size + 1 > MAX_METHOD_SIZE) {
+                throw new CompilerException("Top-level statement " + index +
+                                            " is too large to compile");
+            }
+            for (int slot = 0; slot < usedSlots.length; slot++) {
+                methodSlots[slot] |= usedSlots[slot];
+                usedSlots[slot] = false;
+            }
+            prologue += stmtPrologue;
+            if (bodySize + size > body.length) {
+                body = Arrays.copyOf(body, Math.max(body.length * 2, bodySize + size));
+            }
+            System.arraycopy(bytes, 0, body, bodySize, size);
+            bodySize += size;
+        }
+        if (bodySize > 0) {
+            System.arraycopy(methodSlots, 0, usedSlots, 0, usedSlots.length);
+            addStmtsMethod("stmts" + numMethods++, body, bodySize);
+        }
+
+        // execute calls each method in turn
+        size = 0;
+        write(ALOAD_0);
+        write(INVOKESPECIAL);
+        writeShort(classFile.methodRef(SUPER_NAME, "<init>", "()V"));
+        write(RETURN);
+        classFile.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V", 1, 1, bytes, size);
+
+        size = 0;
+        for (int method = 0; method < numMethods; method++) {
+            if (size + 7 > MAX_METHOD_SIZE) {
+                throw new CompilerException("Program is too large to compile");
+            }
+            write(ALOAD_0);
+            write(ALOAD_1);
+            write(ALOAD_2);
+            write(INVOKESPECIAL);
+            writeShort(classFile.methodRef(INTERNAL_NAME, "stmts" + method, EXECUTE_DESCRIPTOR));
+        }
+        write(RETURN);
+        classFile.addMethod(ClassFileWriter.ACC_PROTECTED, "execute", EXECUTE_DESCRIPTOR,
+                            3, 3, bytes, size);
+
+        return classFile.toByteArray(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL |
+                                     ClassFileWriter.ACC_SUPER,
+                                     INTERNAL_NAME, SUPER_NAME);
+    } // compileClass
+}
@@ -0,0 +1,186 @@
+package parser;
+
+// Just enough of the JVM class file format for the BytecodeCompiler: a
+// class with a superclass, no fields, and methods with Code attributes.
+//
+// Classes are version 49 (Java 5), the last version verified without
+// StackMapTable attributes, so the BytecodeCompiler doesn't need to
+// compute stack map frames for its jumps.  Newer JVMs still load them.
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+class ClassFileWriter {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MAJOR_VERSION = 49;
+    private static final int MAX_POOL_SIZE = 65535;
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_PROTECTED = 0x0004;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes;
+    private final DataOutputStream pool;
+    // index 0 is unused
+    private int poolSize;
+    // each distinct constant's index, keyed by its tag and contents
+    private final Map<String, Integer> poolIndices;
+
+    private final ByteArrayOutputStream methodBytes;
+    private final DataOutputStream methods;
+    private int numMethods;
+
+    public ClassFileWriter() {
+        poolBytes = new ByteArrayOutputStream();
+        pool = new DataOutputStream(poolBytes);
+        poolSize = 1;
+        poolIndices = new HashMap<String, Integer>();
+        methodBytes = new ByteArrayOutputStream();
+        methods = new DataOutputStream(methodBytes);
+    }
+
+    // returns the index of an existing entry with the given key, or -1
+    // after checking there is room for a new one
+    private int existing(final String key) throws CompilerException {
+        final Integer index = poolIndices.get(key);
+        if (index != null) {
+            return index.intValue();
+        } else if (poolSize == MAX_POOL_SIZE) {
+            throw new CompilerException("Too many constants for one class");
+        }
+        return -1;
+    } // existing
+
+    private int added(final String key) {
+        poolIndices.put(key, Integer.valueOf(poolSize));
+        return poolSize++;
+    }
+
+    public int utf8(final String value) throws CompilerException, IOException {
+        final String key = CONSTANT_UTF8 + ":" + value;
+        final int index = existing(key);
+        if (index != -1) {
+            return index;
+        }
+        pool.writeByte(CONSTANT_UTF8);
+        pool.writeUTF(value);
+        return added(key);
+    } // utf8
+
+    public int integer(final int value) throws CompilerException, IOException {
+        final String key = CONSTANT_INTEGER + ":" + value;
+        final int index = existing(key);
+        if (index != -1) {
+            return index;
+        }
+        pool.writeByte(CONSTANT_INTEGER);
+        pool.writeInt(value);
+        return added(key);
+    } // integer
+
+    // internalName uses slashes: parser/LineWriter
+    public int classRef(final String internalName) throws CompilerException, IOException {
+        final String key = CONSTANT_CLASS + ":" + internalName;
+        final int index = existing(key);
+        if (index != -1) {
+            return index;
+        }
+        final int name = utf8(internalName);
+        existing(key);
+        pool.writeByte(CONSTANT_CLASS);
+        pool.writeShort(name);
+        return added(key);
+    } // classRef
+
+    private int nameAndType(final String name, final String descriptor) throws CompilerException, IOException {
+        final String key = CONSTANT_NAME_AND_TYPE + ":" + name + ":" + descriptor;
+        final int index = existing(key);
+        if (index != -1) {
+            return index;
+        }
+        final int nameIndex = utf8(name);
+        final int descriptorIndex = utf8(descriptor);
+        existing(key);
+        pool.writeByte(CONSTANT_NAME_AND_TYPE);
+        pool.writeShort(nameIndex);
+        pool.writeShort(descriptorIndex);
+        return added(key);
+    } // nameAndType
+
+    public int methodRef(final String owner,
+                         final String name,
+                         final String descriptor) throws CompilerException, IOException {
+        final String key = CONSTANT_METHODREF + ":" + owner + ":" + name + ":" + descriptor;
+        final int index = existing(key);
+        if (index != -1) {
+            return index;
+        }
+        final int ownerIndex = classRef(owner);
+        final int nameAndTypeIndex = nameAndType(name, descriptor);
+        existing(key);
+        pool.writeByte(CONSTANT_METHODREF);
+        pool.writeShort(ownerIndex);
+        pool.writeShort(nameAndTypeIndex);
+        return added(key);
+    } // methodRef
+
+    public void addMethod(final int access,
+                          final String name,
+                          final String descriptor,
+                          final int maxStack,
+                          final int maxLocals,
+                          final byte[] code,
+                          final int codeLength) throws CompilerException, IOException {
+        final int nameIndex = utf8(name);
+        final int descriptorIndex = utf8(descriptor);
+        final int codeIndex = utf8("Code");
+        methods.writeShort(access);
+        methods.writeShort(nameIndex);
+        methods.writeShort(descriptorIndex);
+        methods.writeShort(1); // attributes
+        methods.writeShort(codeIndex);
+        methods.writeInt(12 + codeLength);
+        methods.writeShort(maxStack);
+        methods.writeShort(maxLocals);
+        methods.writeInt(codeLength);
+        methods.write(code, 0, codeLength);
+        methods.writeShort(0); // exception table
+        methods.writeShort(0); // attributes
+        numMethods++;
+    } // addMethod
+
+    public byte[] toByteArray(final int access,
+                              final String internalName,
+                              final String superName) throws CompilerException, IOException {
+        final int thisIndex = classRef(internalName);
+        final int superIndex = classRef(superName);
+        final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(classBytes);
+        out.writeInt(MAGIC);
+        out.writeShort(0);
+        out.writeShort(MAJOR_VERSION);
+        out.writeShort(poolSize);
+        poolBytes.writeTo(out);
+        out.writeShort(access);
+        out.writeShort(thisIndex);
+        out.writeShort(superIndex);
+        out.writeShort(0); // interfaces
+        out.writeShort(0); // fields
+        out.writeShort(numMethods);
+        methodBytes.writeTo(out);
+        out.writeShort(0); // attributes
+        out.flush();
+        return classBytes.toByteArray();
+    } // toByteArray
+}
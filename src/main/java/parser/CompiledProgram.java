@@ -0,0 +1,75 @@
+package parser;
+
+// A Program compiled to a JVM class by the BytecodeCompiler.  It runs the
+// same way as with the Interpreter: a frame holds the value of every
+// variable, and println output goes to a Writer.  A CompiledProgram
+// holds no state while running, so it can be run by many threads at
+// once.
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+public abstract class CompiledProgram {
+    private String[] slotNames;
+    private Map<String, Integer> slots;
+
+    protected CompiledProgram() {}
+
+    // called by the BytecodeCompiler once the generated class is
+    // instantiated
+    void setSlotNames(final String[] slotNames) {
+        this.slotNames = slotNames;
+        slots = new HashMap<String, Integer>();
+        for (int slot = 0; slot < slotNames.length; slot++) {
+            slots.put(slotNames[slot], Integer.valueOf(slot));
+        }
+    }
+
+    // implemented by the generated class
+    protected abstract void execute(int[] frame, LineWriter out) throws IOException;
+
+    public int numSlots() {
+        return slotNames.length;
+    }
+
+    // the slot holding the given variable, or -1 if the program never
+    // reads it
+    public int slot(final String name) {
+        final Integer slot = slots.get(name);
+        return (slot == null) ? -1 : slot.intValue();
+    }
+
+    public String slotName(final int slot) {
+        return slotNames[slot];
+    }
+
+    // a frame with every variable set to 0
+    public int[] newFrame() {
+        return new int[slotNames.length];
+    }
+
+    public void run(final int[] frame, final Writer out) throws IOException {
+        if (frame.length < slotNames.length) {
+            throw new IllegalArgumentException("Frame has " + frame.length +
+                                               " slots; needs " + slotNames.length);
+        }
+        final LineWriter lines = new LineWriter(out);
+        execute(frame, lines);
+        lines.flush();
+    }
+
+    // runs the program and returns what it printed
+    public String run(final int[] frame) {
+        final StringWriter out = new StringWriter();
+        try {
+            run(frame, out);
+        } catch (final IOException e) {
+            // StringWriter doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    } // run
+}
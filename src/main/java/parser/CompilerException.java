@@ -0,0 +1,13 @@
+package parser;
+
+public class CompilerException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public CompilerException(final String message) {
+        super(message);
+    }
+
+    public CompilerException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,33 @@
+package parser;
+
+// A new node for every call, apart from the cached small integers.
+
+import java.util.List;
+
+public class DefaultNodeFactory implements NodeFactory {
+    public static final DefaultNodeFactory INSTANCE = new DefaultNodeFactory();
+
+    public IntegerExp integerExp(final int value) {
+        return IntegerExp.valueOf(value);
+    }
+
+    public VariableExp variableExp(final String name) {
+        return new VariableExp(new Variable(name));
+    }
+
+    public OpExp opExp(final Exp left, final Op op, final Exp right) {
+        return new OpExp(left, op, right);
+    }
+
+    public PrintlnStmt printlnStmt(final Exp exp) {
+        return new PrintlnStmt(exp);
+    }
+
+    public IfStmt ifStmt(final Exp guard, final Stmt trueBranch, final Stmt falseBranch) {
+        return new IfStmt(guard, trueBranch, falseBranch);
+    }
+
+    public BlockStmt blockStmt(final List<Stmt> stmts) {
+        return new BlockStmt(stmts);
+    }
+}
@@ -0,0 +1,41 @@
+package parser;
+
+// A syntax error found while parsing in recovery mode: what was expected
+// at which token position, and what was there instead.  The message is
+// the one a ParseException would have had.
+public class Diagnostic {
+    public final int position;
+    public final String expected;
+    public final String received;
+
+    public Diagnostic(final int position,
+                      final String expected,
+                      final String received) {
+        this.position = position;
+        this.expected = expected;
+        this.received = received;
+    }
+
+    public String getMessage() {
+        return "expected: " + expected + "; received: " + received;
+    }
+
+    public int hashCode() {
+        return position * 31 + expected.hashCode();
+    }
+
+    public boolean equals(final Object other) {
+        if (other instanceof Diagnostic) {
+            final Diagnostic otherDiagnostic = (Diagnostic)other;
+            return (position == otherDiagnostic.position &&
+                    expected.equals(otherDiagnostic.expected) &&
+                    received.equals(otherDiagnostic.received));
+        } else {
+            return false;
+        }
+    }
+
+    public String toString() {
+        return "Diagnostic(" + position + ", " + getMessage() + ")";
+    }
+}
@@ -1,6 +1,8 @@
 package parser;
 
 public class ElseToken implements Token {
+    public static final ElseToken INSTANCE = new ElseToken();
+
     public boolean equals(final Object other) {
         return other instanceof ElseToken;
     }
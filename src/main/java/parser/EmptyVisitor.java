@@ -0,0 +1,33 @@
+package parser;
+
+// A Visitor which does nothing, and goes into every node; extend it and
+// override what you need.
+public class EmptyVisitor implements Visitor {
+    public void visitIntegerExp(final IntegerExp exp) {}
+
+    public void visitVariableExp(final VariableExp exp) {}
+
+    public boolean enterOpExp(final OpExp exp) {
+        return true;
+    }
+
+    public void leaveOpExp(final OpExp exp) {}
+
+    public boolean enterPrintlnStmt(final PrintlnStmt stmt) {
+        return true;
+    }
+
+    public void leavePrintlnStmt(final PrintlnStmt stmt) {}
+
+    public boolean enterIfStmt(final IfStmt stmt) {
+        return true;
+    }
+
+    public void leaveIfStmt(final IfStmt stmt) {}
+
+    public boolean enterBlockStmt(final BlockStmt stmt) {
+        return true;
+    }
+
+    public void leaveBlockStmt(final BlockStmt stmt) {}
+}
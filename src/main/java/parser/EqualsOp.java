@@ -1,6 +1,8 @@
 package parser;
 
 public class EqualsOp implements Op {
+    public static final EqualsOp INSTANCE = new EqualsOp();
+
     public boolean equals(final Object other) {
         return other instanceof EqualsOp;
     }
@@ -1,6 +1,8 @@
 package parser;
 
 public class EqualsToken implements Token {
+    public static final EqualsToken INSTANCE = new EqualsToken();
+
     public boolean equals(final Object other) {
         return other instanceof EqualsToken;
     }
@@ -0,0 +1,168 @@
+package parser;
+
+// Hash-consing: returns the same instance for every structurally equal
+// node it is asked for, so equal subtrees are shared and can be compared
+// with ==.
+//
+// All nodes handed back come from this factory, so the sub-nodes of a
+// node being created are already shared instances.  Two candidates are
+// therefore structurally equal exactly when they have the same kind of
+// node and identical sub-nodes, which is checked without recursing.
+// Nodes are kept in an open-addressing table with linear probing.
+//
+// Nodes are shared across every parse using the same factory, until
+// clear() is called.  Not thread-safe.
+
+import java.util.Arrays;
+import java.util.List;
+
+public class HashConsingNodeFactory implements NodeFactory {
+    private static final int INITIAL_CAPACITY = 256; // must be a power of 2
+
+    private Node[] table;
+    private int size;
+
+    public HashConsingNodeFactory() {
+        table = new Node[INITIAL_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        table = new Node[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    // a hash from the identities of the sub-nodes, consistent with
+    // sameShallowStructure
+    private static int shallowHash(final Node node) {
+        if (node instanceof BlockStmt) {
+            int hash = 1;
+            for (final Stmt stmt : ((BlockStmt)node).stmts) {
+                hash = 31 * hash + System.identityHashCode(stmt);
+            }
+            return hash;
+        } else if (node instanceof OpExp) {
+            final OpExp exp = (OpExp)node;
+            return 31 * (31 * System.identityHashCode(exp.left) + exp.op.hashCode()) +
+                System.identityHashCode(exp.right);
+        } else if (node instanceof IfStmt) {
+            final IfStmt stmt = (IfStmt)node;
+            return 31 * (31 * System.identityHashCode(stmt.guard) +
+                         System.identityHashCode(stmt.trueBranch)) +
+                System.identityHashCode(stmt.falseBranch);
+        } else if (node instanceof PrintlnStmt) {
+            return 31 * 7 + System.identityHashCode(((PrintlnStmt)node).exp);
+        } else {
+            // leaves: their own hash is already structural
+            return node.hashCode();
+        }
+    } // shallowHash
+
+    private static boolean sameShallowStructure(final Node first, final Node second) {
+        if (first instanceof BlockStmt) {
+            if (!(second instanceof BlockStmt)) {
+                return false;
+            }
+            final List<Stmt> firstStmts = ((BlockStmt)first).stmts;
+            final List<Stmt> secondStmts = ((BlockStmt)second).stmts;
+            if (firstStmts.size() != secondStmts.size()) {
+                return false;
+            }
+            for (int index = 0; index < firstStmts.size(); index++) {
+                if (firstStmts.get(index) != secondStmts.get(index)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (first instanceof OpExp) {
+            if (!(second instanceof OpExp)) {
+                return false;
+            }
+            final OpExp firstExp = (OpExp)first;
+            final OpExp secondExp = (OpExp)second;
+            return (firstExp.left == secondExp.left &&
+                    firstExp.op.equals(secondExp.op) &&
+                    firstExp.right == secondExp.right);
+        } else if (first instanceof IfStmt) {
+            if (!(second instanceof IfStmt)) {
+                return false;
+            }
+            final IfStmt firstStmt = (IfStmt)first;
+            final IfStmt secondStmt = (IfStmt)second;
+            return (firstStmt.guard == secondStmt.guard &&
+                    firstStmt.trueBranch == secondStmt.trueBranch &&
+                    firstStmt.falseBranch == secondStmt.falseBranch);
+        } else if (first instanceof PrintlnStmt) {
+            return (second instanceof PrintlnStmt &&
+                    ((PrintlnStmt)first).exp == ((PrintlnStmt)second).exp);
+        } else {
+            return first.equals(second);
+        }
+    } // sameShallowStructure
+
+    private int slot(final int hash) {
+        final int mixed = hash * 0x9E3779B9;
+        return (mixed ^ (mixed >>> 16)) & (table.length - 1);
+    }
+
+    // returns the shared node equal to candidate, adding candidate if
+    // there is none yet
+    private <A extends Node> A intern(final A candidate) {
+        final int hash = shallowHash(candidate);
+        int index = slot(hash);
+        while (table[index] != null) {
+            if (sameShallowStructure(table[index], candidate)) {
+                @SuppressWarnings("unchecked")
+                final A shared = (A)table[index];
+                return shared;
+            }
+            index = (index + 1) & (table.length - 1);
+        }
+        table[index] = candidate;
+        if (2 * ++size > table.length) {
+            grow();
+        }
+        return candidate;
+    } // intern
+
+    private void grow() {
+        final Node[] oldTable = table;
+        table = new Node[oldTable.length * 2];
+        for (final Node node : oldTable) {
+            if (node != null) {
+                int index = slot(shallowHash(node));
+                while (table[index] != null) {
+                    index = (index + 1) & (table.length - 1);
+                }
+                table[index] = node;
+            }
+        }
+    } // grow
+
+    public IntegerExp integerExp(final int value) {
+        return intern(IntegerExp.valueOf(value));
+    }
+
+    public VariableExp variableExp(final String name) {
+        return intern(new VariableExp(new Variable(name)));
+    }
+
+    public OpExp opExp(final Exp left, final Op op, final Exp right) {
+        return intern(new OpExp(left, op, right));
+    }
+
+    public PrintlnStmt printlnStmt(final Exp exp) {
+        return intern(new PrintlnStmt(exp));
+    }
+
+    public IfStmt ifStmt(final Exp guard, final Stmt trueBranch, final Stmt falseBranch) {
+        return intern(new IfStmt(guard, trueBranch, falseBranch));
+    }
+
+    public BlockStmt blockStmt(final List<Stmt> stmts) {
+        return intern(new BlockStmt(stmts));
+    }
+}
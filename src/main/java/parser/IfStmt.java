@@ -4,6 +4,8 @@ public class IfStmt implements Stmt {
     public final Exp guard;
     public final Stmt trueBranch;
     public final Stmt falseBranch;
+    // hashCode, once computed; 0 if not yet
+    int hash;
 
     public IfStmt(final Exp guard,
                   final Stmt trueBranch,
@@ -13,27 +15,17 @@ public class IfStmt implements Stmt {
         this.falseBranch = falseBranch;
     }
 
+    // see Nodes
     public boolean equals(final Object other) {
-        if (other instanceof IfStmt) {
-            final IfStmt otherStmt = (IfStmt)other;
-            return (guard.equals(otherStmt.guard) &&
-                    trueBranch.equals(otherStmt.trueBranch) &&
-                    falseBranch.equals(otherStmt.falseBranch));
-        } else {
-            return false;
-        }
+        return (this == other ||
+                (other instanceof IfStmt && Nodes.equal(this, (IfStmt)other)));
     }
 
     public int hashCode() {
-        return (guard.hashCode() +
-                trueBranch.hashCode() +
-                falseBranch.hashCode());
+        return Nodes.hash(this);
     }
 
     public String toString() {
-        return ("IfStmt(" +
-                guard.toString() + ", " +
-                trueBranch.toString() + ", " +
-                falseBranch.toString() + ")");
+        return Nodes.toString(this);
     }
 }
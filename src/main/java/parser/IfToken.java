@@ -1,6 +1,8 @@
 package parser;
 
 public class IfToken implements Token {
+    public static final IfToken INSTANCE = new IfToken();
+
     public boolean equals(final Object other) {
         return other instanceof IfToken;
     }
@@ -0,0 +1,255 @@
+package parser;
+
+// Keeps a parsed program up to date as its tokens are edited.
+//
+// Alongside the program, we keep a tree of spans mirroring its
+// statements: each statement's length in tokens, and its sub-statements
+// in a Rope weighted by how far each one's end is from the previous one's
+// (or from the start of the parent).  A sub-statement's offset in its
+// parent is then the weight of the children up to it, less its length:
+// an edit inside a statement changes its weight alone, and the offsets of
+// everything after it follow without being touched.
+//
+// After an edit, we re-parse the innermost statement containing the
+// edited tokens.  If its new tokens no longer form exactly one statement
+// (say, a `}` was deleted), we try its parent, and so on up to the whole
+// program.  Every statement outside the re-parsed one is reused as-is;
+// the statements on the path above it are rebuilt around the new one.
+//
+// The tokens and the span tree's children are Ropes, and a block rebuilt
+// around a new statement takes its statements straight from its span
+// node's children, so splicing in the new tokens, finding the path, and
+// rebuilding it each take O(log n) per statement on the path.  An edit
+// costs the re-parse of the statement around it, plus that, however big
+// the program.
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+public class IncrementalParser {
+    private Rope<Token> tokens;
+    private Program program;
+    private SpanNode root;
+
+    private static class SpanNode {
+        public final Stmt stmt;
+        public final int length;
+        // sub-statements, in order: the branches of an if, or the
+        // statements of a block; see above for their weights
+        public final Rope<SpanNode> children;
+
+        public SpanNode(final Stmt stmt, final int length, final Rope<SpanNode> children) {
+            this.stmt = stmt;
+            this.length = length;
+            this.children = children;
+        }
+    }
+
+    // builds the span tree from the parser's (post-order) reports
+    private static class SpanTreeBuilder implements SpanListener {
+        // completed statements that don't have a parent yet, with
+        // their absolute starts
+        private final List<SpanNode> pending = new ArrayList<SpanNode>();
+        private final List<Integer> pendingStarts = new ArrayList<Integer>();
+
+        public void stmtParsed(final Stmt stmt, final int start, final int end) {
+            // everything pending which starts within this statement is one
+            // of its sub-statements
+            int firstChild = pending.size();
+            while (firstChild > 0 && pendingStarts.get(firstChild - 1) >= start) {
+                firstChild--;
+            }
+            final List<SpanNode> children = pending.subList(firstChild, pending.size());
+            final int[] weights = new int[children.size()];
+            int previousEnd = start;
+            for (int index = 0; index < weights.length; index++) {
+                final int childEnd = pendingStarts.get(firstChild + index) + children.get(index).length;
+                weights[index] = childEnd - previousEnd;
+                previousEnd = childEnd;
+            }
+            final SpanNode node = new SpanNode(stmt, end - start, Rope.of(children, weights));
+            children.clear();
+            pendingStarts.subList(firstChild, pendingStarts.size()).clear();
+
+            pending.add(node);
+            pendingStarts.add(start);
+        } // stmtParsed
+
+        public SpanNode root() {
+            return pending.get(pending.size() - 1);
+        }
+    }
+
+    // a block's statements: those of its span node's children, which
+    // can't change
+    private static class ChildStmts extends AbstractList<Stmt> {
+        private final Rope<SpanNode> children;
+
+        public ChildStmts(final Rope<SpanNode> children) {
+            this.children = children;
+        }
+
+        public Stmt get(final int index) {
+            return children.get(index).stmt;
+        }
+
+        public int size() {
+            return children.size();
+        }
+    }
+
+    // the tokens as they are now, for reading
+    private final List<Token> tokensView = new AbstractList<Token>() {
+            public Token get(final int index) {
+                return tokens.get(index);
+            }
+
+            public int size() {
+                return tokens.size();
+            }
+        };
+
+    // the tokens are copied; edits are made to the copy
+    public IncrementalParser(final List<Token> tokens) throws ParseException {
+        this.tokens = Rope.of(new ArrayList<Token>(tokens));
+        reparseAll();
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    // a view of the tokens, which follows edits but can't be changed
+    public List<Token> getTokens() {
+        return tokensView;
+    }
+
+    private void reparseAll() throws ParseException {
+        final Parser parser = new Parser(tokens);
+        final SpanTreeBuilder builder = new SpanTreeBuilder();
+        parser.setSpanListener(builder);
+        program = parser.parseProgram();
+        root = builder.root();
+    }
+
+    // Parses tokens [start, end) as exactly one statement, returning its span
+    // tree, or null if they aren't exactly one statement.
+    private SpanNode parseRange(final int start, final int end) {
+        final Parser parser = new Parser(tokens.subList(start, end));
+        final SpanTreeBuilder builder = new SpanTreeBuilder();
+        parser.setSpanListener(builder);
+        try {
+            final ParseResult<Stmt> result = parser.parseStmt(0);
+            if (result.position == end - start) {
+                return builder.root();
+            }
+        } catch (final ParseException e) {
+            // not a statement; the caller tries a larger range
+        }
+        return null;
+    } // parseRange
+
+    // the same statement, with its sub-statement at childIndex replaced,
+    // and delta tokens longer
+    private static SpanNode replaceChild(final SpanNode parent,
+                                         final int childIndex,
+                                         final SpanNode child,
+                                         final int delta) {
+        final Rope<SpanNode> children =
+            parent.children.with(childIndex, child, parent.children.weight(childIndex) + delta);
+        final Stmt stmt;
+        if (parent.stmt instanceof IfStmt) {
+            final IfStmt ifStmt = (IfStmt)parent.stmt;
+            stmt = (childIndex == 0) ?
+                new IfStmt(ifStmt.guard, child.stmt, ifStmt.falseBranch) :
+                new IfStmt(ifStmt.guard, ifStmt.trueBranch, child.stmt);
+        } else {
+            stmt = new BlockStmt(new ChildStmts(children));
+        }
+        return new SpanNode(stmt, parent.length + delta, children);
+    } // replaceChild
+
+    // Replaces tokens [start, end) with the given tokens, and returns the
+    // updated program.  If the edited tokens don't parse, the exception
+    // is thrown and the previous program and tokens are kept.
+    public Program edit(final int start,
+                        final int end,
+                        final List<Token> replacement) throws ParseException {
+        if (start < 0 || start > end || end > tokens.size()) {
+            throw new IllegalArgumentException("Invalid edit range: " + start + " to " + end);
+        }
+        final int delta = replacement.size() - (end - start);
+
+        // the statements containing the edit, outermost first, along with
+        // their absolute starts and which child of the previous one they are
+        final List<SpanNode> path = new ArrayList<SpanNode>();
+        final List<Integer> starts = new ArrayList<Integer>();
+        final List<Integer> childIndices = new ArrayList<Integer>();
+        SpanNode node = root;
+        int nodeStart = 0;
+        path.add(node);
+        starts.add(nodeStart);
+        childIndices.add(-1);
+        boolean descended = true;
+        while (descended) {
+            // only the first child ending after the edit's start can
+            // contain the edit
+            final int index = node.children.indexAtWeight(start - nodeStart);
+            descended = false;
+            if (index < node.children.size()) {
+                final SpanNode child = node.children.get(index);
+                final int childEnd = nodeStart + node.children.weightBefore(index + 1);
+                final int childStart = childEnd - child.length;
+                // an insertion right at either end of a statement might be
+                // a new sibling, so it doesn't count as inside
+                final boolean inside = (start == end) ?
+                    (childStart < start && end < childEnd) :
+                    (childStart <= start && end <= childEnd);
+                if (inside) {
+                    node = child;
+                    nodeStart = childStart;
+                    path.add(node);
+                    starts.add(nodeStart);
+                    childIndices.add(index);
+                    descended = true;
+                }
+            }
+        }
+
+        final Rope<Token> before = tokens;
+        tokens = tokens.replace(start, end, replacement);
+
+        // re-parse the innermost statement we can; the root is handled
+        // separately, as a whole-program parse
+        int level = path.size() - 1;
+        SpanNode reparsed = null;
+        while (level > 0 && reparsed == null) {
+            final int reparseStart = starts.get(level);
+            reparsed = parseRange(reparseStart, reparseStart + path.get(level).length + delta);
+            if (reparsed == null) {
+                level--;
+            }
+        }
+
+        if (reparsed == null) {
+            try {
+                reparseAll();
+            } catch (final ParseException e) {
+                tokens = before;
+                throw e;
+            }
+            return program;
+        }
+
+        // rebuild the statements above the new one around it; each
+        // parent's child grew by delta, and so did the parent
+        SpanNode newNode = reparsed;
+        for (int parentLevel = level - 1; parentLevel >= 0; parentLevel--) {
+            newNode = replaceChild(path.get(parentLevel), childIndices.get(parentLevel + 1), newNode, delta);
+        }
+        root = newNode;
+        program = new Program(root.stmt);
+        return program;
+    } // edit
+}
@@ -3,10 +3,27 @@ package parser;
 public class IntegerExp implements Exp {
     public final int value;
 
+    // see IntegerToken.valueOf
+    private static final int CACHE_SIZE = 1024;
+    private static final IntegerExp[] CACHE = new IntegerExp[CACHE_SIZE];
+    static {
+        for (int index = 0; index < CACHE_SIZE; index++) {
+            CACHE[index] = new IntegerExp(index);
+        }
+    }
+
     public IntegerExp(final int value) {
         this.value = value;
     }
 
+    public static IntegerExp valueOf(final int value) {
+        if (value >= 0 && value < CACHE_SIZE) {
+            return CACHE[value];
+        } else {
+            return new IntegerExp(value);
+        }
+    }
+
     public boolean equals(final Object other) {
         return (other instanceof IntegerExp &&
                 value == ((IntegerExp)other).value);
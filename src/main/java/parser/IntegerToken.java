@@ -3,11 +3,29 @@ package parser;
 public class IntegerToken implements Token {
     public final int value;
 
+    // small integers are shared rather than allocated per occurrence,
+    // in the same way as Integer.valueOf
+    private static final int CACHE_SIZE = 1024;
+    private static final IntegerToken[] CACHE = new IntegerToken[CACHE_SIZE];
+    static {
+        for (int index = 0; index < CACHE_SIZE; index++) {
+            CACHE[index] = new IntegerToken(index);
+        }
+    }
+
     public IntegerToken(final int value) {
         this.value = value;
     }
 
-    public boolean equals(final IntegerToken other) {
+    public static IntegerToken valueOf(final int value) {
+        if (value >= 0 && value < CACHE_SIZE) {
+            return CACHE[value];
+        } else {
+            return new IntegerToken(value);
+        }
+    }
+
+    public boolean equals(final Object other) {
         return (other instanceof IntegerToken &&
                 value == ((IntegerToken)other).value);
     }
@@ -0,0 +1,421 @@
+package parser;
+
+// Runs a Program.
+//
+// The language has no assignment, so a variable's value comes from the
+// caller: the interpreter gives each distinct variable name a slot, and
+// run takes a frame with a value for every slot.  < and == produce 1 or
+// 0, and an if takes its true branch for any guard other than 0.
+// Arithmetic wraps around, as with Java ints.
+//
+// The constructor walks the tree once, resolving variables to slots, and
+// there are two ways to run the program from there:
+// - walk is a tree-walking interpreter: it evaluates the nodes
+//   themselves, with an explicit stack of tasks and an int operand stack,
+//   so nothing is boxed and nothing recurses.
+// - run executes postfix code in an int array, which the constructor's
+//   walk also emits.  It gives the same output as walk but is several
+//   times faster, as it doesn't follow pointers or test node classes
+//   (see InterpreterBenchmark), and the BytecodeCompiler translates the
+//   same code.  The instructions:
+//
+// PUSH_CONST value  - push value
+// LOAD slot         - push frame[slot]
+// ADD, SUB, LT, EQ  - pop right, pop left, push left op right
+// PRINT             - pop a value and print it on its own line
+// JUMP_IF_ZERO pc   - pop a value; go to pc if it is 0
+// JUMP pc           - go to pc
+// HALT              - stop
+//
+// println output goes through a LineWriter, which batches it.
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Interpreter {
+    public static final int PUSH_CONST = 0;
+    public static final int LOAD = 1;
+    public static final int ADD = 2;
+    public static final int SUB = 3;
+    public static final int LT = 4;
+    public static final int EQ = 5;
+    public static final int PRINT = 6;
+    public static final int JUMP_IF_ZERO = 7;
+    public static final int JUMP = 8;
+    public static final int HALT = 9;
+
+    // the postfix code, and how deep the operand stack can get running it;
+    // the BytecodeCompiler translates the same code
+    final int[] code;
+    final int maxStackDepth;
+    // where each top-level statement's code starts; a top-level block's
+    // statements count as top-level
+    final int[] stmtStarts;
+
+    private final Stmt stmt;
+    private final List<String> slotNames;
+    private final Map<String, Integer> slots;
+    // for walk: the slot of each VariableExp in the tree
+    private final Map<VariableExp, Integer> variableSlots;
+
+    // compilation state
+    private int[] emitted;
+    private int codeSize;
+    private int stackDepth;
+    private int deepestStack;
+
+    // tasks for the compilation pass, besides compiling a node
+    private static final int COMPILE = 0;
+    private static final int EMIT = 1;
+    private static final int AFTER_GUARD = 2;
+    private static final int AFTER_TRUE_BRANCH = 3;
+    private static final int AFTER_FALSE_BRANCH = 4;
+
+    // tasks for walk, besides evaluating a node
+    private static final int EVALUATE = 0;
+    private static final int APPLY = 1;
+    private static final int PRINT_VALUE = 2;
+    private static final int BRANCH = 3;
+
+    public Interpreter(final Program program) {
+        stmt = program.stmt;
+        slotNames = new ArrayList<String>();
+        slots = new HashMap<String, Integer>();
+        variableSlots = new IdentityHashMap<VariableExp, Integer>();
+        emitted = new int[64];
+        if (program.stmt instanceof BlockStmt) {
+            final List<Stmt> stmts = ((BlockStmt)program.stmt).stmts;
+            stmtStarts = new int[stmts.size()];
+            for (int index = 0; index < stmts.size(); index++) {
+                stmtStarts[index] = codeSize;
+                compile(stmts.get(index));
+            }
+        } else {
+            stmtStarts = new int[]{ 0 };
+            compile(program.stmt);
+        }
+        emit(HALT);
+        code = Arrays.copyOf(emitted, codeSize);
+        maxStackDepth = deepestStack;
+        emitted = null;
+    }
+
+    public int numSlots() {
+        return slotNames.size();
+    }
+
+    // the slot holding the given variable, or -1 if the program never
+    // reads it
+    public int slot(final String name) {
+        final Integer slot = slots.get(name);
+        return (slot == null) ? -1 : slot.intValue();
+    }
+
+    public String slotName(final int slot) {
+        return slotNames.get(slot);
+    }
+
+    // a frame with every variable set to 0
+    public int[] newFrame() {
+        return new int[slotNames.size()];
+    }
+
+    private int resolve(final String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = Integer.valueOf(slotNames.size());
+            slotNames.add(name);
+            slots.put(name, slot);
+        }
+        return slot.intValue();
+    } // resolve
+
+    private void emit(final int instruction) {
+        if (codeSize == emitted.length) {
+            emitted = Arrays.copyOf(emitted, codeSize * 2);
+        }
+        emitted[codeSize++] = instruction;
+    }
+
+    // emits an instruction, tracking the operand stack depth after it
+    private void emitInstruction(final int opcode) {
+        emit(opcode);
+        if (opcode == PUSH_CONST || opcode == LOAD) {
+            stackDepth++;
+            deepestStack = Math.max(deepestStack, stackDepth);
+        } else if (opcode != JUMP && opcode != HALT) {
+            stackDepth--;
+        }
+    } // emitInstruction
+
+    private static int opcode(final Op op) {
+        if (op instanceof PlusOp) {
+            return ADD;
+        } else if (op instanceof MinusOp) {
+            return SUB;
+        } else if (op instanceof LessThanOp) {
+            return LT;
+        } else {
+            return EQ;
+        }
+    } // opcode
+
+    private void compile(final Stmt stmt) {
+        // tasks, run last in first out: a task kind with its node or
+        // instruction
+        Object[] nodes = new Object[16];
+        int[] tasks = new int[16];
+        int numTasks = 0;
+        // addresses of jump targets still to be filled in
+        int[] patches = new int[16];
+        int numPatches = 0;
+
+        nodes[numTasks] = stmt;
+        tasks[numTasks++] = COMPILE;
+        while (numTasks > 0) {
+            // room for the most tasks one step can push
+            if (numTasks + 6 > tasks.length) {
+                nodes = Arrays.copyOf(nodes, tasks.length * 2);
+                tasks = Arrays.copyOf(tasks, tasks.length * 2);
+            }
+            if (numPatches + 1 > patches.length) {
+                patches = Arrays.copyOf(patches, patches.length * 2);
+            }
+            final int task = tasks[--numTasks];
+            final Object node = nodes[numTasks];
+            nodes[numTasks] = null;
+
+            if (task == EMIT) {
+                emitInstruction(((Integer)node).intValue());
+            } else if (task == AFTER_GUARD) {
+                emitInstruction(JUMP_IF_ZERO);
+                patches[numPatches++] = codeSize;
+                emit(-1);
+            } else if (task == AFTER_TRUE_BRANCH) {
+                emitInstruction(JUMP);
+                final int jumpTarget = codeSize;
+                emit(-1);
+                emitted[patches[--numPatches]] = codeSize;
+                patches[numPatches++] = jumpTarget;
+            } else if (task == AFTER_FALSE_BRANCH) {
+                emitted[patches[--numPatches]] = codeSize;
+            } else if (node instanceof IntegerExp) {
+                emitInstruction(PUSH_CONST);
+                emit(((IntegerExp)node).value);
+            } else if (node instanceof VariableExp) {
+                final int slot = resolve(((VariableExp)node).variable.name);
+                variableSlots.put((VariableExp)node, Integer.valueOf(slot));
+                emitInstruction(LOAD);
+                emit(slot);
+            } else if (node instanceof OpExp) {
+                final OpExp exp = (OpExp)node;
+                nodes[numTasks] = Integer.valueOf(opcode(exp.op));
+                tasks[numTasks++] = EMIT;
+                nodes[numTasks] = exp.right;
+                tasks[numTasks++] = COMPILE;
+                nodes[numTasks] = exp.left;
+                tasks[numTasks++] = COMPILE;
+            } else if (node instanceof PrintlnStmt) {
+                nodes[numTasks] = Integer.valueOf(PRINT);
+                tasks[numTasks++] = EMIT;
+                nodes[numTasks] = ((PrintlnStmt)node).exp;
+                tasks[numTasks++] = COMPILE;
+            } else if (node instanceof IfStmt) {
+                final IfStmt ifStmt = (IfStmt)node;
+                tasks[numTasks++] = AFTER_FALSE_BRANCH;
+                nodes[numTasks] = ifStmt.falseBranch;
+                tasks[numTasks++] = COMPILE;
+                tasks[numTasks++] = AFTER_TRUE_BRANCH;
+                nodes[numTasks] = ifStmt.trueBranch;
+                tasks[numTasks++] = COMPILE;
+                tasks[numTasks++] = AFTER_GUARD;
+                nodes[numTasks] = ifStmt.guard;
+                tasks[numTasks++] = COMPILE;
+            } else {
+                final List<Stmt> stmts = ((BlockStmt)node).stmts;
+                if (numTasks + stmts.size() > tasks.length) {
+                    nodes = Arrays.copyOf(nodes, numTasks + stmts.size() + 16);
+                    tasks = Arrays.copyOf(tasks, numTasks + stmts.size() + 16);
+                }
+                for (int index = stmts.size() - 1; index >= 0; index--) {
+                    nodes[numTasks] = stmts.get(index);
+                    tasks[numTasks++] = COMPILE;
+                }
+            }
+        }
+    } // compile
+
+    private void checkFrame(final int[] frame) {
+        if (frame.length < slotNames.size()) {
+            throw new IllegalArgumentException("Frame has " + frame.length +
+                                               " slots; needs " + slotNames.size());
+        }
+    }
+
+    private static int apply(final Op op, final int left, final int right) {
+        if (op instanceof PlusOp) {
+            return left + right;
+        } else if (op instanceof MinusOp) {
+            return left - right;
+        } else if (op instanceof LessThanOp) {
+            return (left < right) ? 1 : 0;
+        } else {
+            return (left == right) ? 1 : 0;
+        }
+    } // apply
+
+    // runs the program by walking the tree
+    public void walk(final int[] frame, final Writer out) throws IOException {
+        checkFrame(frame);
+        final LineWriter lines = new LineWriter(out);
+        // tasks, run last in first out: a task kind with its node
+        Node[] nodes = new Node[16];
+        int[] tasks = new int[16];
+        int numTasks = 0;
+        // the values evaluated so far; they get no deeper than run's stack
+        final int[] values = new int[maxStackDepth];
+        int numValues = 0;
+
+        nodes[numTasks] = stmt;
+        tasks[numTasks++] = EVALUATE;
+        while (numTasks > 0) {
+            // room for the most tasks one step can push, besides a block's
+            if (numTasks + 3 > tasks.length) {
+                nodes = Arrays.copyOf(nodes, tasks.length * 2);
+                tasks = Arrays.copyOf(tasks, tasks.length * 2);
+            }
+            final int task = tasks[--numTasks];
+            final Node node = nodes[numTasks];
+            nodes[numTasks] = null;
+
+            if (task == APPLY) {
+                numValues--;
+                values[numValues - 1] = apply(((OpExp)node).op, values[numValues - 1], values[numValues]);
+            } else if (task == PRINT_VALUE) {
+                lines.println(values[--numValues]);
+            } else if (task == BRANCH) {
+                final IfStmt ifStmt = (IfStmt)node;
+                nodes[numTasks] = (values[--numValues] != 0) ? ifStmt.trueBranch : ifStmt.falseBranch;
+                tasks[numTasks++] = EVALUATE;
+            } else if (node instanceof IntegerExp) {
+                values[numValues++] = ((IntegerExp)node).value;
+            } else if (node instanceof VariableExp) {
+                values[numValues++] = frame[variableSlots.get(node).intValue()];
+            } else if (node instanceof OpExp) {
+                final OpExp exp = (OpExp)node;
+                nodes[numTasks] = exp;
+                tasks[numTasks++] = APPLY;
+                nodes[numTasks] = exp.right;
+                tasks[numTasks++] = EVALUATE;
+                nodes[numTasks] = exp.left;
+                tasks[numTasks++] = EVALUATE;
+            } else if (node instanceof PrintlnStmt) {
+                tasks[numTasks++] = PRINT_VALUE;
+                nodes[numTasks] = ((PrintlnStmt)node).exp;
+                tasks[numTasks++] = EVALUATE;
+            } else if (node instanceof IfStmt) {
+                nodes[numTasks] = node;
+                tasks[numTasks++] = BRANCH;
+                nodes[numTasks] = ((IfStmt)node).guard;
+                tasks[numTasks++] = EVALUATE;
+            } else {
+                final List<Stmt> stmts = ((BlockStmt)node).stmts;
+                if (numTasks + stmts.size() > tasks.length) {
+                    nodes = Arrays.copyOf(nodes, numTasks + stmts.size() + 16);
+                    tasks = Arrays.copyOf(tasks, numTasks + stmts.size() + 16);
+                }
+                for (int index = stmts.size() - 1; index >= 0; index--) {
+                    nodes[numTasks] = stmts.get(index);
+                    tasks[numTasks++] = EVALUATE;
+                }
+            }
+        }
+        lines.flush();
+    } // walk
+
+    // walks the program and returns what it printed
+    public String walk(final int[] frame) {
+        final StringWriter out = new StringWriter();
+        try {
+            walk(frame, out);
+        } catch (final IOException e) {
+            // StringWriter doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    } // walk
+
+    public void run(final int[] frame, final Writer out) throws IOException {
+        checkFrame(frame);
+        final int[] code = this.code;
+        final int[] stack = new int[maxStackDepth];
+        final LineWriter lines = new LineWriter(out);
+        int sp = 0;
+        int pc = 0;
+
+        while (true) {
+            switch (code[pc]) {
+            case PUSH_CONST:
+                stack[sp++] = code[pc + 1];
+                pc += 2;
+                break;
+            case LOAD:
+                stack[sp++] = frame[code[pc + 1]];
+                pc += 2;
+                break;
+            case ADD:
+                sp--;
+                stack[sp - 1] += stack[sp];
+                pc++;
+                break;
+            case SUB:
+                sp--;
+                stack[sp - 1] -= stack[sp];
+                pc++;
+                break;
+            case LT:
+                sp--;
+                stack[sp - 1] = (stack[sp - 1] < stack[sp]) ? 1 : 0;
+                pc++;
+                break;
+            case EQ:
+                sp--;
+                stack[sp - 1] = (stack[sp - 1] == stack[sp]) ? 1 : 0;
+                pc++;
+                break;
+            case PRINT:
+                lines.println(stack[--sp]);
+                pc++;
+                break;
+            case JUMP_IF_ZERO:
+                pc = (stack[--sp] == 0) ? code[pc + 1] : pc + 2;
+                break;
+            case JUMP:
+                pc = code[pc + 1];
+                break;
+            default:
+                lines.flush();
+                return;
+            }
+        }
+    } // run
+
+    // runs the program and returns what it printed
+    public String run(final int[] frame) {
+        final StringWriter out = new StringWriter();
+        try {
+            run(frame, out);
+        } catch (final IOException e) {
+            // StringWriter doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    } // run
+}
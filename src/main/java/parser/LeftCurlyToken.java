@@ -1,6 +1,8 @@
 package parser;
 
 public class LeftCurlyToken implements Token {
+    public static final LeftCurlyToken INSTANCE = new LeftCurlyToken();
+
     public boolean equals(final Object other) {
         return other instanceof LeftCurlyToken;
     }
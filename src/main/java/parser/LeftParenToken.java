@@ -1,6 +1,8 @@
 package parser;
 
 public class LeftParenToken implements Token {
+    public static final LeftParenToken INSTANCE = new LeftParenToken();
+
     public boolean equals(final Object other) {
         return other instanceof LeftParenToken;
     }
@@ -1,6 +1,8 @@
 package parser;
 
 public class LessThanOp implements Op {
+    public static final LessThanOp INSTANCE = new LessThanOp();
+
     public boolean equals(final Object other) {
         return other instanceof LessThanOp;
     }
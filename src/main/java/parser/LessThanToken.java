@@ -1,6 +1,8 @@
 package parser;
 
 public class LessThanToken implements Token {
+    public static final LessThanToken INSTANCE = new LessThanToken();
+
     public boolean equals(final Object other) {
         return other instanceof LessThanToken;
     }
@@ -0,0 +1,80 @@
+package parser;
+
+// Where each line of the source text starts, as a sorted array of
+// character offsets, so a line and column can be found for an offset
+// when one is wanted (with a binary search) instead of being kept for
+// every token.  The Tokenizer fills this in as it reads; lines end at
+// '\n'.  Lines and columns count from 1.
+//
+// When reading a long input a stretch at a time, the lines before the
+// current stretch can be discarded; they are still counted, so later
+// lines keep their numbers.
+//
+// Offsets, lines and columns are longs, as a stream may run past 2^31
+// characters.
+
+import java.util.Arrays;
+
+public class LineIndex {
+    private long[] lineStarts;
+    private int numLines;
+    // lines discarded from the front of lineStarts
+    private long numDiscarded;
+
+    public LineIndex() {
+        lineStarts = new long[16];
+        numLines = 1;
+    }
+
+    public void clear() {
+        lineStarts[0] = 0;
+        numLines = 1;
+        numDiscarded = 0;
+    }
+
+    public long numLines() {
+        return numDiscarded + numLines;
+    }
+
+    // forgets where the lines before the one containing offset start; an
+    // offset before that line is then taken to be on it
+    public void discardBefore(final long offset) {
+        final int index = lineIndex(offset);
+        if (index > 0) {
+            System.arraycopy(lineStarts, index, lineStarts, 0, numLines - index);
+            numLines -= index;
+            numDiscarded += index;
+        }
+    }
+
+    // a new line starts at the given offset, after every line so far
+    public void addLineStart(final long offset) {
+        if (numLines == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, numLines * 2);
+        }
+        lineStarts[numLines++] = offset;
+    }
+
+    // the index into lineStarts of the line containing offset
+    private int lineIndex(final long offset) {
+        int low = 0;
+        int high = numLines - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (lineStarts[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    } // lineIndex
+
+    public long line(final long offset) {
+        return numDiscarded + lineIndex(offset) + 1;
+    }
+
+    public long column(final long offset) {
+        return Math.max(offset - lineStarts[lineIndex(offset)], 0) + 1;
+    }
+}
@@ -0,0 +1,59 @@
+package parser;
+
+// println output for running programs: each int is formatted straight
+// into a char buffer, which is written out in large pieces rather than
+// one write per line.  Call flush at the end.
+
+import java.io.IOException;
+import java.io.Writer;
+
+public class LineWriter {
+    private static final int BUFFER_SIZE = 8192;
+    // longest line: "-2147483648\n"
+    private static final int MAX_LINE_LENGTH = 12;
+
+    private final Writer out;
+    private final char[] buffer;
+    private int size;
+
+    public LineWriter(final Writer out) {
+        this.out = out;
+        buffer = new char[BUFFER_SIZE];
+    }
+
+    public void println(final int value) throws IOException {
+        if (size + MAX_LINE_LENGTH > buffer.length) {
+            out.write(buffer, 0, size);
+            size = 0;
+        }
+        // the digits are written backwards from the end of the line; work
+        // with the negated value, which covers Integer.MIN_VALUE
+        final int length = (value < 0) ? digits(value) + 1 : digits(-value);
+        int position = size + length;
+        buffer[position] = '\n';
+        int negated = (value < 0) ? value : -value;
+        do {
+            buffer[--position] = (char)('0' - negated % 10);
+            negated /= 10;
+        } while (negated != 0);
+        if (value < 0) {
+            buffer[--position] = '-';
+        }
+        size += length + 1;
+    } // println
+
+    // number of digits in a value <= 0
+    private static int digits(final int negated) {
+        int count = 1;
+        for (int bound = -10; count < 10 && negated <= bound; bound *= 10) {
+            count++;
+        }
+        return count;
+    }
+
+    public void flush() throws IOException {
+        out.write(buffer, 0, size);
+        size = 0;
+        out.flush();
+    }
+}
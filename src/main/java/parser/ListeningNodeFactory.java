@@ -0,0 +1,44 @@
+package parser;
+
+// Reports every node made by another factory to a ParseListener.
+
+import java.util.List;
+
+class ListeningNodeFactory implements NodeFactory {
+    private final NodeFactory nodeFactory;
+    private final ParseListener listener;
+
+    public ListeningNodeFactory(final NodeFactory nodeFactory, final ParseListener listener) {
+        this.nodeFactory = nodeFactory;
+        this.listener = listener;
+    }
+
+    private <A extends Node> A built(final A node) {
+        listener.nodeBuilt(node);
+        return node;
+    }
+
+    public IntegerExp integerExp(final int value) {
+        return built(nodeFactory.integerExp(value));
+    }
+
+    public VariableExp variableExp(final String name) {
+        return built(nodeFactory.variableExp(name));
+    }
+
+    public OpExp opExp(final Exp left, final Op op, final Exp right) {
+        return built(nodeFactory.opExp(left, op, right));
+    }
+
+    public PrintlnStmt printlnStmt(final Exp exp) {
+        return built(nodeFactory.printlnStmt(exp));
+    }
+
+    public IfStmt ifStmt(final Exp guard, final Stmt trueBranch, final Stmt falseBranch) {
+        return built(nodeFactory.ifStmt(guard, trueBranch, falseBranch));
+    }
+
+    public BlockStmt blockStmt(final List<Stmt> stmts) {
+        return built(nodeFactory.blockStmt(stmts));
+    }
+}
@@ -0,0 +1,107 @@
+package parser;
+
+// A map from (rule, position) to the outcome of parsing that rule at that
+// position: the result and the position after it, or a failure.
+//
+// Keys are packed into a long and kept in an open-addressing table with
+// linear probing, so lookups don't box or allocate.
+
+import java.util.Arrays;
+
+class MemoTable {
+    private static final long EMPTY = -1L;
+    private static final int INITIAL_CAPACITY = 64; // must be a power of 2
+
+    private long[] keys;
+    private Object[] results;
+    private int[] nextPositions;
+    private int size;
+
+    // set by get, for the entry it found
+    public int foundNextPosition;
+
+    public MemoTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        results = new Object[capacity];
+        nextPositions = new int[capacity];
+    }
+
+    private static long key(final int rule, final int position) {
+        return ((long)rule << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private int slot(final long key) {
+        // Fibonacci hashing spreads consecutive positions across the table
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int)(mixed >>> 32) & (keys.length - 1);
+    }
+
+    // returns null if nothing is stored; otherwise the stored result, with
+    // its next position in foundNextPosition
+    public Object get(final int rule, final int position) {
+        final long key = key(rule, position);
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                foundNextPosition = nextPositions[index];
+                return results[index];
+            }
+            index = (index + 1) & (keys.length - 1);
+        }
+        return null;
+    } // get
+
+    public void put(final int rule,
+                    final int position,
+                    final Object result,
+                    final int nextPosition) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        final long key = key(rule, position);
+        int index = slot(key);
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & (keys.length - 1);
+        }
+        if (keys[index] == EMPTY) {
+            size++;
+        }
+        keys[index] = key;
+        results[index] = result;
+        nextPositions[index] = nextPosition;
+    } // put
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        final Object[] oldResults = results;
+        final int[] oldNextPositions = nextPositions;
+        allocate(oldKeys.length * 2);
+        for (int index = 0; index < oldKeys.length; index++) {
+            if (oldKeys[index] != EMPTY) {
+                int newIndex = slot(oldKeys[index]);
+                while (keys[newIndex] != EMPTY) {
+                    newIndex = (newIndex + 1) & (keys.length - 1);
+                }
+                keys[newIndex] = oldKeys[index];
+                results[newIndex] = oldResults[index];
+                nextPositions[newIndex] = oldNextPositions[index];
+            }
+        }
+    } // grow
+
+    public int size() {
+        return size;
+    }
+
+    // empties the table, keeping its arrays
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(results, null);
+        size = 0;
+    }
+}
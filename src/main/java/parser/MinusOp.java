@@ -1,6 +1,8 @@
 package parser;
 
 public class MinusOp implements Op {
+    public static final MinusOp INSTANCE = new MinusOp();
+
     public boolean equals(final Object other) {
         return other instanceof MinusOp;
     }
@@ -1,6 +1,8 @@
 package parser;
 
 public class MinusToken implements Token {
+    public static final MinusToken INSTANCE = new MinusToken();
+
     public boolean equals(final Object other) {
         return other instanceof MinusToken;
     }
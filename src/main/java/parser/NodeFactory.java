@@ -0,0 +1,15 @@
+package parser;
+
+// Creates the AST nodes for a Parser.  Sub-nodes are always created
+// before the nodes containing them.
+
+import java.util.List;
+
+public interface NodeFactory {
+    public IntegerExp integerExp(int value);
+    public VariableExp variableExp(String name);
+    public OpExp opExp(Exp left, Op op, Exp right);
+    public PrintlnStmt printlnStmt(Exp exp);
+    public IfStmt ifStmt(Exp guard, Stmt trueBranch, Stmt falseBranch);
+    public BlockStmt blockStmt(List<Stmt> stmts);
+}
@@ -0,0 +1,355 @@
+package parser;
+
+// Structural equality, hashing and printing for trees of any depth.  The
+// nodes' equals, hashCode and toString call these.  None of them recurse:
+// each runs from an explicit stack, and takes time linear in the size of
+// the tree.
+//
+// OpExp, BlockStmt, IfStmt and Program keep their hash once hashCode has
+// computed it, and hashing and comparing stop at a node which has one;
+// so hashCode on a long operator chain is only slow the first time.
+// Each of them hides a whole subtree, and none can change (a BlockStmt's
+// list is handed over to it, never to change again).  The field costs
+// an OpExp 8 bytes with compressed oops; leaves and PrintlnStmt don't
+// keep one.  A kept hash of 0 is taken as none, so it is recomputed.
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public final class Nodes {
+    private static final int INITIAL_STACK_SIZE = 16;
+
+    private Nodes() {}
+
+    // the kept hash of node, or 0 if it has none
+    private static int keptHash(final Node node) {
+        if (node instanceof OpExp) {
+            return ((OpExp)node).hash;
+        } else if (node instanceof BlockStmt) {
+            return ((BlockStmt)node).hash;
+        } else if (node instanceof IfStmt) {
+            return ((IfStmt)node).hash;
+        } else if (node instanceof Program) {
+            return ((Program)node).hash;
+        } else {
+            return 0;
+        }
+    }
+
+    public static boolean equal(final Node first, final Node second) {
+        // pairs still to compare; made on the first pair, so comparing
+        // leaves, or a node with itself, allocates nothing
+        Node[] firsts = null;
+        Node[] seconds = null;
+        int numPairs = 0;
+        Node left = first;
+        Node right = second;
+        while (true) {
+            if (left != right) {
+                if (left == null || right == null) {
+                    return false;
+                }
+                final int leftHash = keptHash(left);
+                final int rightHash = keptHash(right);
+                if (leftHash != 0 && rightHash != 0 && leftHash != rightHash) {
+                    return false;
+                }
+
+                // room for every sub-node pair
+                final int numSubnodes;
+                if (left instanceof BlockStmt) {
+                    numSubnodes = ((BlockStmt)left).stmts.size();
+                } else if (left instanceof IntegerExp || left instanceof VariableExp) {
+                    numSubnodes = 0;
+                } else {
+                    numSubnodes = 3;
+                }
+                if (firsts == null) {
+                    if (numSubnodes > 0) {
+                        firsts = new Node[Math.max(INITIAL_STACK_SIZE, numSubnodes)];
+                        seconds = new Node[firsts.length];
+                    }
+                } else if (numPairs + numSubnodes > firsts.length) {
+                    final int capacity = Math.max(firsts.length * 2, numPairs + numSubnodes);
+                    firsts = Arrays.copyOf(firsts, capacity);
+                    seconds = Arrays.copyOf(seconds, capacity);
+                }
+
+                if (left instanceof IntegerExp) {
+                    if (!(right instanceof IntegerExp) ||
+                        ((IntegerExp)left).value != ((IntegerExp)right).value) {
+                        return false;
+                    }
+                } else if (left instanceof VariableExp) {
+                    if (!(right instanceof VariableExp) ||
+                        !((VariableExp)left).variable.equals(((VariableExp)right).variable)) {
+                        return false;
+                    }
+                } else if (left instanceof OpExp) {
+                    if (!(right instanceof OpExp)) {
+                        return false;
+                    }
+                    final OpExp leftExp = (OpExp)left;
+                    final OpExp rightExp = (OpExp)right;
+                    if (!leftExp.op.equals(rightExp.op)) {
+                        return false;
+                    }
+                    firsts[numPairs] = leftExp.left;
+                    seconds[numPairs++] = rightExp.left;
+                    firsts[numPairs] = leftExp.right;
+                    seconds[numPairs++] = rightExp.right;
+                } else if (left instanceof PrintlnStmt) {
+                    if (!(right instanceof PrintlnStmt)) {
+                        return false;
+                    }
+                    firsts[numPairs] = ((PrintlnStmt)left).exp;
+                    seconds[numPairs++] = ((PrintlnStmt)right).exp;
+                } else if (left instanceof IfStmt) {
+                    if (!(right instanceof IfStmt)) {
+                        return false;
+                    }
+                    final IfStmt leftStmt = (IfStmt)left;
+                    final IfStmt rightStmt = (IfStmt)right;
+                    firsts[numPairs] = leftStmt.guard;
+                    seconds[numPairs++] = rightStmt.guard;
+                    firsts[numPairs] = leftStmt.trueBranch;
+                    seconds[numPairs++] = rightStmt.trueBranch;
+                    firsts[numPairs] = leftStmt.falseBranch;
+                    seconds[numPairs++] = rightStmt.falseBranch;
+                } else if (left instanceof BlockStmt) {
+                    if (!(right instanceof BlockStmt)) {
+                        return false;
+                    }
+                    final List<Stmt> leftStmts = ((BlockStmt)left).stmts;
+                    final List<Stmt> rightStmts = ((BlockStmt)right).stmts;
+                    if (leftStmts.size() != rightStmts.size()) {
+                        return false;
+                    }
+                    for (int index = 0; index < numSubnodes; index++) {
+                        firsts[numPairs] = leftStmts.get(index);
+                        seconds[numPairs++] = rightStmts.get(index);
+                    }
+                } else if (left instanceof Program) {
+                    if (!(right instanceof Program)) {
+                        return false;
+                    }
+                    firsts[numPairs] = ((Program)left).stmt;
+                    seconds[numPairs++] = ((Program)right).stmt;
+                } else if (!left.equals(right)) {
+                    // a kind of node we don't know
+                    return false;
+                }
+            }
+
+            if (numPairs == 0) {
+                return true;
+            }
+            left = firsts[--numPairs];
+            right = seconds[numPairs];
+        }
+    } // equal
+
+    // Each node's hash is its sub-nodes' hashes, each times a constant,
+    // plus a constant (31 * (31 * left + op) + right for an OpExp, as
+    // List.hashCode for a BlockStmt).  So a tree's hash is a sum with a
+    // term for each node: its constant, times the product of the constants
+    // on its path from the root.  The nodes can be added up in any order,
+    // with nothing left to do once a node's sub-nodes are done, so the
+    // stack only holds sub-nodes still to go into, each with its
+    // multiplier, and a leaf right operand is added straight away: a
+    // left-leaning chain needs no stack at all.  Only the root keeps its
+    // hash (or a println root's expression), as the sub-nodes' hashes are
+    // never computed on their own.
+    public static int hash(final Node root) {
+        final int keptHash = keptHash(root);
+        if (keptHash != 0) {
+            return keptHash;
+        } else if (root instanceof PrintlnStmt) {
+            // keeps no hash, but its expression can
+            return 31 * 7 + hash(((PrintlnStmt)root).exp);
+        }
+        Node[] nodes = new Node[INITIAL_STACK_SIZE];
+        int[] multipliers = new int[INITIAL_STACK_SIZE];
+        int numNodes = 0;
+        int hash = 0;
+        Node current = root;
+        int multiplier = 1;
+        while (true) {
+            // room for every sub-node but the first
+            final int numSubnodes = (current instanceof BlockStmt && ((BlockStmt)current).hash == 0) ?
+                ((BlockStmt)current).stmts.size() :
+                3;
+            if (numNodes + numSubnodes > nodes.length) {
+                final int capacity = Math.max(nodes.length * 2, numNodes + numSubnodes);
+                nodes = Arrays.copyOf(nodes, capacity);
+                multipliers = Arrays.copyOf(multipliers, capacity);
+            }
+
+            if (current instanceof OpExp && ((OpExp)current).hash == 0) {
+                // mixed, so that swapping children changes the hash
+                final OpExp exp = (OpExp)current;
+                hash += multiplier * 31 * exp.op.hashCode();
+                final Exp right = exp.right;
+                if (right instanceof IntegerExp) {
+                    hash += multiplier * ((IntegerExp)right).value;
+                } else if (right instanceof VariableExp) {
+                    hash += multiplier * ((VariableExp)right).variable.hashCode();
+                } else {
+                    nodes[numNodes] = right;
+                    multipliers[numNodes++] = multiplier;
+                }
+                current = exp.left;
+                multiplier *= 31 * 31;
+                continue;
+            } else if (current instanceof IntegerExp) {
+                hash += multiplier * ((IntegerExp)current).value;
+            } else if (current instanceof VariableExp) {
+                hash += multiplier * ((VariableExp)current).variable.hashCode();
+            } else if (current instanceof PrintlnStmt) {
+                // distinct from the hash of exp itself
+                hash += multiplier * 31 * 7;
+                current = ((PrintlnStmt)current).exp;
+                continue;
+            } else if (current instanceof IfStmt && ((IfStmt)current).hash == 0) {
+                final IfStmt stmt = (IfStmt)current;
+                nodes[numNodes] = stmt.falseBranch;
+                multipliers[numNodes++] = multiplier;
+                nodes[numNodes] = stmt.trueBranch;
+                multipliers[numNodes++] = multiplier * 31;
+                current = stmt.guard;
+                multiplier *= 31 * 31;
+                continue;
+            } else if (current instanceof BlockStmt && ((BlockStmt)current).hash == 0) {
+                final List<Stmt> stmts = ((BlockStmt)current).stmts;
+                for (int index = numSubnodes - 1; index > 0; index--) {
+                    nodes[numNodes] = stmts.get(index);
+                    multipliers[numNodes++] = multiplier;
+                    multiplier *= 31;
+                }
+                // the 1 List.hashCode starts from, times 31 for each
+                // statement
+                hash += multiplier * ((numSubnodes > 0) ? 31 : 1);
+                if (numSubnodes > 0) {
+                    current = stmts.get(0);
+                    continue;
+                }
+            } else if (current instanceof Program && ((Program)current).hash == 0) {
+                // distinct from the hash of stmt itself
+                hash += multiplier * 31 * 11;
+                current = ((Program)current).stmt;
+                continue;
+            } else if (current instanceof OpExp ||
+                       current instanceof IfStmt ||
+                       current instanceof BlockStmt ||
+                       current instanceof Program) {
+                hash += multiplier * keptHash(current);
+            } else {
+                // a kind of node we don't know
+                hash += multiplier * current.hashCode();
+            }
+
+            if (numNodes == 0) {
+                break;
+            }
+            current = nodes[--numNodes];
+            nodes[numNodes] = null;
+            multiplier = multipliers[numNodes];
+        }
+
+        if (root instanceof OpExp) {
+            ((OpExp)root).hash = hash;
+        } else if (root instanceof IfStmt) {
+            ((IfStmt)root).hash = hash;
+        } else if (root instanceof BlockStmt) {
+            ((BlockStmt)root).hash = hash;
+        } else if (root instanceof Program) {
+            ((Program)root).hash = hash;
+        }
+        return hash;
+    } // hash
+
+    // Prints node to out as its toString would, without building any
+    // strings on the way.  The stack holds nodes still to print and the
+    // text between them.
+    public static void print(final Node root, final Appendable out) throws IOException {
+        Object[] stack = new Object[INITIAL_STACK_SIZE];
+        int numItems = 0;
+        Object item = root;
+        while (true) {
+            if (item instanceof String) {
+                out.append((String)item);
+            } else if (item instanceof IntegerExp) {
+                out.append("IntegerExp(").append(Integer.toString(((IntegerExp)item).value)).append(')');
+            } else if (item instanceof VariableExp) {
+                out.append("VariableExp(Variable(").append(((VariableExp)item).variable.name).append("))");
+            } else {
+                // room for every sub-node and the text around them
+                final int numItemsNeeded = (item instanceof BlockStmt) ?
+                    2 * ((BlockStmt)item).stmts.size() + 1 :
+                    6;
+                if (numItems + numItemsNeeded > stack.length) {
+                    stack = Arrays.copyOf(stack, Math.max(stack.length * 2, numItems + numItemsNeeded));
+                }
+                // text and sub-nodes pushed last first
+                if (item instanceof OpExp) {
+                    final OpExp exp = (OpExp)item;
+                    out.append("OpExp(");
+                    stack[numItems++] = ")";
+                    stack[numItems++] = exp.right;
+                    stack[numItems++] = ", ";
+                    stack[numItems++] = exp.op.toString();
+                    stack[numItems++] = ", ";
+                    stack[numItems++] = exp.left;
+                } else if (item instanceof PrintlnStmt) {
+                    out.append("Println(");
+                    stack[numItems++] = ")";
+                    stack[numItems++] = ((PrintlnStmt)item).exp;
+                } else if (item instanceof IfStmt) {
+                    final IfStmt stmt = (IfStmt)item;
+                    out.append("IfStmt(");
+                    stack[numItems++] = ")";
+                    stack[numItems++] = stmt.falseBranch;
+                    stack[numItems++] = ", ";
+                    stack[numItems++] = stmt.trueBranch;
+                    stack[numItems++] = ", ";
+                    stack[numItems++] = stmt.guard;
+                } else if (item instanceof BlockStmt) {
+                    final List<Stmt> stmts = ((BlockStmt)item).stmts;
+                    out.append("BlockStmt(");
+                    stack[numItems++] = ")";
+                    for (int index = stmts.size() - 1; index >= 0; index--) {
+                        stack[numItems++] = stmts.get(index);
+                        if (index > 0) {
+                            stack[numItems++] = ", ";
+                        }
+                    }
+                } else if (item instanceof Program) {
+                    out.append("Program(");
+                    stack[numItems++] = ")";
+                    stack[numItems++] = ((Program)item).stmt;
+                } else {
+                    // a kind of node we don't know
+                    out.append(String.valueOf(item));
+                }
+            }
+
+            if (numItems == 0) {
+                return;
+            }
+            item = stack[--numItems];
+            stack[numItems] = null;
+        }
+    } // print
+
+    public static String toString(final Node node) {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            print(node, builder);
+        } catch (final IOException e) {
+            // StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+}
@@ -15,6 +15,11 @@ public class OpExp implements Exp {
     public final Exp left;
     public final Op op;
     public final Exp right;
+    // hashCode, once computed; 0 if not yet.  This puts OpExp in the next
+    // object size class: MemoryReport's object AST goes from 15.2 to 18.2
+    // bytes per node.  Without it, hashing a long operator chain walks the
+    // whole chain on every call (see Nodes).
+    int hash;
 
     public OpExp(final Exp left,
                  final Op op,
@@ -24,27 +29,17 @@ public class OpExp implements Exp {
         this.right = right;
     }
 
+    // see Nodes
     public boolean equals(final Object other) {
-        if (other instanceof OpExp) {
-            final OpExp otherExp = (OpExp)other;
-            return (left.equals(otherExp.left) &&
-                    op.equals(otherExp.op) &&
-                    right.equals(otherExp.right));
-        } else {
-            return false;
-        }
+        return (this == other ||
+                (other instanceof OpExp && Nodes.equal(this, (OpExp)other)));
     }
 
     public int hashCode() {
-        return (left.hashCode() +
-                op.hashCode() +
-                right.hashCode());
+        return Nodes.hash(this);
     }
-    
+
     public String toString() {
-        return ("OpExp(" +
-                left.toString() + ", " +
-                op.toString() + ", " +
-                right.toString() + ")");
+        return Nodes.toString(this);
     }
 }
@@ -0,0 +1,63 @@
+package parser;
+
+// The binary operators the parser knows about, indexed by TokenKind.
+// Each registered operator has:
+// - a precedence: higher binds tighter; must be positive
+// - an associativity: left (1 - 2 - 3 ==> (1 - 2) - 3) or right
+// - the Op to put in the OpExp
+//
+// The parser looks operators up here rather than having one method per
+// precedence level, so adding a level costs nothing per expression.
+
+public class OperatorTable {
+    private static final int NUM_KINDS = 14;
+
+    private final int[] precedences;
+    private final boolean[] rightAssociative;
+    private final Op[] ops;
+
+    public OperatorTable() {
+        precedences = new int[NUM_KINDS];
+        rightAssociative = new boolean[NUM_KINDS];
+        ops = new Op[NUM_KINDS];
+    }
+
+    // the operators from the grammar, highest to lowest precedence:
+    // `+` and `-`, then `<`, then `==`; all left-associative
+    public static OperatorTable standard() {
+        return new OperatorTable()
+            .register(TokenKind.PLUS, 3, false, PlusOp.INSTANCE)
+            .register(TokenKind.MINUS, 3, false, MinusOp.INSTANCE)
+            .register(TokenKind.LESS_THAN, 2, false, LessThanOp.INSTANCE)
+            .register(TokenKind.EQUALS, 1, false, EqualsOp.INSTANCE);
+    }
+
+    // returns this table, so calls can be chained
+    public OperatorTable register(final int kind,
+                                  final int precedence,
+                                  final boolean isRightAssociative,
+                                  final Op op) {
+        if (kind < 0 || kind >= NUM_KINDS) {
+            throw new IllegalArgumentException("Not a token kind: " + kind);
+        } else if (precedence <= 0) {
+            throw new IllegalArgumentException("Precedence must be positive: " + precedence);
+        }
+        precedences[kind] = precedence;
+        rightAssociative[kind] = isRightAssociative;
+        ops[kind] = op;
+        return this;
+    } // register
+
+    // 0 if the token is not a binary operator
+    public int precedence(final int kind) {
+        return (kind >= 0 && kind < NUM_KINDS) ? precedences[kind] : 0;
+    }
+
+    public boolean isRightAssociative(final int kind) {
+        return rightAssociative[kind];
+    }
+
+    public Op op(final int kind) {
+        return ops[kind];
+    }
+}
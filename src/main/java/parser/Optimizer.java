@@ -0,0 +1,214 @@
+package parser;
+
+// Simplifies an AST without changing what it prints, in one post-order
+// pass with explicit stacks:
+// - An OpExp whose operands are (after folding) both integers becomes
+//   the integer it evaluates to.  Semantics are as in the Interpreter:
+//   + and - wrap around, and < and == give 1 or 0.
+// - An IfStmt whose guard is (after folding) an integer becomes the
+//   branch it takes: the true branch for anything other than 0.
+// - A BlockStmt directly inside another BlockStmt has its statements
+//   spliced into the outer one.  There are no declarations, so blocks
+//   don't scope anything.  An inner block leaves its statements where
+//   they are, on the stack of results, so a whole run of nested blocks
+//   is gathered into one list once, however deep it is.
+// Subtrees with nothing to simplify are reused as they are.  New nodes
+// come from the given NodeFactory.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Optimizer {
+    private final NodeFactory nodeFactory;
+
+    // counts for the last call to optimize
+    private int numRemoved;
+
+    public Optimizer(final NodeFactory nodeFactory) {
+        this.nodeFactory = nodeFactory;
+    }
+
+    public Optimizer() {
+        this(DefaultNodeFactory.INSTANCE);
+    }
+
+    // how many nodes the last call to optimize removed; a leaf used in
+    // several places counts once per use
+    public int getNumRemoved() {
+        return numRemoved;
+    }
+
+    public Program optimize(final Program program) {
+        final Stmt stmt = (Stmt)optimizeNode(program.stmt);
+        return (stmt == program.stmt) ? program : new Program(stmt);
+    }
+
+    public Stmt optimize(final Stmt stmt) {
+        return (Stmt)optimizeNode(stmt);
+    }
+
+    public Exp optimize(final Exp exp) {
+        return (Exp)optimizeNode(exp);
+    }
+
+    private static int numSubnodes(final Node node) {
+        if (node instanceof OpExp) {
+            return 2;
+        } else if (node instanceof PrintlnStmt) {
+            return 1;
+        } else if (node instanceof IfStmt) {
+            return 3;
+        } else if (node instanceof BlockStmt) {
+            return ((BlockStmt)node).stmts.size();
+        } else {
+            return 0;
+        }
+    } // numSubnodes
+
+    private static Node subnode(final Node node, final int index) {
+        if (node instanceof OpExp) {
+            return (index == 0) ? ((OpExp)node).left : ((OpExp)node).right;
+        } else if (node instanceof PrintlnStmt) {
+            return ((PrintlnStmt)node).exp;
+        } else if (node instanceof IfStmt) {
+            final IfStmt stmt = (IfStmt)node;
+            return (index == 0) ? stmt.guard : (index == 1) ? stmt.trueBranch : stmt.falseBranch;
+        } else {
+            return ((BlockStmt)node).stmts.get(index);
+        }
+    } // subnode
+
+    private static int evaluate(final Op op, final int left, final int right) {
+        if (op instanceof PlusOp) {
+            return left + right;
+        } else if (op instanceof MinusOp) {
+            return left - right;
+        } else if (op instanceof LessThanOp) {
+            return (left < right) ? 1 : 0;
+        } else {
+            return (left == right) ? 1 : 0;
+        }
+    } // evaluate
+
+    private Node optimizeNode(final Node root) {
+        // the nodes being optimized, with how many of their sub-nodes have
+        // been optimized so far, and where their results start
+        Node[] nodes = new Node[16];
+        int[] visited = new int[16];
+        int[] firsts = new int[16];
+        int depth = 0;
+        // optimized sub-nodes not yet given to their parent, with the
+        // number of nodes in each; a block inside a block leaves its
+        // statements here in place of itself
+        Node[] results = new Node[16];
+        int[] sizes = new int[16];
+        int numResults = 0;
+        int numVisited = 0;
+
+        nodes[depth++] = root;
+        while (depth > 0) {
+            final Node current = nodes[depth - 1];
+            final int numSubnodes = numSubnodes(current);
+            if (visited[depth - 1] < numSubnodes) {
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    visited = Arrays.copyOf(visited, depth * 2);
+                    firsts = Arrays.copyOf(firsts, depth * 2);
+                }
+                nodes[depth] = subnode(current, visited[depth - 1]++);
+                visited[depth] = 0;
+                firsts[depth] = numResults;
+                depth++;
+                continue;
+            }
+
+            depth--;
+            nodes[depth] = null;
+            numVisited++;
+            final int first = firsts[depth];
+            final int numResultsFor = numResults - first;
+            numResults = first;
+            Node result = current;
+            int size = 1;
+
+            if (current instanceof OpExp) {
+                final OpExp exp = (OpExp)current;
+                final Node left = results[first];
+                final Node right = results[first + 1];
+                if (left instanceof IntegerExp && right instanceof IntegerExp) {
+                    result = nodeFactory.integerExp(evaluate(exp.op,
+                                                             ((IntegerExp)left).value,
+                                                             ((IntegerExp)right).value));
+                } else {
+                    if (left != exp.left || right != exp.right) {
+                        result = nodeFactory.opExp((Exp)left, exp.op, (Exp)right);
+                    }
+                    size += sizes[first] + sizes[first + 1];
+                }
+            } else if (current instanceof PrintlnStmt) {
+                if (results[first] != ((PrintlnStmt)current).exp) {
+                    result = nodeFactory.printlnStmt((Exp)results[first]);
+                }
+                size += sizes[first];
+            } else if (current instanceof IfStmt) {
+                final IfStmt stmt = (IfStmt)current;
+                final Node guard = results[first];
+                if (guard instanceof IntegerExp) {
+                    final int taken = (((IntegerExp)guard).value != 0) ? first + 1 : first + 2;
+                    result = results[taken];
+                    size = sizes[taken];
+                } else {
+                    if (guard != stmt.guard ||
+                        results[first + 1] != stmt.trueBranch ||
+                        results[first + 2] != stmt.falseBranch) {
+                        result = nodeFactory.ifStmt((Exp)guard,
+                                                    (Stmt)results[first + 1],
+                                                    (Stmt)results[first + 2]);
+                    }
+                    size += sizes[first] + sizes[first + 1] + sizes[first + 2];
+                }
+            } else if (current instanceof BlockStmt) {
+                if (depth > 0 && nodes[depth - 1] instanceof BlockStmt) {
+                    // leave our statements for the enclosing block to take
+                    numResults += numResultsFor;
+                    continue;
+                }
+                final List<Stmt> stmts = ((BlockStmt)current).stmts;
+                // the results differ from our statements if an inner block
+                // was spliced in, or anything changed
+                boolean changed = (numResultsFor != numSubnodes);
+                for (int index = 0; index < numResultsFor; index++) {
+                    final Node stmt = results[first + index];
+                    changed = changed || stmt != stmts.get(index) || stmt instanceof BlockStmt;
+                    size += sizes[first + index];
+                }
+                if (changed) {
+                    final List<Stmt> flattened = new ArrayList<Stmt>(numResultsFor);
+                    for (int index = 0; index < numResultsFor; index++) {
+                        final Node stmt = results[first + index];
+                        if (stmt instanceof BlockStmt) {
+                            // from an if which was folded away; already
+                            // flattened, as it was optimized first
+                            flattened.addAll(((BlockStmt)stmt).stmts);
+                            size--;
+                        } else {
+                            flattened.add((Stmt)stmt);
+                        }
+                    }
+                    result = nodeFactory.blockStmt(flattened);
+                }
+            }
+
+            Arrays.fill(results, first, first + numResultsFor, null);
+            if (numResults == results.length) {
+                results = Arrays.copyOf(results, numResults * 2);
+                sizes = Arrays.copyOf(sizes, numResults * 2);
+            }
+            results[numResults] = result;
+            sizes[numResults++] = size;
+        }
+        numRemoved = numVisited - sizes[0];
+        return results[0];
+    } // optimizeNode
+}
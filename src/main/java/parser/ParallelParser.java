@@ -0,0 +1,126 @@
+package parser;
+
+// Parses a program whose top level is a block, { stmt* }, by parsing its
+// statements in parallel.
+//
+// A StatementScanner pass first finds where each top-level statement
+// starts.  Runs of consecutive statements are then parsed on a
+// ForkJoinPool, each task with its own Parser over the shared (read-only)
+// TokenBuffer, and the results are put back together in order.
+//
+// If anything goes wrong (the scan disagrees with the parser, or there is
+// a syntax error), we fall back to a sequential parse, so the result, or
+// the exception, is the same as Parser.parseProgram gives.
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelParser {
+    // fewer statements than this are parsed in one task
+    private static final int MIN_STMTS_PER_TASK = 64;
+
+    private final TokenBuffer tokens;
+    private final ForkJoinPool pool;
+
+    public ParallelParser(final TokenBuffer tokens, final ForkJoinPool pool) {
+        this.tokens = tokens;
+        this.pool = pool;
+    }
+
+    public ParallelParser(final TokenBuffer tokens) {
+        this(tokens, ForkJoinPool.commonPool());
+    }
+
+    // parses statements [fromIndex, toIndex); stmt i is tokens [starts[i], starts[i + 1])
+    private class ParseRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] starts;
+        private final Stmt[] stmts;
+        private final int fromIndex;
+        private final int toIndex;
+        private final AtomicBoolean failed;
+
+        public ParseRange(final int[] starts,
+                          final Stmt[] stmts,
+                          final int fromIndex,
+                          final int toIndex,
+                          final AtomicBoolean failed) {
+            this.starts = starts;
+            this.stmts = stmts;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.failed = failed;
+        }
+
+        protected void compute() {
+            if (toIndex - fromIndex <= MIN_STMTS_PER_TASK) {
+                final Parser parser = new Parser(tokens);
+                for (int index = fromIndex; index < toIndex && !failed.get(); index++) {
+                    try {
+                        final ParseResult<Stmt> result = parser.parseStmt(starts[index]);
+                        if (result.position != starts[index + 1]) {
+                            failed.set(true);
+                        }
+                        stmts[index] = result.result;
+                    } catch (final ParseException e) {
+                        failed.set(true);
+                    }
+                }
+            } else {
+                final int middle = (fromIndex + toIndex) >>> 1;
+                invokeAll(new ParseRange(starts, stmts, fromIndex, middle, failed),
+                          new ParseRange(starts, stmts, middle, toIndex, failed));
+            }
+        }
+    }
+
+    // the start of each top-level statement, followed by the position of
+    // the block's closing `}`; null if the input isn't a single block
+    private int[] findStmtStarts() {
+        if (tokens.kindOrNone(0) != TokenKind.LEFT_CURLY) {
+            return null;
+        }
+        final StatementScanner scanner = new StatementScanner();
+        int[] starts = new int[16];
+        int numStarts = 0;
+        int position = 1;
+        while (position < tokens.size() && tokens.kind(position) != TokenKind.RIGHT_CURLY) {
+            if (numStarts == starts.length) {
+                starts = Arrays.copyOf(starts, numStarts * 2);
+            }
+            starts[numStarts++] = position;
+            scanner.reset();
+            while (position < tokens.size() && !scanner.feed(tokens.kind(position))) {
+                position++;
+            }
+            position++;
+        }
+        if (position != tokens.size() - 1) {
+            // no closing }, or something after it
+            return null;
+        }
+        final int[] result = Arrays.copyOf(starts, numStarts + 1);
+        result[numStarts] = position;
+        return result;
+    } // findStmtStarts
+
+    public Program parseProgram() throws ParseException {
+        final int[] starts = findStmtStarts();
+        if (starts == null) {
+            return new Parser(tokens).parseProgram();
+        }
+
+        final int numStmts = starts.length - 1;
+        final Stmt[] stmts = new Stmt[numStmts];
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        pool.invoke(new ParseRange(starts, stmts, 0, numStmts, failed));
+        if (failed.get()) {
+            return new Parser(tokens).parseProgram();
+        }
+        return new Program(new BlockStmt(Arrays.asList(stmts)));
+    } // parseProgram
+}
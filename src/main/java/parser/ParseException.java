@@ -1,8 +1,16 @@
 package parser;
 
-// represents parsing failure
+// represents parsing failure; position is the token position it failed
+// at, or -1 if not known (see Parser.location)
 public class ParseException extends Exception {
-    public ParseException(final String message) {
+    public final int position;
+
+    public ParseException(final String message, final int position) {
         super(message);
+        this.position = position;
+    }
+
+    public ParseException(final String message) {
+        this(message, -1);
     }
 }
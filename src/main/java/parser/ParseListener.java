@@ -0,0 +1,32 @@
+package parser;
+
+// Told about a Parser's work as it happens, for metrics; see ParseMetrics.
+// A Parser without a listener pays only a null check at each hook.
+
+public interface ParseListener {
+    // a public parse method (parseExp, parseStmt, parseProgram, ...)
+    // returned; end is the position after what it parsed, or -1 if it
+    // failed
+    public void ruleFinished(String rule, int start, int end, long nanos);
+
+    // a statement or expression within a public parse method was parsed:
+    // rule is ifStmt, blockStmt or printlnStmt for a statement, or exp
+    // for the expression of an if or println.  Times nest: a block's
+    // includes those of its statements.
+    public void innerRuleFinished(String rule, int start, int end, long nanos);
+
+    // the parser built a node.  Nodes shared by the parser, like a
+    // variable's VariableExp, are reported when first built.
+    public void nodeBuilt(Node node);
+
+    // a parse attempt failed, expecting something else at position.  The
+    // parser never backtracks, so each of these is a syntax error: the
+    // one a failed public parse method reports, or, when recovering, one
+    // of the diagnostics.
+    public void failed(int position, String expected);
+
+    // Nesting reached a new maximum for the current rule: statements
+    // waiting for sub-statements plus pending operators and parentheses.
+    // The parser doesn't recurse, so this stands in for recursion depth.
+    public void depthReached(int depth);
+}
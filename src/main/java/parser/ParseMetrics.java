@@ -0,0 +1,165 @@
+package parser;
+
+// A ParseListener which adds everything up, for any number of Parsers on
+// any number of threads, and can be published as a JMX MBean.
+//
+// - tokensConsumed: tokens covered by successful public parse methods
+// - nodesBuilt, by node type
+// - parseErrors: syntax errors found; see ParseListener.failed.  (The
+//   parser never backtracks, so there are no recovered failures to
+//   count.)
+// - maxDepth: the deepest nesting seen; see ParseListener.depthReached
+// - ruleCalls, ruleNanos: calls to and total time in each public parse
+//   method, and in the statements and expressions parsed within them
+//   (see ParseListener.innerRuleFinished)
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class ParseMetrics implements ParseListener, ParseMetricsMXBean {
+    private static final String[] NODE_TYPES = {
+        "IntegerExp", "VariableExp", "OpExp", "PrintlnStmt", "IfStmt", "BlockStmt"
+    };
+
+    private final LongAdder tokensConsumed;
+    // indexed like NODE_TYPES
+    private final LongAdder[] nodesBuilt;
+    private final LongAdder parseErrors;
+    private final AtomicInteger maxDepth;
+    // per rule: { calls, nanos }
+    private final ConcurrentHashMap<String, LongAdder[]> rules;
+
+    public ParseMetrics() {
+        tokensConsumed = new LongAdder();
+        nodesBuilt = new LongAdder[NODE_TYPES.length];
+        for (int index = 0; index < nodesBuilt.length; index++) {
+            nodesBuilt[index] = new LongAdder();
+        }
+        parseErrors = new LongAdder();
+        maxDepth = new AtomicInteger();
+        rules = new ConcurrentHashMap<String, LongAdder[]>();
+    }
+
+    // publishes these metrics under parser:type=ParseMetrics,name=<name>
+    public ObjectName register(final String name) throws JMException {
+        final ObjectName objectName =
+            new ObjectName("parser:type=ParseMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    public void ruleFinished(final String rule, final int start, final int end, final long nanos) {
+        if (end >= 0) {
+            tokensConsumed.add(end - start);
+        }
+        countRule(rule, nanos);
+    }
+
+    public void innerRuleFinished(final String rule, final int start, final int end, final long nanos) {
+        countRule(rule, nanos);
+    }
+
+    private void countRule(final String rule, final long nanos) {
+        LongAdder[] counters = rules.get(rule);
+        if (counters == null) {
+            final LongAdder[] newCounters = { new LongAdder(), new LongAdder() };
+            counters = rules.putIfAbsent(rule, newCounters);
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+        counters[0].increment();
+        counters[1].add(nanos);
+    } // countRule
+
+    public void nodeBuilt(final Node node) {
+        final int type;
+        if (node instanceof IntegerExp) {
+            type = 0;
+        } else if (node instanceof VariableExp) {
+            type = 1;
+        } else if (node instanceof OpExp) {
+            type = 2;
+        } else if (node instanceof PrintlnStmt) {
+            type = 3;
+        } else if (node instanceof IfStmt) {
+            type = 4;
+        } else {
+            type = 5;
+        }
+        nodesBuilt[type].increment();
+    } // nodeBuilt
+
+    public void failed(final int position, final String expected) {
+        parseErrors.increment();
+    }
+
+    public void depthReached(final int depth) {
+        int max = maxDepth.get();
+        while (depth > max && !maxDepth.compareAndSet(max, depth)) {
+            max = maxDepth.get();
+        }
+    }
+
+    public long getTokensConsumed() {
+        return tokensConsumed.sum();
+    }
+
+    public long getNodesBuilt() {
+        long total = 0;
+        for (final LongAdder count : nodesBuilt) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public Map<String, Long> getNodesBuiltByType() {
+        final Map<String, Long> byType = new TreeMap<String, Long>();
+        for (int index = 0; index < NODE_TYPES.length; index++) {
+            byType.put(NODE_TYPES[index], Long.valueOf(nodesBuilt[index].sum()));
+        }
+        return byType;
+    }
+
+    public long getParseErrors() {
+        return parseErrors.sum();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    private Map<String, Long> ruleCounters(final int which) {
+        final Map<String, Long> counts = new TreeMap<String, Long>();
+        for (final Map.Entry<String, LongAdder[]> entry : rules.entrySet()) {
+            counts.put(entry.getKey(), Long.valueOf(entry.getValue()[which].sum()));
+        }
+        return counts;
+    }
+
+    public Map<String, Long> getRuleCalls() {
+        return ruleCounters(0);
+    }
+
+    public Map<String, Long> getRuleNanos() {
+        return ruleCounters(1);
+    }
+
+    // Not atomic: updates made while resetting may be kept or lost.
+    public void reset() {
+        tokensConsumed.reset();
+        for (final LongAdder count : nodesBuilt) {
+            count.reset();
+        }
+        parseErrors.reset();
+        maxDepth.set(0);
+        rules.clear();
+    }
+}
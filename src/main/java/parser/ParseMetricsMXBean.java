@@ -0,0 +1,16 @@
+package parser;
+
+// The JMX view of a ParseMetrics.
+
+import java.util.Map;
+
+public interface ParseMetricsMXBean {
+    public long getTokensConsumed();
+    public long getNodesBuilt();
+    public Map<String, Long> getNodesBuiltByType();
+    public long getParseErrors();
+    public int getMaxDepth();
+    public Map<String, Long> getRuleCalls();
+    public Map<String, Long> getRuleNanos();
+    public void reset();
+}
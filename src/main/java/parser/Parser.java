@@ -32,62 +32,573 @@ package parser;
 // Parsers return a "ParseResult", which contains:
 //    - Whatever it parsed in
 //    - The position of the next token
+//
+// The parsers below follow the grammar, but don't recurse: a deeply
+// nested input would otherwise need a Java stack frame per nesting level
+// (several, for expressions), and overflow the thread's stack.  Instead:
+//    - Expressions are parsed with operator precedence: an explicit stack
+//      of operands and one of operators (and open parentheses).  An
+//      operator is applied as soon as an operator of lower or equal
+//      precedence follows it, which gives the same left-associative trees
+//      as the original additive_exp/less_than_exp/equals_exp chain.
+//      Precedence and associativity come from an OperatorTable, so the
+//      work per primary_exp doesn't depend on how many levels there are.
+//    - Statements keep an explicit stack of the if/block statements
+//      that are still waiting for their sub-statements.
+// Both stacks live on the heap, so nesting depth is limited only by
+// memory.
+//
+// Internally, failure is reported by returning null after recording what
+// was expected where; a ParseException is only created by the public
+// methods, once, for the failure that is actually reported.
+//
+// Since nothing is ever parsed twice within one call, parsing is linear in
+// the number of tokens.  Callers which themselves try the same sub-parser
+// at the same position over and over (say, probing every position of a
+// file) can turn on memoization: every expression and every completed
+// statement is then remembered by (rule, position), so the repeated calls
+// are looked up rather than re-parsed.
+//
+// A SpanTable can be attached to record which tokens each statement and
+// OpExp came from; each token knows where it is in the source.  The
+// table needs every node's span, so memoization is off meanwhile.
+//
+// A ParseListener can be attached to see where the work goes; it is told
+// about every node built, every failure, the nesting depth and the time
+// taken by each public parse method.
+//
+// parseProgramRecovering doesn't stop at the first syntax error.  It
+// records a Diagnostic, skips ahead to the next `;`, `}` or `else` (or
+// past the next whole `{ ... }`) at the failed statement's level, and
+// carries on; the statement is left out.  A missing `else` or `}` is
+// treated as if it were there.  This is still a single linear pass.
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class Parser {
-    private final List<Token> tokens;
+    private static final OperatorTable STANDARD_OPERATORS = OperatorTable.standard();
+
+    // higher than any operator: passed as minPrecedence to parseBinaryExp
+    // to parse a single primary_exp
+    private static final int PRIMARY_PRECEDENCE = Integer.MAX_VALUE;
+    // lower than any operator: parses a whole exp
+    private static final int LOWEST_PRECEDENCE = 1;
+
+    private static final int INITIAL_STACK_SIZE = 16;
+
+    // rule numbers for memoization; an expression's rule number is the
+    // minPrecedence it was parsed with, which is always positive
+    private static final int STMT_RULE = 0;
+
+    private TokenBuffer tokens;
+    private final OperatorTable operatorTable;
+    // each distinct variable name gets one VariableExp, shared by every use;
+    // indexed by the name index from the TokenBuffer
+    private VariableExp[] variables;
+
+    // operand and operator stacks for parseBinaryExp, reused between calls;
+    // the operator stack also holds LEFT_PAREN for open parentheses
+    private Exp[] operands;
+    // with a SpanTable, the token span [start, end) of each operand,
+    // including any parentheses around it, and the position of each open
+    // parenthesis
+    private int[] operandStarts;
+    private int[] operandEnds;
+    private int numOperands;
+    private int[] parenStarts;
+    private int[] operators;
+    private int numOperators;
+
+    // where the most recent successful internal parse stopped
+    private int nextPosition;
+
+    // what the most recent failed internal parse expected, and where
+    private String failureExpected;
+    private int failurePosition;
+
+    // null unless someone wants to know statement spans
+    private SpanListener spanListener;
+    // null unless someone wants node spans
+    private SpanTable spanTable;
+
+    // makes every node; see HashConsingNodeFactory.  With a listener,
+    // nodeFactory wraps baseNodeFactory to report each node.
+    private NodeFactory baseNodeFactory;
+    private NodeFactory nodeFactory;
+
+    // null unless someone wants metrics
+    private ParseListener parseListener;
+    // nesting depth for the listener: open statement frames, and the
+    // deepest so far in the current rule
+    private int stmtDepth;
+    private int maxDepth;
+
+    // null unless memoization is on, and no SpanTable is attached
+    private MemoTable memo;
+    private boolean memoizing;
+
+    // null unless parsing in recovery mode
+    private List<Diagnostic> diagnostics;
+
+    // stands in for a statement which failed to parse, in recovery mode;
+    // never ends up in a result
+    private static final Stmt ERROR = new BlockStmt(new ArrayList<Stmt>());
+
+    // a failure, as remembered in the memo table
+    private static class Failure {
+        public final String expected;
+        public final int position;
+
+        public Failure(final String expected, final int position) {
+            this.expected = expected;
+            this.position = position;
+        }
+    }
+
+    // an if or block statement which is waiting for its sub-statements
+    private static class StmtFrame {
+        public static final int IF_TRUE_BRANCH = 0;
+        public static final int IF_FALSE_BRANCH = 1;
+        public static final int BLOCK = 2;
+
+        public int state;
+        public final int start;
+        // when the statement was started, for the listener
+        public final long startTime;
+        public final Exp guard;
+        public Stmt trueBranch;
+        public final List<Stmt> stmts;
+
+        public StmtFrame(final int state,
+                         final int start,
+                         final long startTime,
+                         final Exp guard,
+                         final List<Stmt> stmts) {
+            this.state = state;
+            this.start = start;
+            this.startTime = startTime;
+            this.guard = guard;
+            this.stmts = stmts;
+        }
+    }
+
+    public Parser(final TokenBuffer tokens, final OperatorTable operatorTable) {
+        this.tokens = tokens;
+        this.operatorTable = operatorTable;
+        variables = new VariableExp[tokens.numNames()];
+        operands = new Exp[INITIAL_STACK_SIZE];
+        operandStarts = new int[INITIAL_STACK_SIZE];
+        operandEnds = new int[INITIAL_STACK_SIZE];
+        parenStarts = new int[INITIAL_STACK_SIZE];
+        operators = new int[INITIAL_STACK_SIZE];
+        baseNodeFactory = DefaultNodeFactory.INSTANCE;
+        nodeFactory = baseNodeFactory;
+    }
+
+    public Parser(final TokenBuffer tokens) {
+        this(tokens, STANDARD_OPERATORS);
+    }
 
     public Parser(final List<Token> tokens) {
+        this(TokenBuffer.of(tokens));
+    }
+
+    // Starts over on new input.  The parser's stacks and tables are kept,
+    // so a parser can be reused for many inputs without reallocating them.
+    public void reset(final TokenBuffer tokens) {
         this.tokens = tokens;
+        Arrays.fill(variables, null);
+        forgetMemoized();
+    }
+
+    // Memoized results were built, and reported, with the factory and
+    // listeners of the time; changing any of them empties the memo table,
+    // so that nothing built the old way is handed out afterwards.
+    private void forgetMemoized() {
+        if (memo != null) {
+            memo.clear();
+        }
+    }
+
+    public void setNodeFactory(final NodeFactory nodeFactory) {
+        baseNodeFactory = nodeFactory;
+        setParseListener(parseListener);
+    }
+
+    public void setParseListener(final ParseListener parseListener) {
+        this.parseListener = parseListener;
+        nodeFactory = (parseListener == null) ?
+            baseNodeFactory :
+            new ListeningNodeFactory(baseNodeFactory, parseListener);
+        Arrays.fill(variables, null);
+        forgetMemoized();
+    }
+
+    public void setSpanListener(final SpanListener spanListener) {
+        this.spanListener = spanListener;
+        forgetMemoized();
+    }
+
+    // The table gets the spans of each parse after those of the last, so
+    // clear it in between (see SpanTable).  Memoization is off while a
+    // table is attached.
+    public void setSpanTable(final SpanTable spanTable) {
+        this.spanTable = spanTable;
+        useMemo();
+    }
+
+    // A statement found in the memo table is not reported to the
+    // SpanListener again.  A SpanTable can't do without the spans of
+    // every node, in order, so memoizing waits until none is attached.
+    public void setMemoizing(final boolean memoizing) {
+        this.memoizing = memoizing;
+        useMemo();
+    }
+
+    // starts memoizing afresh if it should be on, or stops
+    private void useMemo() {
+        if (!memoizing || spanTable != null) {
+            memo = null;
+        } else if (memo == null) {
+            memo = new MemoTable();
+        } else {
+            memo.clear();
+        }
+    } // useMemo
+
+    // replays a memoized outcome, as if it had just been parsed
+    private <A> A recall(final Object memoized) {
+        if (memoized instanceof Failure) {
+            final Failure failure = (Failure)memoized;
+            return fail(failure.position, failure.expected);
+        } else {
+            nextPosition = memo.foundNextPosition;
+            @SuppressWarnings("unchecked")
+            final A result = (A)memoized;
+            return result;
+        }
+    } // recall
+
+    // records the outcome of the parse that just finished
+    private <A> A remember(final int rule, final int position, final A result) {
+        if (result == null) {
+            memo.put(rule, position, new Failure(failureExpected, failurePosition), -1);
+        } else {
+            memo.put(rule, position, result, nextPosition);
+        }
+        return result;
+    } // remember
+
+    private VariableExp variableExp(final int nameIndex) {
+        if (nameIndex >= variables.length) {
+            variables = Arrays.copyOf(variables, tokens.numNames());
+        }
+        VariableExp exp = variables[nameIndex];
+        if (exp == null) {
+            exp = nodeFactory.variableExp(tokens.name(nameIndex));
+            variables[nameIndex] = exp;
+        }
+        return exp;
     }
 
     public Token getToken(final int position) throws ParseException {
         if (position >= 0 && position < tokens.size()) {
-            return tokens.get(position);
+            return tokens.getToken(position);
         } else {
-            throw new ParseException("Invalid token position: " + position);
+            throw new ParseException("Invalid token position: " + position, position);
         }
     }
 
     public void assertTokenHereIs(final int position, final Token expected) throws ParseException {
-        final Token received = getToken(position);
-        if (!expected.equals(received)) {
-            throw new ParseException("expected: " + expected + "; received: " + received);
+        if (tokens.kindOrNone(position) != TokenKind.of(expected)) {
+            throw new ParseException("expected: " + expected + "; received: " +
+                                     describeToken(position), position);
         }
     }
-    
-    // primary_exp ::= x | i | `(` exp `)`
-    public ParseResult<Exp> parsePrimaryExp(final int position) throws ParseException {
-        final Token token = getToken(position);
-        if (token instanceof VariableToken) {
-            final String name = ((VariableToken)token).name;
-            return new ParseResult<Exp>(new VariableExp(new Variable(name)),
-                                        position + 1);
-        } else if (token instanceof IntegerToken) {
-            final int value = ((IntegerToken)token).value;
-            return new ParseResult<Exp>(new IntegerExp(value), position + 1);
-        } else if (token instanceof LeftParenToken) {
-            final ParseResult<Exp> inParens = parseExp(position + 1);
-            assertTokenHereIs(inParens.position, new RightParenToken());
-            return new ParseResult<Exp>(inParens.result,
-                                        inParens.position + 1);
+
+    private String describeToken(final int position) {
+        if (position >= 0 && position < tokens.size()) {
+            return tokens.getToken(position).toString();
+        } else {
+            return "end of input";
+        }
+    }
+
+    // records a failure; always returns null, so callers can
+    // `return fail(...)`
+    private <A> A fail(final int position, final String expected) {
+        failurePosition = position;
+        failureExpected = expected;
+        if (parseListener != null) {
+            parseListener.failed(position, expected);
+        }
+        return null;
+    }
+
+    private <A> A failUnlessKind(final int position, final int expected) {
+        return fail(position, TokenKind.sharedToken(expected).toString());
+    }
+
+    private ParseException failure() {
+        return new ParseException("expected: " + failureExpected + "; received: " +
+                                  describeToken(failurePosition), failurePosition);
+    }
+
+    // where the token at position is in the source, for messages: "line L,
+    // column C" if the tokens came from a Tokenizer, or else "token P"
+    public String location(final int position) {
+        return tokens.location(position);
+    }
+
+    // records the most recent failure as a Diagnostic, in recovery mode;
+    // a second failure at the same position is a consequence of the first,
+    // and isn't recorded
+    private void diagnose() {
+        if (diagnostics.isEmpty() ||
+            diagnostics.get(diagnostics.size() - 1).position != failurePosition) {
+            diagnostics.add(new Diagnostic(failurePosition, failureExpected,
+                                           describeToken(failurePosition)));
+        }
+    } // diagnose
+
+    // Finds where to carry on after a statement starting at start failed
+    // to parse, skipping from where it failed to:
+    // - just after the next `;`, or the `}` of a `{ ... }` not followed by
+    //   `else`, or
+    // - just before a `}` closing an enclosing block, or an `else` the
+    //   enclosing if is waiting for, or
+    // - the end of input.
+    // Curly braces opened while skipping are matched, so whole blocks are
+    // skipped.  At the top level, stray tokens are skipped up to the next
+    // token which could start a statement.
+    private int resynchronize(final int start, final boolean atTopLevel, final boolean elseWanted) {
+        int position = Math.max(start, failurePosition);
+        int depth = 0;
+        while (position < tokens.size()) {
+            final int kind = tokens.kind(position);
+            if (kind == TokenKind.LEFT_CURLY) {
+                depth++;
+            } else if (kind == TokenKind.RIGHT_CURLY) {
+                if (depth == 0) {
+                    break;
+                } else if (--depth == 0 && tokens.kindOrNone(position + 1) != TokenKind.ELSE) {
+                    return position + 1;
+                }
+            } else if (depth == 0) {
+                if (kind == TokenKind.SEMICOLON) {
+                    return position + 1;
+                } else if (kind == TokenKind.ELSE && elseWanted) {
+                    break;
+                }
+            }
+            position++;
+        }
+        if (position == start && atTopLevel) {
+            // a stray token: skip to something that could start a statement
+            do {
+                position++;
+            } while (position < tokens.size() && !startsStmt(tokens.kind(position)));
+        }
+        return position;
+    } // resynchronize
+
+    private static boolean startsStmt(final int kind) {
+        return kind == TokenKind.IF || kind == TokenKind.LEFT_CURLY || kind == TokenKind.PRINTLN;
+    }
+
+    // An empty block in place of ERROR, or of a missing else branch.  It
+    // has no span, but gets a place in the SpanTable like any other
+    // statement, so is made where it goes in the tree's order.
+    private Stmt orEmpty(final Stmt stmt) {
+        if (stmt != ERROR) {
+            return stmt;
+        }
+        if (spanTable != null) {
+            spanTable.add(-1, -1);
+        }
+        return nodeFactory.blockStmt(new ArrayList<Stmt>());
+    }
+
+    // called at the start of each public parse method; returns the time,
+    // for finish
+    private long startRule() {
+        if (parseListener == null) {
+            return 0;
+        }
+        stmtDepth = 0;
+        maxDepth = 0;
+        return System.nanoTime();
+    } // startRule
+
+    private void noteDepth(final int depth) {
+        if (depth > maxDepth) {
+            maxDepth = depth;
+            parseListener.depthReached(depth);
+        }
+    }
+
+    // Called at the end of each public parse method, with the internal
+    // result: reports the rule to the listener, then turns the result into
+    // a ParseResult, or throws for a failure.
+    private <A> ParseResult<A> finish(final String rule,
+                                      final int position,
+                                      final long startTime,
+                                      final A result) throws ParseException {
+        if (parseListener != null) {
+            parseListener.ruleFinished(rule, position, (result == null) ? -1 : nextPosition,
+                                       System.nanoTime() - startTime);
+        }
+        if (result == null) {
+            throw failure();
         } else {
-            throw new ParseException("Expected primary expression; received: " + token);
+            if (spanTable != null && result instanceof Node) {
+                spanTable.setRoot((Node)result);
+            }
+            return new ParseResult<A>(result, nextPosition);
+        }
+    }
+
+    private void pushOperand(final Exp exp, final int position) {
+        if (numOperands == operands.length) {
+            operands = Arrays.copyOf(operands, numOperands * 2);
+            operandStarts = Arrays.copyOf(operandStarts, numOperands * 2);
+            operandEnds = Arrays.copyOf(operandEnds, numOperands * 2);
+        }
+        if (spanTable != null) {
+            operandStarts[numOperands] = position;
+            operandEnds[numOperands] = position + 1;
+        }
+        operands[numOperands++] = exp;
+    }
+
+    private void pushOperator(final int kind) {
+        if (numOperators == operators.length) {
+            operators = Arrays.copyOf(operators, numOperators * 2);
         }
+        operators[numOperators++] = kind;
+        if (parseListener != null) {
+            noteDepth(stmtDepth + numOperators);
+        }
+    }
+
+    // applies the operator on top of the operator stack to the top two operands
+    private void reduce() {
+        final Exp right = operands[--numOperands];
+        final Exp left = operands[--numOperands];
+        final Exp exp = nodeFactory.opExp(left, operatorTable.op(operators[--numOperators]), right);
+        operands[numOperands] = exp;
+        operands[numOperands + 1] = null;
+        if (spanTable != null) {
+            operandEnds[numOperands] = operandEnds[numOperands + 1];
+            spanTable.add(operandStarts[numOperands], operandEnds[numOperands]);
+        }
+        numOperands++;
+    }
+
+    private Exp parseBinaryExp(final int position, final int minPrecedence) {
+        if (memo == null) {
+            return parseOperators(position, minPrecedence);
+        }
+        final Object memoized = memo.get(minPrecedence, position);
+        if (memoized != null) {
+            return recall(memoized);
+        }
+        return remember(minPrecedence, position, parseOperators(position, minPrecedence));
+    } // parseBinaryExp
+
+    // Parses a primary_exp followed by any number of (operator primary_exp),
+    // stopping at the first operator (outside of parentheses) which binds
+    // less tightly than minPrecedence.
+    private Exp parseOperators(final int position, final int minPrecedence) {
+        numOperands = 0;
+        numOperators = 0;
+        int openParens = 0;
+        int curPosition = position;
+
+        while (true) {
+            // primary_exp ::= x | i | `(` exp `)`
+            int kind = tokens.kindOrNone(curPosition);
+            while (kind == TokenKind.LEFT_PAREN) {
+                pushOperator(TokenKind.LEFT_PAREN);
+                if (spanTable != null) {
+                    if (openParens == parenStarts.length) {
+                        parenStarts = Arrays.copyOf(parenStarts, openParens * 2);
+                    }
+                    parenStarts[openParens] = curPosition;
+                }
+                openParens++;
+                kind = tokens.kindOrNone(++curPosition);
+            }
+            if (kind == TokenKind.VARIABLE) {
+                pushOperand(variableExp(tokens.payload(curPosition)), curPosition);
+            } else if (kind == TokenKind.INTEGER) {
+                pushOperand(nodeFactory.integerExp(tokens.payload(curPosition)), curPosition);
+            } else {
+                return fail(curPosition, "primary expression");
+            }
+            kind = tokens.kindOrNone(++curPosition);
+
+            while (kind == TokenKind.RIGHT_PAREN && openParens > 0) {
+                while (operators[numOperators - 1] != TokenKind.LEFT_PAREN) {
+                    reduce();
+                }
+                numOperators--;
+                openParens--;
+                if (spanTable != null) {
+                    operandStarts[numOperands - 1] = parenStarts[openParens];
+                    operandEnds[numOperands - 1] = curPosition + 1;
+                }
+                kind = tokens.kindOrNone(++curPosition);
+            }
+
+            // an operator continues the expression; anything else ends it
+            final int precedence = operatorTable.precedence(kind);
+            if (precedence == 0 || (openParens == 0 && precedence < minPrecedence)) {
+                if (openParens > 0) {
+                    return failUnlessKind(curPosition, TokenKind.RIGHT_PAREN);
+                }
+                while (numOperators > 0) {
+                    reduce();
+                }
+                nextPosition = curPosition;
+                final Exp result = operands[0];
+                operands[0] = null;
+                return result;
+            }
+
+            // a left-associative operator applies everything of the same
+            // precedence to its left first; a right-associative one doesn't
+            final int minToReduce = operatorTable.isRightAssociative(kind) ? precedence + 1 : precedence;
+            while (numOperators > 0 &&
+                   operators[numOperators - 1] != TokenKind.LEFT_PAREN &&
+                   operatorTable.precedence(operators[numOperators - 1]) >= minToReduce) {
+                reduce();
+            }
+            pushOperator(kind);
+            curPosition++;
+        }
+    } // parseOperators
+
+    // primary_exp ::= x | i | `(` exp `)`
+    public ParseResult<Exp> parsePrimaryExp(final int position) throws ParseException {
+        final long startTime = startRule();
+        return finish("parsePrimaryExp", position, startTime, parseBinaryExp(position, PRIMARY_PRECEDENCE));
     } // parsePrimaryExp
 
     // additive_op ::= + | -
     public ParseResult<Op> parseAdditiveOp(final int position) throws ParseException {
-        final Token token = getToken(position);
-        if (token instanceof PlusToken) {
-            return new ParseResult<Op>(new PlusOp(), position + 1);
-        } else if (token instanceof MinusToken) {
-            return new ParseResult<Op>(new MinusOp(), position + 1);
+        final long startTime = startRule();
+        final int kind = tokens.kindOrNone(position);
+        final Op op;
+        if (kind == TokenKind.PLUS || kind == TokenKind.MINUS) {
+            op = operatorTable.op(kind);
+            nextPosition = position + 1;
         } else {
-            throw new ParseException("expected + or -; received: " + token);
+            op = fail(position, "+ or -");
         }
+        return finish("parseAdditiveOp", position, startTime, op);
     } // parseAdditiveOp
 
     // additive_exp ::= primary_exp (additive_op primary_exp)*
@@ -95,117 +606,234 @@ public class Parser {
     //
     // 1 + 2
     public ParseResult<Exp> parseAdditiveExp(final int position) throws ParseException {
-        ParseResult<Exp> current = parsePrimaryExp(position);
-        boolean shouldRun = true;
-        
-        while (shouldRun) {
-            try {
-                final ParseResult<Op> additiveOp = parseAdditiveOp(current.position);
-                final ParseResult<Exp> anotherPrimary = parsePrimaryExp(additiveOp.position);
-                current = new ParseResult<Exp>(new OpExp(current.result,
-                                                         additiveOp.result,
-                                                         anotherPrimary.result),
-                                               anotherPrimary.position);
-            } catch (final ParseException e) {
-                shouldRun = false;
-            }
-        }
-
-        return current;
+        final long startTime = startRule();
+        return finish("parseAdditiveExp", position, startTime,
+                      parseBinaryExp(position, operatorTable.precedence(TokenKind.PLUS)));
     } // parseAdditiveExp
 
     // less_than_exp ::= additive_exp (`<` additive_exp)*
     public ParseResult<Exp> parseLessThanExp(final int position) throws ParseException {
-        ParseResult<Exp> current = parseAdditiveExp(position);
-        boolean shouldRun = true;
-        
-        while (shouldRun) {
-            try {
-                assertTokenHereIs(current.position, new LessThanToken());
-                final ParseResult<Exp> other = parseAdditiveExp(current.position + 1);
-                current = new ParseResult<Exp>(new OpExp(current.result,
-                                                         new LessThanOp(),
-                                                         other.result),
-                                               other.position);
-            } catch (final ParseException e) {
-                shouldRun = false;
-            }
-        }
-
-        return current;
+        final long startTime = startRule();
+        return finish("parseLessThanExp", position, startTime,
+                      parseBinaryExp(position, operatorTable.precedence(TokenKind.LESS_THAN)));
     } // parseLessThanExp
 
     // equals_exp ::= less_than_exp (`==` less_than_exp)*
     public ParseResult<Exp> parseEqualsExp(final int position) throws ParseException {
-        ParseResult<Exp> current = parseLessThanExp(position);
-        boolean shouldRun = true;
-
-        while (shouldRun) {
-            try {
-                assertTokenHereIs(current.position, new EqualsToken());
-                final ParseResult<Exp> other = parseLessThanExp(current.position + 1);
-                current = new ParseResult<Exp>(new OpExp(current.result,
-                                                         new EqualsOp(),
-                                                         other.result),
-                                               other.position);
-            } catch (final ParseException e) {
-                shouldRun = false;
-            }
-        }
-
-        return current;
+        final long startTime = startRule();
+        return finish("parseEqualsExp", position, startTime,
+                      parseBinaryExp(position, operatorTable.precedence(TokenKind.EQUALS)));
     } // parseEqualsExp
 
     // exp ::= equals_exp
+    // (or, with a non-standard OperatorTable, whatever its lowest level is)
     public ParseResult<Exp> parseExp(final int position) throws ParseException {
-        return parseEqualsExp(position);
+        final long startTime = startRule();
+        return finish("parseExp", position, startTime, parseBinaryExp(position, LOWEST_PRECEDENCE));
     }
-                                                         
-    // stmt ::= if (exp) stmt else stmt | { stmt* } | println(exp);
-    public ParseResult<Stmt> parseStmt(final int position) throws ParseException {
-        final Token token = getToken(position);
-        // if
-        if (token instanceof IfToken) {
-            assertTokenHereIs(position + 1, new LeftParenToken());
-            final ParseResult<Exp> guard = parseExp(position + 2);
-            assertTokenHereIs(guard.position, new RightParenToken());
-            final ParseResult<Stmt> trueBranch = parseStmt(guard.position + 1);
-            assertTokenHereIs(trueBranch.position, new ElseToken());
-            final ParseResult<Stmt> falseBranch = parseStmt(trueBranch.position + 1);
-            return new ParseResult<Stmt>(new IfStmt(guard.result,
-                                                    trueBranch.result,
-                                                    falseBranch.result),
-                                         falseBranch.position);
-        } else if (token instanceof LeftCurlyToken) {
-            final List<Stmt> stmts = new ArrayList<Stmt>();
-            int curPosition = position + 1;
-            boolean shouldRun = true;
-            while (shouldRun) {
-                try {
-                    final ParseResult<Stmt> stmt = parseStmt(curPosition);
-                    stmts.add(stmt.result);
-                    curPosition = stmt.position;
-                } catch (final ParseException e) {
-                    shouldRun = false;
-                }
-            }
-            return new ParseResult<Stmt>(new BlockStmt(stmts),
-                                         curPosition);
-        } else if (token instanceof PrintlnToken) {
-            assertTokenHereIs(position + 1, new LeftParenToken());
-            final ParseResult<Exp> exp = parseExp(position + 2);
-            assertTokenHereIs(exp.position, new RightParenToken());
-            assertTokenHereIs(exp.position + 1, new SemicolonToken());
-            return new ParseResult<Stmt>(new PrintlnStmt(exp.result),
-                                         exp.position + 2);
+
+    // `(` exp `)`, as used by if and println; leaves nextPosition after the `)`
+    private Exp parseParenthesizedExp(final int position) {
+        if (tokens.kindOrNone(position) != TokenKind.LEFT_PAREN) {
+            return failUnlessKind(position, TokenKind.LEFT_PAREN);
+        }
+        final long startTime = (parseListener == null) ? 0 : System.nanoTime();
+        final Exp exp = parseBinaryExp(position + 1, LOWEST_PRECEDENCE);
+        if (exp == null) {
+            return null;
+        }
+        if (parseListener != null) {
+            parseListener.innerRuleFinished("exp", position + 1, nextPosition, System.nanoTime() - startTime);
+        }
+        if (tokens.kindOrNone(nextPosition) != TokenKind.RIGHT_PAREN) {
+            return failUnlessKind(nextPosition, TokenKind.RIGHT_PAREN);
+        }
+        nextPosition++;
+        return exp;
+    } // parseParenthesizedExp
+
+    private Stmt parseStmtMemoized(final int position) {
+        if (memo == null) {
+            return parseStmtIteratively(position);
+        }
+        final Object memoized = memo.get(STMT_RULE, position);
+        if (memoized != null) {
+            return recall(memoized);
+        }
+        final Stmt result = parseStmtIteratively(position);
+        if (result == null) {
+            // completed statements were remembered as they were built
+            remember(STMT_RULE, position, result);
+        }
+        return result;
+    } // parseStmtMemoized
+
+    // the rule reported to the listener for a statement
+    private static String stmtRule(final Stmt stmt) {
+        if (stmt instanceof IfStmt) {
+            return "ifStmt";
+        } else if (stmt instanceof BlockStmt) {
+            return "blockStmt";
         } else {
-            throw new ParseException("expected statement; received: " + token);
+            return "printlnStmt";
         }
+    }
+
+    // stmt ::= if (exp) stmt else stmt | { stmt* } | println(exp);
+    private Stmt parseStmtIteratively(final int position) {
+        final List<StmtFrame> frames = new ArrayList<StmtFrame>();
+        int curPosition = position;
+
+        while (true) {
+            // parse the start of a statement; a println or an empty block
+            // is done right away, otherwise push a frame and go on to the
+            // first sub-statement
+            Stmt completed;
+            int completedStart = curPosition;
+            // the spans of this statement's expressions start here
+            final int spanMark = (spanTable == null) ? 0 : spanTable.size();
+            long completedTime = (parseListener == null) ? 0 : System.nanoTime();
+            switch (tokens.kindOrNone(curPosition)) {
+            case TokenKind.IF: {
+                final Exp guard = parseParenthesizedExp(curPosition + 1);
+                if (guard == null) {
+                    completed = null;
+                    break;
+                }
+                frames.add(new StmtFrame(StmtFrame.IF_TRUE_BRANCH, curPosition, completedTime, guard, null));
+                if (parseListener != null) {
+                    stmtDepth = frames.size();
+                    noteDepth(stmtDepth);
+                }
+                curPosition = nextPosition;
+                continue;
+            }
+            case TokenKind.LEFT_CURLY: {
+                curPosition++;
+                if (tokens.kindOrNone(curPosition) != TokenKind.RIGHT_CURLY) {
+                    frames.add(new StmtFrame(StmtFrame.BLOCK, completedStart, completedTime,
+                                             null, new ArrayList<Stmt>()));
+                    if (parseListener != null) {
+                        stmtDepth = frames.size();
+                        noteDepth(stmtDepth);
+                    }
+                    continue;
+                }
+                curPosition++;
+                completed = nodeFactory.blockStmt(new ArrayList<Stmt>());
+                break;
+            }
+            case TokenKind.PRINTLN: {
+                final Exp exp = parseParenthesizedExp(curPosition + 1);
+                if (exp == null) {
+                    completed = null;
+                } else if (tokens.kindOrNone(nextPosition) != TokenKind.SEMICOLON) {
+                    completed = failUnlessKind(nextPosition, TokenKind.SEMICOLON);
+                } else {
+                    curPosition = nextPosition + 1;
+                    completed = nodeFactory.printlnStmt(exp);
+                }
+                break;
+            }
+            default:
+                completed = fail(curPosition, "statement");
+                break;
+            }
+
+            if (completed == null) {
+                if (diagnostics == null) {
+                    return null;
+                }
+                diagnose();
+                if (spanTable != null) {
+                    spanTable.truncate(spanMark);
+                }
+                final boolean elseWanted = !frames.isEmpty() &&
+                    frames.get(frames.size() - 1).state == StmtFrame.IF_TRUE_BRANCH;
+                curPosition = resynchronize(curPosition, frames.isEmpty(), elseWanted);
+                completed = ERROR;
+            }
+
+            // hand the completed statement to the frame waiting for it,
+            // which may complete that frame's statement in turn
+            while (true) {
+                if (spanListener != null && completed != ERROR) {
+                    spanListener.stmtParsed(completed, completedStart, curPosition);
+                }
+                if (parseListener != null && completed != ERROR) {
+                    parseListener.innerRuleFinished(stmtRule(completed), completedStart, curPosition,
+                                                    System.nanoTime() - completedTime);
+                }
+                if (spanTable != null && completed != ERROR) {
+                    spanTable.add(completedStart, curPosition);
+                }
+                if (memo != null && diagnostics == null) {
+                    memo.put(STMT_RULE, completedStart, completed, curPosition);
+                }
+                if (frames.isEmpty()) {
+                    nextPosition = curPosition;
+                    return completed;
+                }
+                final StmtFrame frame = frames.get(frames.size() - 1);
+                if (frame.state == StmtFrame.IF_TRUE_BRANCH) {
+                    if (tokens.kindOrNone(curPosition) == TokenKind.ELSE) {
+                        frame.trueBranch = orEmpty(completed);
+                        frame.state = StmtFrame.IF_FALSE_BRANCH;
+                        curPosition++;
+                        break;
+                    } else if (diagnostics == null) {
+                        return failUnlessKind(curPosition, TokenKind.ELSE);
+                    }
+                    // recovering: as if there were an empty else branch
+                    failUnlessKind(curPosition, TokenKind.ELSE);
+                    diagnose();
+                    frames.remove(frames.size() - 1);
+                    stmtDepth = frames.size();
+                    final Stmt trueBranch = orEmpty(completed);
+                    completed = nodeFactory.ifStmt(frame.guard, trueBranch, orEmpty(ERROR));
+                    completedStart = frame.start;
+                    completedTime = frame.startTime;
+                } else if (frame.state == StmtFrame.IF_FALSE_BRANCH) {
+                    frames.remove(frames.size() - 1);
+                    stmtDepth = frames.size();
+                    completed = nodeFactory.ifStmt(frame.guard, frame.trueBranch, orEmpty(completed));
+                    completedStart = frame.start;
+                    completedTime = frame.startTime;
+                } else {
+                    if (completed != ERROR) {
+                        frame.stmts.add(completed);
+                    }
+                    if (tokens.kindOrNone(curPosition) == TokenKind.RIGHT_CURLY) {
+                        curPosition++;
+                    } else if (diagnostics == null || curPosition < tokens.size()) {
+                        break;
+                    } else {
+                        // recovering, at the end of input: as if the block
+                        // were closed
+                        failUnlessKind(curPosition, TokenKind.RIGHT_CURLY);
+                        diagnose();
+                    }
+                    frames.remove(frames.size() - 1);
+                    stmtDepth = frames.size();
+                    completed = nodeFactory.blockStmt(frame.stmts);
+                    completedStart = frame.start;
+                    completedTime = frame.startTime;
+                }
+            }
+        }
+    } // parseStmtIteratively
+
+    // stmt ::= if (exp) stmt else stmt | { stmt* } | println(exp);
+    public ParseResult<Stmt> parseStmt(final int position) throws ParseException {
+        final long startTime = startRule();
+        return finish("parseStmt", position, startTime, parseStmtMemoized(position));
     } // parseStmt
 
     // program ::= stmt
     public ParseResult<Program> parseProgram(final int position) throws ParseException {
-        final ParseResult<Stmt> stmt = parseStmt(position);
+        final long startTime = startRule();
+        final ParseResult<Stmt> stmt = finish("parseProgram", position, startTime,
+                                              parseStmtMemoized(position));
         return new ParseResult<Program>(new Program(stmt.result),
                                         stmt.position);
     } // parseProgram
@@ -219,7 +847,56 @@ public class Parser {
         if (program.position == tokens.size()) {
             return program.result;
         } else {
-            throw new ParseException("Remaining tokens at end");
+            fail(program.position, "end of input");
+            throw failure();
         }
     } // parseProgram
+
+    // Like parseProgram, but carries on past syntax errors, returning
+    // them all along with what could be parsed; never throws.  Statements
+    // found after the end of the program are kept: the program is then a
+    // block of all the top-level statements.
+    public RecoveredProgram parseProgramRecovering() {
+        final long startTime = startRule();
+        diagnostics = new ArrayList<Diagnostic>();
+        try {
+            final List<Stmt> stmts = new ArrayList<Stmt>();
+            int position = 0;
+            boolean parsed = false;
+            do {
+                // more after a statement that parsed is an error; more
+                // after one that didn't is just where parsing picks up
+                if (parsed) {
+                    fail(position, "end of input");
+                    diagnose();
+                }
+                final Stmt stmt = parseStmtIteratively(position);
+                parsed = (stmt != ERROR);
+                if (parsed) {
+                    stmts.add(stmt);
+                }
+                position = nextPosition;
+            } while (position < tokens.size());
+
+            final Stmt stmt;
+            if (stmts.size() == 1) {
+                stmt = stmts.get(0);
+            } else {
+                stmt = nodeFactory.blockStmt(stmts);
+                if (spanTable != null) {
+                    spanTable.add(0, position);
+                }
+            }
+            if (spanTable != null) {
+                spanTable.setRoot(stmt);
+            }
+            if (parseListener != null) {
+                parseListener.ruleFinished("parseProgramRecovering", 0, position,
+                                           System.nanoTime() - startTime);
+            }
+            return new RecoveredProgram(new Program(stmt), diagnostics);
+        } finally {
+            diagnostics = null;
+        }
+    } // parseProgramRecovering
 }
@@ -0,0 +1,162 @@
+package parser;
+
+// Parses many programs concurrently.  Safe to use from any number of
+// threads.
+//
+// Each parse runs on the service's executor.  By default that is one
+// virtual thread per parse on JDKs which have them (21+), and a fixed
+// pool of one thread per processor otherwise.  Parsers and their token
+// buffers are pooled and reused from one parse to the next, rather than
+// allocated per parse.  (They are pooled rather than kept per thread,
+// since virtual threads are not reused.)  A burst of parses may need more
+// of them than the pool keeps, at most one per thread of a fixed pool or
+// one per processor otherwise; the extras are dropped once done, so their
+// grown buffers don't outlive the burst.
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParserService implements AutoCloseable {
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    // at most as many as it was made with room for
+    private final ArrayBlockingQueue<Worker> idleWorkers;
+
+    // everything a parse needs, reused between parses
+    private static class Worker {
+        public final TokenBuffer tokens = new TokenBuffer();
+        public final Parser parser = new Parser(tokens);
+    }
+
+    // the executor is not shut down by close()
+    public ParserService(final ExecutorService executor) {
+        this(executor, false, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParserService(final int numThreads) {
+        this(Executors.newFixedThreadPool(numThreads), true, numThreads);
+    }
+
+    public ParserService() {
+        this(defaultExecutor(), true, Runtime.getRuntime().availableProcessors());
+    }
+
+    private ParserService(final ExecutorService executor,
+                          final boolean ownsExecutor,
+                          final int maxIdleWorkers) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        idleWorkers = new ArrayBlockingQueue<Worker>(maxIdleWorkers);
+    }
+
+    private static ExecutorService defaultExecutor() {
+        try {
+            // looked up reflectively, since we are built for Java 8
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService)method.invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    } // defaultExecutor
+
+    private Worker takeWorker() {
+        final Worker worker = idleWorkers.poll();
+        return (worker != null) ? worker : new Worker();
+    }
+
+    // for tests
+    int numIdleWorkers() {
+        return idleWorkers.size();
+    }
+
+    // the input to one parse: either source text or tokens
+    private Program parse(final Worker worker,
+                          final CharSequence source,
+                          final List<Token> tokens) throws ParseException, TokenizerException {
+        worker.tokens.clear();
+        if (source != null) {
+            new Tokenizer(source).tokenize(worker.tokens);
+        } else {
+            for (final Token token : tokens) {
+                worker.tokens.add(token, -1);
+            }
+        }
+        worker.parser.reset(worker.tokens);
+        return worker.parser.parseProgram();
+    } // parse
+
+    private CompletableFuture<Program> submit(final CharSequence source, final List<Token> tokens) {
+        final CompletableFuture<Program> future = new CompletableFuture<Program>();
+        executor.execute(new Runnable() {
+                public void run() {
+                    final Worker worker = takeWorker();
+                    try {
+                        future.complete(parse(worker, source, tokens));
+                    } catch (final Throwable e) {
+                        future.completeExceptionally(e);
+                    } finally {
+                        // dropped if the pool is full
+                        idleWorkers.offer(worker);
+                    }
+                }
+            });
+        return future;
+    } // submit
+
+    // completes exceptionally with a TokenizerException or ParseException
+    // if the source doesn't tokenize or parse
+    public CompletableFuture<Program> submit(final CharSequence source) {
+        return submit(source, null);
+    }
+
+    // completes exceptionally with a ParseException if the tokens don't parse
+    public CompletableFuture<Program> submitTokens(final List<Token> tokens) {
+        return submit(null, tokens);
+    }
+
+    public List<CompletableFuture<Program>> submitAll(final List<? extends CharSequence> sources) {
+        final List<CompletableFuture<Program>> futures =
+            new ArrayList<CompletableFuture<Program>>(sources.size());
+        for (final CharSequence source : sources) {
+            futures.add(submit(source));
+        }
+        return futures;
+    } // submitAll
+
+    // Parses every source, waiting for them all.  If any fail, throws the
+    // failure of the first in the list which failed.
+    public Program[] parseAll(final List<? extends CharSequence> sources)
+        throws ParseException, TokenizerException, InterruptedException {
+        final List<CompletableFuture<Program>> futures = submitAll(sources);
+        final Program[] programs = new Program[futures.size()];
+        for (int index = 0; index < programs.length; index++) {
+            try {
+                programs[index] = futures.get(index).get();
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof ParseException) {
+                    throw (ParseException)cause;
+                } else if (cause instanceof TokenizerException) {
+                    throw (TokenizerException)cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException)cause;
+                } else {
+                    throw (Error)cause;
+                }
+            }
+        }
+        return programs;
+    } // parseAll
+
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package parser;
 
 public class PlusOp implements Op {
+    public static final PlusOp INSTANCE = new PlusOp();
+
     public boolean equals(final Object other) {
         return other instanceof PlusOp;
     }
@@ -1,6 +1,8 @@
 package parser;
 
 public class PlusToken implements Token {
+    public static final PlusToken INSTANCE = new PlusToken();
+
     public boolean equals(final Object other) {
         return other instanceof PlusToken;
     }
@@ -7,16 +7,17 @@ public class PrintlnStmt implements Stmt {
         this.exp = exp;
     }
 
+    // see Nodes
     public int hashCode() {
-        return exp.hashCode();
+        return Nodes.hash(this);
     }
-    
+
     public boolean equals(final Object other) {
-        return (other instanceof PrintlnStmt &&
-                exp.equals(((PrintlnStmt)other).exp));
+        return (this == other ||
+                (other instanceof PrintlnStmt && Nodes.equal(this, (PrintlnStmt)other)));
     }
 
     public String toString() {
-        return "Println(" + exp.toString() + ")";
+        return Nodes.toString(this);
     }
 }
@@ -1,6 +1,8 @@
 package parser;
 
 public class PrintlnToken implements Token {
+    public static final PrintlnToken INSTANCE = new PrintlnToken();
+
     public boolean equals(final Object other) {
         return other instanceof PrintlnToken;
     }
@@ -2,8 +2,24 @@ package parser;
 
 public class Program implements Node {
     public final Stmt stmt;
+    // hashCode, once computed; 0 if not yet
+    int hash;
 
     public Program(final Stmt stmt) {
         this.stmt = stmt;
     }
+
+    // see Nodes
+    public boolean equals(final Object other) {
+        return (this == other ||
+                (other instanceof Program && Nodes.equal(this, (Program)other)));
+    }
+
+    public int hashCode() {
+        return Nodes.hash(this);
+    }
+
+    public String toString() {
+        return Nodes.toString(this);
+    }
 }
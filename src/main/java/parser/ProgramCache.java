@@ -0,0 +1,94 @@
+package parser;
+
+// Parsed programs kept on disk between runs, in AstWriter's format.  Each
+// program is stored in the cache directory under the SHA-256 hash of its
+// source text, so a changed source is never served from a stale entry.
+// A hit maps the file into memory and reads it with an AstReader; a miss
+// tokenizes and parses, then stores the result.
+//
+// Entries are written to a temporary file and then renamed into place,
+// so processes sharing the directory never see a partly-written entry.
+// An unreadable entry is treated as a miss and rewritten.
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class ProgramCache {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String SUFFIX = ".ast";
+
+    private final Path directory;
+    private final AstReader reader;
+
+    public ProgramCache(final Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        reader = new AstReader();
+    }
+
+    public static String key(final String source) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            // every JVM has SHA-256
+            throw new IllegalStateException(e);
+        }
+        final char[] hex = new char[hash.length * 2];
+        for (int index = 0; index < hash.length; index++) {
+            hex[2 * index] = HEX_DIGITS[(hash[index] >> 4) & 0xF];
+            hex[2 * index + 1] = HEX_DIGITS[hash[index] & 0xF];
+        }
+        return new String(hex);
+    } // key
+
+    public Path path(final String source) {
+        return directory.resolve(key(source) + SUFFIX);
+    }
+
+    // the cached program for this source, or null if there is none
+    public Program get(final String source) {
+        final Path path = path(source);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return reader.read(path);
+        } catch (final IOException e) {
+            return null;
+        }
+    } // get
+
+    public void put(final String source, final Program program) throws IOException {
+        final Path path = path(source);
+        final Path temporary = Files.createTempFile(directory, "tmp", SUFFIX);
+        try {
+            final OutputStream out = Files.newOutputStream(temporary);
+            try {
+                new AstWriter(out).write(program);
+            } finally {
+                out.close();
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    } // put
+
+    // the program for this source: from the cache if there, otherwise
+    // parsed and then cached
+    public Program load(final String source) throws IOException, ParseException, TokenizerException {
+        Program program = get(source);
+        if (program == null) {
+            program = new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram();
+            put(source, program);
+        }
+        return program;
+    } // load
+}
@@ -0,0 +1,232 @@
+package parser;
+
+// Generates random, syntactically valid programs, for benchmarking and
+// stress testing.  A program is a block of `numStmts` statements:
+//
+// stmt ::= if (exp) stmt else stmt | { stmt* } | println(exp);
+// exp ::= primary_exp (op primary_exp)*, with op any of + - < ==
+// primary_exp ::= x | i | `(` exp `)`
+//
+// The knobs:
+// - seed: the same seed and knobs always give the same program
+// - maxDepth: how deeply statements nest, below the top-level block
+// - maxWidth: the most statements in a nested block
+// - maxExpLength: the most operators in one (un-parenthesized) expression
+// - numVariables: how many distinct variable names are used
+//
+// Output is streamed out as it is generated, so the program is never in
+// memory: numStmts is a long, and the output can be as large as the
+// receiving end can take.  Statements are generated with an explicit
+// stack, so maxDepth is not limited by the Java stack.  Parenthesized
+// expressions nest at most MAX_PAREN_DEPTH deep.
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+public class ProgramGenerator {
+    private static final int MAX_PAREN_DEPTH = 3;
+    private static final int MAX_INTEGER = 1000;
+
+    // entries on the statement work stack
+    private static final int TASK_STMT = 0; // depth is stored alongside
+    private static final int TASK_ELSE = 1;
+    private static final int TASK_RIGHT_CURLY = 2;
+
+    private final long seed;
+    private final int maxDepth;
+    private final int maxWidth;
+    private final int maxExpLength;
+    private final int numVariables;
+
+    // wherever the generated tokens go
+    private interface TokenSink {
+        // value is the integer for INTEGER, the variable number for VARIABLE
+        public void token(int kind, int value) throws IOException;
+    }
+
+    public ProgramGenerator(final long seed,
+                            final int maxDepth,
+                            final int maxWidth,
+                            final int maxExpLength,
+                            final int numVariables) {
+        if (maxDepth < 0 || maxWidth < 0 || maxExpLength < 0 || numVariables <= 0) {
+            throw new IllegalArgumentException("Invalid generator settings");
+        }
+        this.seed = seed;
+        this.maxDepth = maxDepth;
+        this.maxWidth = maxWidth;
+        this.maxExpLength = maxExpLength;
+        this.numVariables = numVariables;
+    }
+
+    public static String variableName(final int variable) {
+        return "x" + variable;
+    }
+
+    public void generate(final long numStmts, final TokenBuffer buffer) {
+        final int[] nameIndices = new int[numVariables];
+        for (int variable = 0; variable < numVariables; variable++) {
+            nameIndices[variable] = buffer.nameIndex(variableName(variable));
+        }
+        try {
+            generate(numStmts, new TokenSink() {
+                    public void token(final int kind, final int value) {
+                        if (kind == TokenKind.VARIABLE) {
+                            buffer.add(kind, nameIndices[value], -1);
+                        } else {
+                            buffer.add(kind, value, -1);
+                        }
+                    }
+                });
+        } catch (final IOException e) {
+            // TokenBuffer does no I/O
+            throw new IllegalStateException(e);
+        }
+    } // generate
+
+    public void generate(final long numStmts, final Consumer<Token> consumer) {
+        final VariableToken[] variables = new VariableToken[numVariables];
+        for (int variable = 0; variable < numVariables; variable++) {
+            variables[variable] = new VariableToken(variableName(variable));
+        }
+        try {
+            generate(numStmts, new TokenSink() {
+                    public void token(final int kind, final int value) {
+                        if (kind == TokenKind.VARIABLE) {
+                            consumer.accept(variables[value]);
+                        } else if (kind == TokenKind.INTEGER) {
+                            consumer.accept(IntegerToken.valueOf(value));
+                        } else {
+                            consumer.accept(TokenKind.sharedToken(kind));
+                        }
+                    }
+                });
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    } // generate
+
+    // writes source text which the Tokenizer turns back into the same tokens
+    public void generateSource(final long numStmts, final Appendable out) throws IOException {
+        generate(numStmts, new TokenSink() {
+                public void token(final int kind, final int value) throws IOException {
+                    switch (kind) {
+                    case TokenKind.IF: out.append("if "); break;
+                    case TokenKind.ELSE: out.append(" else "); break;
+                    case TokenKind.PRINTLN: out.append("println"); break;
+                    case TokenKind.VARIABLE: out.append('x').append(Integer.toString(value)); break;
+                    case TokenKind.INTEGER: out.append(Integer.toString(value)); break;
+                    case TokenKind.PLUS: out.append(" + "); break;
+                    case TokenKind.MINUS: out.append(" - "); break;
+                    case TokenKind.LESS_THAN: out.append(" < "); break;
+                    case TokenKind.EQUALS: out.append(" == "); break;
+                    case TokenKind.LEFT_PAREN: out.append('('); break;
+                    case TokenKind.RIGHT_PAREN: out.append(')'); break;
+                    case TokenKind.LEFT_CURLY: out.append("{\n"); break;
+                    case TokenKind.RIGHT_CURLY: out.append("}\n"); break;
+                    default: out.append(";\n"); break;
+                    }
+                }
+            });
+    } // generateSource
+
+    private void generate(final long numStmts, final TokenSink sink) throws IOException {
+        final Random random = new Random(seed);
+        sink.token(TokenKind.LEFT_CURLY, 0);
+        for (long index = 0; index < numStmts; index++) {
+            generateStmt(random, sink);
+        }
+        sink.token(TokenKind.RIGHT_CURLY, 0);
+    } // generate
+
+    private void generateStmt(final Random random, final TokenSink sink) throws IOException {
+        // pairs of (task, depth), used as a stack
+        int[] tasks = new int[16];
+        int numTasks = 0;
+        tasks[numTasks++] = TASK_STMT;
+        tasks[numTasks++] = maxDepth;
+
+        while (numTasks > 0) {
+            final int depth = tasks[--numTasks];
+            final int task = tasks[--numTasks];
+            if (task == TASK_ELSE) {
+                sink.token(TokenKind.ELSE, 0);
+                continue;
+            } else if (task == TASK_RIGHT_CURLY) {
+                sink.token(TokenKind.RIGHT_CURLY, 0);
+                continue;
+            }
+
+            // make sure there's room for the most we push below
+            final int needed = numTasks + 2 * (maxWidth + 3);
+            if (needed > tasks.length) {
+                tasks = Arrays.copyOf(tasks, Math.max(needed, tasks.length * 2));
+            }
+
+            final int choice = (depth == 0) ? 2 : random.nextInt(3);
+            if (choice == 0) {
+                // if (exp) stmt else stmt; pushed in reverse
+                sink.token(TokenKind.IF, 0);
+                sink.token(TokenKind.LEFT_PAREN, 0);
+                generateExp(random, sink, MAX_PAREN_DEPTH);
+                sink.token(TokenKind.RIGHT_PAREN, 0);
+                tasks[numTasks++] = TASK_STMT;
+                tasks[numTasks++] = depth - 1;
+                tasks[numTasks++] = TASK_ELSE;
+                tasks[numTasks++] = depth;
+                tasks[numTasks++] = TASK_STMT;
+                tasks[numTasks++] = depth - 1;
+            } else if (choice == 1) {
+                // { stmt* }
+                sink.token(TokenKind.LEFT_CURLY, 0);
+                tasks[numTasks++] = TASK_RIGHT_CURLY;
+                tasks[numTasks++] = depth;
+                final int width = random.nextInt(maxWidth + 1);
+                for (int index = 0; index < width; index++) {
+                    tasks[numTasks++] = TASK_STMT;
+                    tasks[numTasks++] = depth - 1;
+                }
+            } else {
+                // println(exp);
+                sink.token(TokenKind.PRINTLN, 0);
+                sink.token(TokenKind.LEFT_PAREN, 0);
+                generateExp(random, sink, MAX_PAREN_DEPTH);
+                sink.token(TokenKind.RIGHT_PAREN, 0);
+                sink.token(TokenKind.SEMICOLON, 0);
+            }
+        }
+    } // generateStmt
+
+    private void generatePrimaryExp(final Random random,
+                                    final TokenSink sink,
+                                    final int parenDepth) throws IOException {
+        final int choice = random.nextInt(8);
+        if (choice == 0 && parenDepth > 0) {
+            sink.token(TokenKind.LEFT_PAREN, 0);
+            generateExp(random, sink, parenDepth - 1);
+            sink.token(TokenKind.RIGHT_PAREN, 0);
+        } else if (choice < 5) {
+            sink.token(TokenKind.VARIABLE, random.nextInt(numVariables));
+        } else {
+            sink.token(TokenKind.INTEGER, random.nextInt(MAX_INTEGER));
+        }
+    } // generatePrimaryExp
+
+    private void generateExp(final Random random,
+                             final TokenSink sink,
+                             final int parenDepth) throws IOException {
+        generatePrimaryExp(random, sink, parenDepth);
+        final int length = random.nextInt(maxExpLength + 1);
+        for (int index = 0; index < length; index++) {
+            switch (random.nextInt(4)) {
+            case 0: sink.token(TokenKind.PLUS, 0); break;
+            case 1: sink.token(TokenKind.MINUS, 0); break;
+            case 2: sink.token(TokenKind.LESS_THAN, 0); break;
+            default: sink.token(TokenKind.EQUALS, 0); break;
+            }
+            generatePrimaryExp(random, sink, parenDepth);
+        }
+    } // generateExp
+}
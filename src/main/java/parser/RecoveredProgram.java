@@ -0,0 +1,24 @@
+package parser;
+
+// The result of Parser.parseProgramRecovering: the program as far as it
+// could be made out, and every syntax error found on the way, in order of
+// position.  Statements which failed to parse are left out of the
+// program; if there are no diagnostics, it is exactly what parseProgram
+// would have returned.
+
+import java.util.List;
+
+public class RecoveredProgram {
+    public final Program program;
+    public final List<Diagnostic> diagnostics;
+
+    public RecoveredProgram(final Program program,
+                            final List<Diagnostic> diagnostics) {
+        this.program = program;
+        this.diagnostics = diagnostics;
+    }
+
+    public boolean hasErrors() {
+        return !diagnostics.isEmpty();
+    }
+}
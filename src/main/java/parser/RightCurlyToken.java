@@ -1,6 +1,8 @@
 package parser;
 
 public class RightCurlyToken implements Token {
+    public static final RightCurlyToken INSTANCE = new RightCurlyToken();
+
     public boolean equals(final Object other) {
         return other instanceof RightCurlyToken;
     }
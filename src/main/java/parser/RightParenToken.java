@@ -1,6 +1,8 @@
 package parser;
 
 public class RightParenToken implements Token {
+    public static final RightParenToken INSTANCE = new RightParenToken();
+
     public boolean equals(final Object other) {
         return other instanceof RightParenToken;
     }
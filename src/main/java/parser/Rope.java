@@ -0,0 +1,382 @@
+package parser;
+
+// A list which can't be changed, but from which a changed copy can be
+// made cheaply: with and replace share all but O(log n) of the old list's
+// structure, rather than copying it, and leave the old list as it was.
+// IncrementalParser keeps its tokens, and the children in its span tree,
+// in Ropes, so that an edit takes time in the size of the edit, not of
+// the program.
+//
+// Each item also has a weight, 1 unless given, and the Rope keeps sums of
+// the weights, so that the total weight of the items before an index, and
+// the item at a given total weight, are O(log n) to find as well.
+//
+// It's a treap: a binary tree, in list order, which is also a heap on
+// random priorities, so that it is balanced with high probability.  Each
+// tree node holds a run of up to a few dozen items, which keeps the tree
+// small; get remembers the last run it found, so that reading the items
+// in order costs O(1) apiece.
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class Rope<E> extends AbstractList<E> {
+    private static final int RUN_SIZE = 32;
+
+    // a run of items, and the runs before and after it
+    private static class Node {
+        public final Object[] items;
+        // each item's weight, or null if they are all 1
+        public final int[] weights;
+        public final int itemsWeight;
+        public final int priority;
+        public final Node left;
+        public final Node right;
+        // of the whole subtree
+        public final int size;
+        public final int weight;
+
+        public Node(final Object[] items,
+                    final int[] weights,
+                    final int itemsWeight,
+                    final int priority,
+                    final Node left,
+                    final Node right) {
+            this.items = items;
+            this.weights = weights;
+            this.itemsWeight = itemsWeight;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            size = size(left) + items.length + size(right);
+            weight = weight(left) + itemsWeight + weight(right);
+        }
+
+        public Node with(final Node left, final Node right) {
+            return new Node(items, weights, itemsWeight, priority, left, right);
+        }
+
+        public int itemWeight(final int index) {
+            return (weights == null) ? 1 : weights[index];
+        }
+
+        // of items [0, count)
+        public int weightBefore(final int count) {
+            if (weights == null) {
+                return count;
+            }
+            int total = 0;
+            for (int index = 0; index < count; index++) {
+                total += weights[index];
+            }
+            return total;
+        }
+    }
+
+    // a run, and the index of its first item
+    private static class Finger {
+        public final Node node;
+        public final int start;
+
+        public Finger(final Node node, final int start) {
+            this.node = node;
+            this.start = start;
+        }
+    }
+
+    private final Node root;
+    // where get last looked; a race just means looking again
+    private Finger finger;
+
+    private Rope(final Node root) {
+        this.root = root;
+    }
+
+    private static int size(final Node node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    private static int weight(final Node node) {
+        return (node == null) ? 0 : node.weight;
+    }
+
+    private static int sum(final int[] weights) {
+        int total = 0;
+        for (final int weight : weights) {
+            total += weight;
+        }
+        return total;
+    }
+
+    public static <E> Rope<E> empty() {
+        return new Rope<E>(null);
+    }
+
+    // the items, each of weight 1; a Rope is returned as it is
+    @SuppressWarnings("unchecked")
+    public static <E> Rope<E> of(final List<? extends E> items) {
+        if (items instanceof Rope) {
+            return (Rope<E>)items;
+        }
+        return new Rope<E>(build(items, null));
+    }
+
+    // the items, with weights[i] the weight of items.get(i)
+    public static <E> Rope<E> of(final List<? extends E> items, final int[] weights) {
+        return new Rope<E>(build(items, weights));
+    }
+
+    private static Node build(final List<?> items, final int[] weights) {
+        Node root = null;
+        final int size = items.size();
+        for (int start = 0; start < size; start += RUN_SIZE) {
+            final int end = Math.min(start + RUN_SIZE, size);
+            final Object[] run = items.subList(start, end).toArray();
+            final int[] runWeights = (weights == null) ? null : Arrays.copyOfRange(weights, start, end);
+            root = merge(root, new Node(run,
+                                        runWeights,
+                                        (weights == null) ? run.length : sum(runWeights),
+                                        ThreadLocalRandom.current().nextInt(),
+                                        null,
+                                        null));
+        }
+        return root;
+    } // build
+
+    // left's items followed by right's
+    private static Node merge(final Node left, final Node right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        } else if (left.priority >= right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        } else {
+            return right.with(merge(left, right.left), right.right);
+        }
+    }
+
+    // node's items [from, to), as a node with the given sub-trees; it
+    // keeps node's priority, which is no lower than theirs
+    private static Node run(final Node node,
+                            final int from,
+                            final int to,
+                            final Node left,
+                            final Node right) {
+        final int[] weights = (node.weights == null) ? null : Arrays.copyOfRange(node.weights, from, to);
+        return new Node(Arrays.copyOfRange(node.items, from, to),
+                        weights,
+                        (weights == null) ? to - from : sum(weights),
+                        node.priority,
+                        left,
+                        right);
+    }
+
+    // node's first index items, and the rest
+    private static Node[] split(final Node node, final int index) {
+        if (index <= 0) {
+            return new Node[] {null, node};
+        } else if (index >= size(node)) {
+            return new Node[] {node, null};
+        }
+        final int leftSize = size(node.left);
+        final int runEnd = leftSize + node.items.length;
+        if (index <= leftSize) {
+            final Node[] parts = split(node.left, index);
+            parts[1] = node.with(parts[1], node.right);
+            return parts;
+        } else if (index >= runEnd) {
+            final Node[] parts = split(node.right, index - runEnd);
+            parts[0] = node.with(node.left, parts[0]);
+            return parts;
+        } else {
+            final int cut = index - leftSize;
+            return new Node[] {run(node, 0, cut, node.left, null),
+                               run(node, cut, node.items.length, null, node.right)};
+        }
+    } // split
+
+    // the run holding item index
+    private Finger find(final int index) {
+        final Finger last = finger;
+        if (last != null && index >= last.start && index < last.start + last.node.items.length) {
+            return last;
+        }
+        Node node = root;
+        int start = 0;
+        while (true) {
+            final int leftSize = size(node.left);
+            if (index < start + leftSize) {
+                node = node.left;
+            } else if (index < start + leftSize + node.items.length) {
+                finger = new Finger(node, start + leftSize);
+                return finger;
+            } else {
+                start += leftSize + node.items.length;
+                node = node.right;
+            }
+        }
+    } // find
+
+    // node, with the run starting at runStart made up of the given items
+    private static Node withRun(final Node node,
+                                final int runStart,
+                                final Object[] items,
+                                final int[] weights,
+                                final int itemsWeight) {
+        final int leftSize = size(node.left);
+        if (runStart < leftSize) {
+            return node.with(withRun(node.left, runStart, items, weights, itemsWeight), node.right);
+        } else if (runStart == leftSize) {
+            return new Node(items, weights, itemsWeight, node.priority, node.left, node.right);
+        } else {
+            return node.with(node.left,
+                             withRun(node.right, runStart - leftSize - node.items.length,
+                                     items, weights, itemsWeight));
+        }
+    }
+
+    private void checkIndex(final int index, final int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(final int index) {
+        checkIndex(index, size());
+        final Finger run = find(index);
+        return (E)run.node.items[index - run.start];
+    }
+
+    public int weight(final int index) {
+        checkIndex(index, size());
+        final Finger run = find(index);
+        return run.node.itemWeight(index - run.start);
+    }
+
+    // the total weight of items [0, index)
+    public int weightBefore(final int index) {
+        Node node = root;
+        int remaining = index;
+        int total = 0;
+        while (node != null && remaining > 0) {
+            final int leftSize = size(node.left);
+            if (remaining <= leftSize) {
+                node = node.left;
+            } else {
+                total += weight(node.left);
+                remaining -= leftSize;
+                if (remaining <= node.items.length) {
+                    return total + node.weightBefore(remaining);
+                }
+                total += node.itemsWeight;
+                remaining -= node.items.length;
+                node = node.right;
+            }
+        }
+        return total;
+    } // weightBefore
+
+    // the first index whose item takes the total weight past weight, or
+    // size() if the whole Rope weighs no more than that
+    public int indexAtWeight(final int weight) {
+        Node node = root;
+        int remaining = weight;
+        int index = 0;
+        while (node != null) {
+            final int leftWeight = weight(node.left);
+            if (remaining < leftWeight) {
+                node = node.left;
+            } else {
+                remaining -= leftWeight;
+                index += size(node.left);
+                if (remaining < node.itemsWeight) {
+                    int item = 0;
+                    while (remaining >= node.itemWeight(item)) {
+                        remaining -= node.itemWeight(item);
+                        item++;
+                    }
+                    return index + item;
+                }
+                remaining -= node.itemsWeight;
+                index += node.items.length;
+                node = node.right;
+            }
+        }
+        return index;
+    } // indexAtWeight
+
+    // this list, with item at index, keeping the old item's weight
+    public Rope<E> with(final int index, final E item) {
+        return with(index, item, weight(index));
+    }
+
+    // this list, with item of the given weight at index
+    public Rope<E> with(final int index, final E item, final int weight) {
+        checkIndex(index, size());
+        final Finger run = find(index);
+        final Node node = run.node;
+        final int offset = index - run.start;
+        final Object[] items = node.items.clone();
+        items[offset] = item;
+        int[] weights = node.weights;
+        if (weights != null || weight != 1) {
+            if (weights == null) {
+                weights = new int[items.length];
+                Arrays.fill(weights, 1);
+            } else {
+                weights = weights.clone();
+            }
+            weights[offset] = weight;
+        }
+        return new Rope<E>(withRun(root, run.start, items, weights,
+                                   node.itemsWeight - node.itemWeight(offset) + weight));
+    } // with
+
+    // this list, with items [from, to) replaced by the given items, each of
+    // weight 1
+    public Rope<E> replace(final int from, final int to, final List<? extends E> items) {
+        final int size = size();
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("Range " + from + " to " + to + " of " + size);
+        }
+        if (from < size) {
+            // within one run, and leaving it no more than twice as long:
+            // just copy that run
+            final Finger run = find(from);
+            final Node node = run.node;
+            final int runFrom = from - run.start;
+            final int runTo = to - run.start;
+            final int length = node.items.length - (runTo - runFrom) + items.size();
+            if (runTo <= node.items.length && length > 0 && length <= 2 * RUN_SIZE) {
+                final Object[] newItems = new Object[length];
+                System.arraycopy(node.items, 0, newItems, 0, runFrom);
+                for (int index = 0; index < items.size(); index++) {
+                    newItems[runFrom + index] = items.get(index);
+                }
+                System.arraycopy(node.items, runTo, newItems, runFrom + items.size(),
+                                 node.items.length - runTo);
+                int[] newWeights = null;
+                if (node.weights != null) {
+                    newWeights = new int[length];
+                    System.arraycopy(node.weights, 0, newWeights, 0, runFrom);
+                    Arrays.fill(newWeights, runFrom, runFrom + items.size(), 1);
+                    System.arraycopy(node.weights, runTo, newWeights, runFrom + items.size(),
+                                     node.weights.length - runTo);
+                }
+                return new Rope<E>(withRun(root, run.start, newItems, newWeights,
+                                           (newWeights == null) ? length : sum(newWeights)));
+            }
+        }
+        final Node[] before = split(root, from);
+        final Node[] after = split(before[1], to - from);
+        return new Rope<E>(merge(merge(before[0], build(items, null)), after[1]));
+    } // replace
+}
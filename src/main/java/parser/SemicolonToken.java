@@ -1,6 +1,8 @@
 package parser;
 
 public class SemicolonToken implements Token {
+    public static final SemicolonToken INSTANCE = new SemicolonToken();
+
     public boolean equals(final Object other) {
         return other instanceof SemicolonToken;
     }
@@ -0,0 +1,31 @@
+package parser;
+
+// A span packed into one long: the start in the high 32 bits and the
+// length in the low 32.  Used for tokens (token position and number of
+// tokens, as in a SpanTable); character offsets are longs, kept as a
+// TokenBuffer keeps them.  A start of -1 means unknown.
+public final class Span {
+    public static final long NONE = pack(-1, 0);
+
+    private Span() {}
+
+    public static long pack(final int start, final int length) {
+        return ((long)start << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    public static int start(final long span) {
+        return (int)(span >> 32);
+    }
+
+    public static int length(final long span) {
+        return (int)span;
+    }
+
+    public static int end(final long span) {
+        return start(span) + length(span);
+    }
+
+    public static String toString(final long span) {
+        return "[" + start(span) + ", " + end(span) + ")";
+    }
+}
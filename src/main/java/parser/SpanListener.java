@@ -0,0 +1,9 @@
+package parser;
+
+// Told about every statement the parser builds, along with the tokens it
+// came from: positions [start, end) in the parser's input.  Statements
+// are reported in the order they are completed, so a statement's
+// sub-statements are always reported before it.
+public interface SpanListener {
+    public void stmtParsed(Stmt stmt, int start, int end);
+}
@@ -0,0 +1,175 @@
+package parser;
+
+// The token span of each statement and OpExp a Parser builds, kept off to
+// the side so that nodes carry no position fields: parsing without a
+// SpanTable costs nothing extra.  Spans are token positions [start, end)
+// packed into a long (see Span); TokenBuffer.sourceStart and sourceEnd
+// turn them into character offsets.  An OpExp's span doesn't include parentheses around
+// it.
+//
+// The spans are kept densely, in the order the parser finishes the
+// nodes: a node's sub-nodes, left to right, then the node.  That is the
+// order a TreeWalker leaves them in, so span i belongs to the node of the
+// i-th leave call in a walk of the parsed tree.  Nothing else ties a node
+// to its span, so a span takes just its 8 bytes (up to 12 while the
+// array has room to grow).  get(i) is the O(1) lookup: to find the spans
+// of many nodes, walk the tree once, counting leave calls.  get(root,
+// node) does a walk for one node, so is O(n).
+//
+// A table holds the spans of one parse, so clear it before the next.  The
+// spans are only right for the very tree that parse returned: the
+// Optimizer, or an IncrementalParser edit, makes a new tree, whose nodes
+// are in different places.  So get(root, node) only takes the parsed
+// tree, which getRoot gives.
+//
+// Leaves (IntegerExp, VariableExp) are shared between uses, so they have
+// no span of their own; the token they came from has one.  A subtree
+// shared by a HashConsingNodeFactory has spans for each use, as a walk
+// goes into it once per use.  An empty block made up by the parser in
+// place of a statement it couldn't parse (see
+// Parser.parseProgramRecovering) has the span Span.NONE.
+
+import java.util.Arrays;
+
+public class SpanTable {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private long[] spans;
+    private int size;
+    // the tree of the parse the spans were recorded for, once it is done
+    private Node root;
+
+    public SpanTable() {
+        spans = new long[INITIAL_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        root = null;
+    }
+
+    // the statement or expression the spans belong to, or null while
+    // nothing has been parsed
+    public Node getRoot() {
+        return root;
+    }
+
+    // for the parser, as a parse finishes
+    void setRoot(final Node root) {
+        this.root = root;
+    }
+
+    // records the span of the next node finished: tokens [start, end), or
+    // none if start is -1
+    public void add(final int start, final int end) {
+        if (size == spans.length) {
+            spans = Arrays.copyOf(spans, size + size / 2);
+        }
+        spans[size++] = (start < 0) ? Span.NONE : Span.pack(start, end - start);
+    }
+
+    // drops every span from the index-th on; for the parser, when it gives
+    // up on a statement whose expressions it had finished
+    void truncate(final int index) {
+        size = index;
+    }
+
+    // the span of the index-th node finished
+    public long get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Span " + index + " of " + size);
+        }
+        return spans[index];
+    }
+
+    // the position of the index-th node's first token, or -1
+    public int start(final int index) {
+        return Span.start(get(index));
+    }
+
+    // the position after the index-th node's last token, or -1
+    public int end(final int index) {
+        final long span = get(index);
+        return (span == Span.NONE) ? -1 : Span.end(span);
+    }
+
+    // counts leave calls up to node's
+    private static class Finder extends EmptyVisitor {
+        private final Node node;
+        public int index;
+        public boolean found;
+
+        public Finder(final Node node) {
+            this.node = node;
+        }
+
+        private boolean enter() {
+            return !found;
+        }
+
+        private void leave(final Node left) {
+            if (!found) {
+                if (left == node) {
+                    found = true;
+                } else {
+                    index++;
+                }
+            }
+        }
+
+        public boolean enterOpExp(final OpExp exp) {
+            return enter();
+        }
+
+        public void leaveOpExp(final OpExp exp) {
+            leave(exp);
+        }
+
+        public boolean enterPrintlnStmt(final PrintlnStmt stmt) {
+            return enter();
+        }
+
+        public void leavePrintlnStmt(final PrintlnStmt stmt) {
+            leave(stmt);
+        }
+
+        public boolean enterIfStmt(final IfStmt stmt) {
+            return enter();
+        }
+
+        public void leaveIfStmt(final IfStmt stmt) {
+            leave(stmt);
+        }
+
+        public boolean enterBlockStmt(final BlockStmt stmt) {
+            return enter();
+        }
+
+        public void leaveBlockStmt(final BlockStmt stmt) {
+            leave(stmt);
+        }
+    }
+
+    // The span of node, a statement or OpExp in the tree root the spans
+    // were recorded for, or Span.NONE if node has none.  This walks root
+    // up to node, so to find the spans of many nodes, walk the tree once
+    // and count leave calls instead.  Any tree but the one parsed (or the
+    // Program around it) is refused.
+    public long get(final Node root, final Node node) {
+        final Node tree = (root instanceof Program) ? ((Program)root).stmt : root;
+        if (tree != this.root) {
+            throw new IllegalArgumentException("These spans were recorded for a different tree");
+        }
+        final Finder finder = new Finder(node);
+        if (root instanceof Program) {
+            new TreeWalker().walk((Program)root, finder);
+        } else {
+            new TreeWalker().walk(root, finder);
+        }
+        return (finder.found && finder.index < size) ? spans[finder.index] : Span.NONE;
+    } // get
+}
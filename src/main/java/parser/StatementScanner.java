@@ -0,0 +1,93 @@
+package parser;
+
+// Finds where a statement ends, looking only at token kinds and without
+// building anything.  Tokens are fed in one at a time; feed returns true
+// for the token which completes the statement.
+//
+// We count how many statements are still needed before the one we started
+// is complete: an `if` needs two more (its branches) in place of itself;
+// a block or println completes one.  Within a block, only the braces
+// matter, and within parentheses, only the parentheses.
+//
+// This trusts that the input is well-formed; for malformed input it
+// still stops somewhere, but the statement it delimits won't parse.
+public class StatementScanner {
+    private int pending;
+    private int curlyDepth;
+    private int parenDepth;
+    private boolean inIfGuard;
+    private boolean awaitingSemicolon;
+
+    public StatementScanner() {
+        reset();
+    }
+
+    // gets ready for the start of a new statement
+    public void reset() {
+        pending = 1;
+        curlyDepth = 0;
+        parenDepth = 0;
+        inIfGuard = false;
+        awaitingSemicolon = false;
+    }
+
+    private boolean complete() {
+        pending--;
+        return pending == 0;
+    }
+
+    public boolean feed(final int kind) {
+        if (curlyDepth > 0) {
+            if (kind == TokenKind.LEFT_CURLY) {
+                curlyDepth++;
+            } else if (kind == TokenKind.RIGHT_CURLY) {
+                curlyDepth--;
+                if (curlyDepth == 0) {
+                    return complete();
+                }
+            }
+            return false;
+        } else if (parenDepth > 0) {
+            if (kind == TokenKind.LEFT_PAREN) {
+                parenDepth++;
+            } else if (kind == TokenKind.RIGHT_PAREN) {
+                parenDepth--;
+                if (parenDepth == 0) {
+                    if (inIfGuard) {
+                        // the if becomes its two branches
+                        inIfGuard = false;
+                        pending++;
+                    } else {
+                        awaitingSemicolon = true;
+                    }
+                }
+            }
+            return false;
+        } else if (awaitingSemicolon) {
+            // anything other than `;` is a syntax error, which the parser
+            // will report
+            awaitingSemicolon = false;
+            return complete();
+        }
+
+        switch (kind) {
+        case TokenKind.IF:
+            inIfGuard = true;
+            return false;
+        case TokenKind.PRINTLN:
+            inIfGuard = false;
+            return false;
+        case TokenKind.LEFT_PAREN:
+            parenDepth = 1;
+            return false;
+        case TokenKind.LEFT_CURLY:
+            curlyDepth = 1;
+            return false;
+        case TokenKind.ELSE:
+            return false;
+        default:
+            // not the start of a statement: a syntax error
+            return complete();
+        }
+    } // feed
+}
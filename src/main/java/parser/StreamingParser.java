@@ -0,0 +1,192 @@
+package parser;
+
+// Parses a program a top-level statement at a time, straight from a
+// Tokenizer, for programs too big to hold whole, such as a long
+// append-only block of statements.  nextStmt reads just the tokens of the
+// next statement (a StatementScanner finds where it ends) into a reused
+// TokenBuffer, parses them, and hands the statement over; nothing here
+// refers to it afterwards.  So memory use is bounded by the largest
+// statement, plus each distinct variable name, rather than by the size
+// of the input.
+//
+// The statements are those of the top-level block; a program which isn't
+// a block is a single statement.  Errors are those Parser.parseProgram
+// would give, with the location added to the message.  A ParseException's
+// position counts tokens from the start of the input.
+//
+// It is also an Iterator, and gives a Spliterator for streams; there,
+// errors are thrown as UncheckedParseException.
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+public class StreamingParser implements Iterator<Stmt> {
+    // where we are in the program
+    private static final int START = 0;
+    private static final int IN_BLOCK = 1;
+    // after the last statement, before the end of the input
+    private static final int AT_END = 2;
+    private static final int DONE = 3;
+
+    private final Tokenizer tokenizer;
+    // the tokens of the current statement
+    private final TokenBuffer tokens;
+    private final Parser parser;
+    private final StatementScanner scanner;
+    private int state;
+    // the number of tokens read before the current statement, and the
+    // offset just after the last of them (-1 if none, or unknown)
+    private int numTokensBefore;
+    private long endOffset;
+    // read ahead by hasNext
+    private Stmt nextStmt;
+
+    public StreamingParser(final Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+        tokens = new TokenBuffer();
+        parser = new Parser(tokens);
+        scanner = new StatementScanner();
+        state = START;
+        endOffset = -1;
+    }
+
+    // drops the tokens read so far, and the lines they were on
+    private void startStmt() {
+        final int size = tokens.size();
+        if (size > 0) {
+            numTokensBefore += size;
+            endOffset = tokens.endOffset(size - 1);
+            if (endOffset >= 0) {
+                tokenizer.getLineIndex().discardBefore(endOffset);
+            }
+            tokens.clearTokens();
+        }
+    }
+
+    // as TokenBuffer.location; with no tokens read for this statement, the
+    // end of the input is just after the last statement's
+    private String location(final int position) {
+        if (tokens.size() == 0 && endOffset >= 0) {
+            final LineIndex lineIndex = tokenizer.getLineIndex();
+            return "line " + lineIndex.line(endOffset) + ", column " + lineIndex.column(endOffset);
+        }
+        return tokens.location(position);
+    }
+
+    private String describeToken(final int position) {
+        return (position < tokens.size()) ?
+            tokens.getToken(position).toString() :
+            "end of input";
+    }
+
+    private ParseException failure(final int position, final String expected) {
+        return new ParseException("expected: " + expected + "; received: " +
+                                  describeToken(position) + " at " + location(position),
+                                  numTokensBefore + position);
+    }
+
+    // parses the tokens read in as a statement
+    private Stmt parseStmt() throws ParseException {
+        final ParseResult<Stmt> result;
+        try {
+            result = parser.parseStmt(0);
+        } catch (final ParseException e) {
+            throw new ParseException(e.getMessage() + " at " + location(e.position),
+                                     numTokensBefore + e.position);
+        }
+        if (result.position != tokens.size()) {
+            // the scanner saw more of the statement than the parser did
+            throw failure(result.position, "end of statement");
+        }
+        return result.result;
+    } // parseStmt
+
+    // the next top-level statement, or null after the last; after an
+    // error, there are no more
+    public Stmt nextStmt() throws ParseException, TokenizerException {
+        if (nextStmt != null) {
+            final Stmt stmt = nextStmt;
+            nextStmt = null;
+            return stmt;
+        }
+        if (state == DONE) {
+            return null;
+        }
+        boolean failed = true;
+        try {
+            final Stmt stmt = readStmt();
+            failed = false;
+            return stmt;
+        } finally {
+            if (failed) {
+                state = DONE;
+            }
+        }
+    } // nextStmt
+
+    private Stmt readStmt() throws ParseException, TokenizerException {
+        startStmt();
+        int kind = tokenizer.next(tokens);
+        if (state == START && kind == TokenKind.LEFT_CURLY) {
+            state = IN_BLOCK;
+            startStmt();
+            kind = tokenizer.next(tokens);
+        }
+        if (state == IN_BLOCK) {
+            if (kind == TokenKind.RIGHT_CURLY) {
+                state = AT_END;
+                startStmt();
+                kind = tokenizer.next(tokens);
+            } else if (kind == TokenKind.NONE) {
+                throw failure(0, TokenKind.sharedToken(TokenKind.RIGHT_CURLY).toString());
+            }
+        }
+        if (state == AT_END) {
+            if (kind != TokenKind.NONE) {
+                throw failure(0, "end of input");
+            }
+            state = DONE;
+            return null;
+        }
+
+        // a statement of the block, or the whole program; at the end of
+        // the input, parseStmt reports what is missing
+        scanner.reset();
+        while (kind != TokenKind.NONE && !scanner.feed(kind)) {
+            kind = tokenizer.next(tokens);
+        }
+        final Stmt stmt = parseStmt();
+        if (state == START) {
+            state = AT_END;
+        }
+        return stmt;
+    } // readStmt
+
+    public boolean hasNext() {
+        if (nextStmt == null && state != DONE) {
+            try {
+                nextStmt = nextStmt();
+            } catch (final ParseException e) {
+                throw new UncheckedParseException(e);
+            } catch (final TokenizerException e) {
+                throw new UncheckedParseException(e);
+            }
+        }
+        return nextStmt != null;
+    }
+
+    public Stmt next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Stmt stmt = nextStmt;
+        nextStmt = null;
+        return stmt;
+    }
+
+    public Spliterator<Stmt> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+}
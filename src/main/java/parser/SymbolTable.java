@@ -0,0 +1,132 @@
+package parser;
+
+// Interns identifiers as small int ids, numbered from 0 in the order they
+// are first seen.  An identifier is looked up straight from the chars it
+// was scanned into, with a hash computed while scanning, so seeing a name
+// again allocates nothing; two names are the same exactly when their ids
+// are.
+//
+// The characters of every name are kept back to back in one char array.
+// A name's String is only made when name(id) is first called, then kept.
+// That is safe from several threads once interning is done: two threads
+// may each make the String, but they are equal, and either will do.
+//
+// Ids are kept in an open-addressing table with linear probing.
+
+import java.util.Arrays;
+
+public class SymbolTable {
+    private static final int INITIAL_CAPACITY = 64; // must be a power of 2
+
+    // the characters of name id are chars[starts[id]] to chars[starts[id + 1]]
+    private char[] chars;
+    private int[] starts;
+    private int[] hashes;
+    private String[] strings;
+    private int size;
+
+    // id + 1 for each name, or 0 for an empty slot
+    private int[] table;
+
+    public SymbolTable() {
+        chars = new char[256];
+        starts = new int[INITIAL_CAPACITY + 1];
+        hashes = new int[INITIAL_CAPACITY];
+        strings = new String[INITIAL_CAPACITY];
+        table = new int[INITIAL_CAPACITY * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(strings, 0, size, null);
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    private boolean sameChars(final int id, final char[] name, final int from, final int length) {
+        final int start = starts[id];
+        if (starts[id + 1] - start != length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (chars[start + index] != name[from + index]) {
+                return false;
+            }
+        }
+        return true;
+    } // sameChars
+
+    // the id of name[from, from + length), adding the name if it's new.
+    // hash must be the name's String.hashCode: 31 * h + c over its chars,
+    // which a scanner can work out as it goes.
+    public int intern(final char[] name, final int from, final int length, final int hash) {
+        final int mask = table.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] != 0) {
+            final int id = table[slot] - 1;
+            if (hashes[id] == hash && sameChars(id, name, from, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, name, from, length, hash);
+    } // intern
+
+    public int intern(final String name) {
+        final int id = intern(name.toCharArray(), 0, name.length(), name.hashCode());
+        if (strings[id] == null) {
+            strings[id] = name;
+        }
+        return id;
+    } // intern
+
+    private int add(final int slot, final char[] name, final int from, final int length, final int hash) {
+        final int id = size;
+        if (id + 1 == starts.length) {
+            starts = Arrays.copyOf(starts, id * 2 + 1);
+            hashes = Arrays.copyOf(hashes, id * 2);
+            strings = Arrays.copyOf(strings, id * 2);
+        }
+        final int start = starts[id];
+        if (start + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, start + length));
+        }
+        System.arraycopy(name, from, chars, start, length);
+        starts[id + 1] = start + length;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        size++;
+        if (2 * size > table.length) {
+            rehash();
+        }
+        return id;
+    } // add
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        final int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = (hashes[id] ^ (hashes[id] >>> 16)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    } // rehash
+
+    public int length(final int id) {
+        return starts[id + 1] - starts[id];
+    }
+
+    public String name(final int id) {
+        String name = strings[id];
+        if (name == null) {
+            name = new String(chars, starts[id], starts[id + 1] - starts[id]);
+            strings[id] = name;
+        }
+        return name;
+    }
+}
@@ -0,0 +1,220 @@
+package parser;
+
+// A packed list of tokens: three parallel arrays instead of one object
+// per token.
+// - kinds: a TokenKind tag
+// - payloads: the value of an INTEGER, or the name index of a VARIABLE
+// - spans: where the token is in the source text: its character offset
+//   (-1 if unknown) in the top 40 bits, and its length in the low 24.
+//   Offsets are longs, as inputs may be longer than 2^31 characters; the
+//   Tokenizer rejects anything past MAX_OFFSET or MAX_LENGTH.
+//
+// Variable names are stored once each, in a SymbolTable; a name index is
+// the name's id there.
+// Lines and columns aren't stored per token; they come from a LineIndex,
+// if the Tokenizer filled one in.
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TokenBuffer {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int LENGTH_BITS = 24;
+    public static final long MAX_OFFSET = (1L << (63 - LENGTH_BITS)) - 1;
+    public static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+
+    private int[] kinds;
+    private int[] payloads;
+    private long[] spans;
+    private int size;
+    private LineIndex lineIndex;
+
+    private final SymbolTable names;
+    // VariableTokens handed out by getToken, indexed by name index
+    private VariableToken[] variableTokens;
+
+    public TokenBuffer() {
+        kinds = new int[INITIAL_CAPACITY];
+        payloads = new int[INITIAL_CAPACITY];
+        spans = new long[INITIAL_CAPACITY];
+        names = new SymbolTable();
+        variableTokens = new VariableToken[0];
+    }
+
+    public static TokenBuffer of(final List<Token> tokens) {
+        final TokenBuffer buffer = new TokenBuffer();
+        for (final Token token : tokens) {
+            buffer.add(token, -1);
+        }
+        return buffer;
+    }
+
+    // empties the buffer, keeping its arrays for reuse
+    public void clear() {
+        size = 0;
+        lineIndex = null;
+        names.clear();
+        synchronized (this) {
+            Arrays.fill(variableTokens, null);
+        }
+    }
+
+    // Empties the buffer but keeps the names, so name indexes stay the same:
+    // for reading a token stream a stretch at a time (see StreamingParser).
+    public void clearTokens() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int kind(final int position) {
+        return kinds[position];
+    }
+
+    // like kind, but gives TokenKind.NONE outside of the buffer
+    public int kindOrNone(final int position) {
+        return (position >= 0 && position < size) ? kinds[position] : TokenKind.NONE;
+    }
+
+    public int payload(final int position) {
+        return payloads[position];
+    }
+
+    public long offset(final int position) {
+        return spans[position] >> LENGTH_BITS;
+    }
+
+    public int length(final int position) {
+        return (int)(spans[position] & MAX_LENGTH);
+    }
+
+    // the offset just after the token at position (-1 if unknown)
+    public long endOffset(final int position) {
+        final long offset = offset(position);
+        return (offset < 0) ? -1 : offset + length(position);
+    }
+
+    // Where the characters covered by tokens [start, end) start and end;
+    // takes a token span as given by a SpanTable, and gives -1 for an
+    // empty or unknown span.
+    public long sourceStart(final long tokenSpan) {
+        if (tokenSpan == Span.NONE || Span.length(tokenSpan) <= 0) {
+            return -1;
+        }
+        return offset(Span.start(tokenSpan));
+    }
+
+    public long sourceEnd(final long tokenSpan) {
+        if (tokenSpan == Span.NONE || Span.length(tokenSpan) <= 0) {
+            return -1;
+        }
+        return endOffset(Span.end(tokenSpan) - 1);
+    }
+
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    public void setLineIndex(final LineIndex lineIndex) {
+        this.lineIndex = lineIndex;
+    }
+
+    // Where the token at position is, for messages: "line L, column C"
+    // if known, or else "token P".  A position at the end of the buffer is
+    // just after the last token.
+    public String location(final int position) {
+        if (lineIndex != null && position >= 0 && position <= size && size > 0) {
+            final long offset = (position < size) ? offset(position) : endOffset(size - 1);
+            if (offset >= 0) {
+                return "line " + lineIndex.line(offset) + ", column " + lineIndex.column(offset);
+            }
+        }
+        return "token " + position;
+    } // location
+
+    public int numNames() {
+        return names.size();
+    }
+
+    public String name(final int nameIndex) {
+        return names.name(nameIndex);
+    }
+
+    public int nameIndex(final String name) {
+        return names.intern(name);
+    }
+
+    // the name index of name[from, from + length); see SymbolTable.intern
+    public int nameIndex(final char[] name, final int from, final int length, final int hash) {
+        return names.intern(name, from, length, hash);
+    }
+
+    public void add(final int kind, final int payload, final long offset, final int length) {
+        if (offset > MAX_OFFSET || length < 0 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Token span out of range: offset " + offset +
+                                               ", length " + length);
+        }
+        if (size == kinds.length) {
+            final int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+            spans = Arrays.copyOf(spans, capacity);
+        }
+        kinds[size] = kind;
+        payloads[size] = payload;
+        spans[size] = (offset << LENGTH_BITS) | length;
+        size++;
+    } // add
+
+    // adds a token whose length isn't known
+    public void add(final int kind, final int payload, final long offset) {
+        add(kind, payload, offset, 0);
+    }
+
+    public void addVariable(final String name, final long offset, final int length) {
+        add(TokenKind.VARIABLE, nameIndex(name), offset, length);
+    }
+
+    public void addVariable(final String name, final long offset) {
+        addVariable(name, offset, 0);
+    }
+
+    public void add(final Token token, final long offset) {
+        final int kind = TokenKind.of(token);
+        if (kind == TokenKind.VARIABLE) {
+            addVariable(((VariableToken)token).name, offset);
+        } else if (kind == TokenKind.INTEGER) {
+            add(kind, ((IntegerToken)token).value, offset);
+        } else {
+            add(kind, 0, offset);
+        }
+    } // add
+
+    // the VariableToken for a name; synchronized, as this is the only
+    // thing which changes a TokenBuffer once it is filled, and parsers on
+    // different threads may share one (see ParallelParser)
+    private synchronized VariableToken variableToken(final int nameIndex) {
+        if (nameIndex >= variableTokens.length) {
+            variableTokens = Arrays.copyOf(variableTokens, names.size());
+        }
+        if (variableTokens[nameIndex] == null) {
+            variableTokens[nameIndex] = new VariableToken(names.name(nameIndex));
+        }
+        return variableTokens[nameIndex];
+    }
+
+    // rebuilds a Token for the given position; the shared instances are
+    // used, so this does not allocate for anything but large integers
+    public Token getToken(final int position) {
+        final int kind = kinds[position];
+        if (kind == TokenKind.VARIABLE) {
+            return variableToken(payloads[position]);
+        } else if (kind == TokenKind.INTEGER) {
+            return IntegerToken.valueOf(payloads[position]);
+        } else {
+            return TokenKind.sharedToken(kind);
+        }
+    } // getToken
+}
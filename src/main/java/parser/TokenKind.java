@@ -0,0 +1,78 @@
+package parser;
+
+// Integer tags for each kind of token, as stored in a TokenBuffer.
+// These let the parser dispatch with a switch instead of instanceof chains.
+public final class TokenKind {
+    public static final int IF = 0;
+    public static final int ELSE = 1;
+    public static final int PRINTLN = 2;
+    public static final int VARIABLE = 3;
+    public static final int INTEGER = 4;
+    public static final int PLUS = 5;
+    public static final int MINUS = 6;
+    public static final int LESS_THAN = 7;
+    public static final int EQUALS = 8;
+    public static final int LEFT_PAREN = 9;
+    public static final int RIGHT_PAREN = 10;
+    public static final int LEFT_CURLY = 11;
+    public static final int RIGHT_CURLY = 12;
+    public static final int SEMICOLON = 13;
+
+    // used for lookahead past the end of the input
+    public static final int NONE = -1;
+
+    private TokenKind() {}
+
+    public static int of(final Token token) {
+        if (token instanceof IfToken) {
+            return IF;
+        } else if (token instanceof ElseToken) {
+            return ELSE;
+        } else if (token instanceof PrintlnToken) {
+            return PRINTLN;
+        } else if (token instanceof VariableToken) {
+            return VARIABLE;
+        } else if (token instanceof IntegerToken) {
+            return INTEGER;
+        } else if (token instanceof PlusToken) {
+            return PLUS;
+        } else if (token instanceof MinusToken) {
+            return MINUS;
+        } else if (token instanceof LessThanToken) {
+            return LESS_THAN;
+        } else if (token instanceof EqualsToken) {
+            return EQUALS;
+        } else if (token instanceof LeftParenToken) {
+            return LEFT_PAREN;
+        } else if (token instanceof RightParenToken) {
+            return RIGHT_PAREN;
+        } else if (token instanceof LeftCurlyToken) {
+            return LEFT_CURLY;
+        } else if (token instanceof RightCurlyToken) {
+            return RIGHT_CURLY;
+        } else if (token instanceof SemicolonToken) {
+            return SEMICOLON;
+        } else {
+            throw new IllegalArgumentException("Unknown token: " + token);
+        }
+    } // of
+
+    // the shared instance for a kind with no payload
+    public static Token sharedToken(final int kind) {
+        switch (kind) {
+        case IF: return IfToken.INSTANCE;
+        case ELSE: return ElseToken.INSTANCE;
+        case PRINTLN: return PrintlnToken.INSTANCE;
+        case PLUS: return PlusToken.INSTANCE;
+        case MINUS: return MinusToken.INSTANCE;
+        case LESS_THAN: return LessThanToken.INSTANCE;
+        case EQUALS: return EqualsToken.INSTANCE;
+        case LEFT_PAREN: return LeftParenToken.INSTANCE;
+        case RIGHT_PAREN: return RightParenToken.INSTANCE;
+        case LEFT_CURLY: return LeftCurlyToken.INSTANCE;
+        case RIGHT_CURLY: return RightCurlyToken.INSTANCE;
+        case SEMICOLON: return SemicolonToken.INSTANCE;
+        default: throw new IllegalArgumentException("No shared token for kind: " + kind);
+        }
+    } // sharedToken
+}
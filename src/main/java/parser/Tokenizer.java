@@ -0,0 +1,315 @@
+package parser;
+
+// Turns source text into the tokens that Parser expects.
+//
+// x is a variable: [a-zA-Z_][a-zA-Z0-9_]*, except for the keywords
+// `if`, `else`, and `println`
+// i is an integer: [0-9]+
+// symbols: + - < == ( ) { } ;
+// whitespace separates tokens and is otherwise ignored
+//
+// The input is read exactly once, left to right, with one character of
+// lookahead; there is no backtracking and no regex.  Identifiers are
+// scanned into a reused char array and looked up in a SymbolTable from
+// there, so no String is made for an identifier seen before, or for a
+// keyword.  Tokens are produced one at a time by next(), so a caller
+// that consumes them as they come never has the whole input and the
+// whole token list in memory together.
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Tokenizer {
+    private static final int END_OF_INPUT = -1;
+    private static final int READER_BUFFER_SIZE = 8192;
+
+    // exactly one of these is the input
+    private final CharSequence chars;
+    private final ByteBuffer bytes;
+    private final Reader reader;
+
+    // only used when reading from a Reader
+    private final char[] readerBuffer;
+    private int readerBufferPosition;
+    private int readerBufferLimit;
+
+    // the identifier being scanned
+    private char[] identifier;
+    // for next(): each distinct variable name gets one token, shared by
+    // every occurrence, indexed by the name's id in symbols
+    private final SymbolTable symbols;
+    private VariableToken[] variables;
+    private int charsPosition;
+    private long offset; // number of characters consumed so far
+    private final LineIndex lineIndex;
+    private int lookahead; // the next unconsumed character, or END_OF_INPUT
+
+    // details of the token most recently scanned
+    private long tokenStart;
+    private int tokenValue;
+    private int identifierLength;
+    private int identifierHash;
+
+    private Tokenizer(final CharSequence chars,
+                      final ByteBuffer bytes,
+                      final Reader reader) throws TokenizerException {
+        this.chars = chars;
+        this.bytes = bytes;
+        this.reader = reader;
+        readerBuffer = (reader != null) ? new char[READER_BUFFER_SIZE] : null;
+        identifier = new char[32];
+        symbols = new SymbolTable();
+        variables = new VariableToken[16];
+        lineIndex = new LineIndex();
+        lookahead = read();
+    }
+
+    public Tokenizer(final CharSequence chars) throws TokenizerException {
+        this(chars, null, null);
+    }
+
+    // bytes are read as ASCII, from the buffer's position to its limit
+    public Tokenizer(final ByteBuffer bytes) throws TokenizerException {
+        this(null, bytes, null);
+    }
+
+    public Tokenizer(final Reader reader) throws TokenizerException {
+        this(null, null, reader);
+    }
+
+    // reads the next character from whichever input we have
+    private int read() throws TokenizerException {
+        if (chars != null) {
+            return (charsPosition < chars.length()) ? chars.charAt(charsPosition++) : END_OF_INPUT;
+        } else if (bytes != null) {
+            return bytes.hasRemaining() ? (bytes.get() & 0xFF) : END_OF_INPUT;
+        } else {
+            if (readerBufferPosition == readerBufferLimit) {
+                try {
+                    final int numRead = reader.read(readerBuffer, 0, readerBuffer.length);
+                    if (numRead <= 0) {
+                        return END_OF_INPUT;
+                    }
+                    readerBufferPosition = 0;
+                    readerBufferLimit = numRead;
+                } catch (final IOException e) {
+                    throw new TokenizerException("Could not read input: " + e.getMessage(), e);
+                }
+            }
+            return readerBuffer[readerBufferPosition++];
+        }
+    }
+
+    // consumes the lookahead character, returning it
+    private int advance() throws TokenizerException {
+        final int current = lookahead;
+        lookahead = read();
+        offset++;
+        if (current == '\n') {
+            lineIndex.addLineStart(offset);
+        }
+        return current;
+    }
+
+    private static boolean isIdentifierStart(final int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isDigit(final int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(final int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    // where the token being scanned starts, for messages
+    private String tokenLocation() {
+        return "offset " + tokenStart + " (line " + lineIndex.line(tokenStart) +
+            ", column " + lineIndex.column(tokenStart) + ")";
+    }
+
+    // returns null once the input is exhausted
+    public Token next() throws TokenizerException {
+        final int kind = scan();
+        switch (kind) {
+        case TokenKind.NONE:
+            return null;
+        case TokenKind.VARIABLE: {
+            final int id = symbols.intern(identifier, 0, identifierLength, identifierHash);
+            if (id == variables.length) {
+                variables = Arrays.copyOf(variables, id * 2);
+            }
+            if (variables[id] == null) {
+                variables[id] = new VariableToken(symbols.name(id));
+            }
+            return variables[id];
+        }
+        case TokenKind.INTEGER:
+            return IntegerToken.valueOf(tokenValue);
+        default:
+            return TokenKind.sharedToken(kind);
+        }
+    } // next
+
+    // Reads the next token, returning its TokenKind (NONE at the end of
+    // the input).  Its starting offset is left in tokenStart, and its
+    // value in tokenValue, or its name in identifier[0, identifierLength).
+    private int scan() throws TokenizerException {
+        while (isWhitespace(lookahead)) {
+            advance();
+        }
+
+        tokenStart = offset;
+        if (lookahead == END_OF_INPUT) {
+            return TokenKind.NONE;
+        } else if (isIdentifierStart(lookahead)) {
+            return scanIdentifierOrKeyword();
+        } else if (isDigit(lookahead)) {
+            return scanInteger();
+        } else {
+            return scanSymbol();
+        }
+    } // scan
+
+    private int scanIdentifierOrKeyword() throws TokenizerException {
+        int length = 0;
+        int hash = 0;
+        while (isIdentifierStart(lookahead) || isDigit(lookahead)) {
+            if (length == identifier.length) {
+                identifier = Arrays.copyOf(identifier, length * 2);
+            }
+            final char c = (char)advance();
+            identifier[length++] = c;
+            hash = 31 * hash + c;
+        }
+        identifierLength = length;
+        identifierHash = hash;
+
+        if (isIdentifier("if")) {
+            return TokenKind.IF;
+        } else if (isIdentifier("else")) {
+            return TokenKind.ELSE;
+        } else if (isIdentifier("println")) {
+            return TokenKind.PRINTLN;
+        } else {
+            return TokenKind.VARIABLE;
+        }
+    } // scanIdentifierOrKeyword
+
+    // whether the identifier just scanned is the given keyword
+    private boolean isIdentifier(final String keyword) {
+        if (identifierLength != keyword.length()) {
+            return false;
+        }
+        for (int index = 0; index < identifierLength; index++) {
+            if (identifier[index] != keyword.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    } // isIdentifier
+
+    private int scanInteger() throws TokenizerException {
+        int value = 0;
+        while (isDigit(lookahead)) {
+            final int digit = advance() - '0';
+            if (value > (Integer.MAX_VALUE - digit) / 10) {
+                throw new TokenizerException("Integer too large at " + tokenLocation());
+            }
+            value = value * 10 + digit;
+        }
+        tokenValue = value;
+        return TokenKind.INTEGER;
+    } // scanInteger
+
+    private int scanSymbol() throws TokenizerException {
+        final int c = advance();
+        switch (c) {
+        case '+': return TokenKind.PLUS;
+        case '-': return TokenKind.MINUS;
+        case '<': return TokenKind.LESS_THAN;
+        case '(': return TokenKind.LEFT_PAREN;
+        case ')': return TokenKind.RIGHT_PAREN;
+        case '{': return TokenKind.LEFT_CURLY;
+        case '}': return TokenKind.RIGHT_CURLY;
+        case ';': return TokenKind.SEMICOLON;
+        case '=':
+            if (lookahead == '=') {
+                advance();
+                return TokenKind.EQUALS;
+            } else {
+                throw new TokenizerException("Expected == at " + tokenLocation());
+            }
+        default:
+            throw new TokenizerException("Unexpected character '" + (char)c +
+                                         "' at " + tokenLocation());
+        }
+    } // scanSymbol
+
+    // reads in all remaining tokens
+    public List<Token> tokenize() throws TokenizerException {
+        final List<Token> tokens = new ArrayList<Token>();
+        Token token = next();
+        while (token != null) {
+            tokens.add(token);
+            token = next();
+        }
+        return tokens;
+    } // tokenize
+
+    // where the lines read so far start
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    // adds the token just scanned to buffer, if the buffer can hold where
+    // it is
+    private void addTo(final TokenBuffer buffer, final int kind) throws TokenizerException {
+        if (tokenStart > TokenBuffer.MAX_OFFSET) {
+            throw new TokenizerException("Input too long for a TokenBuffer at " + tokenLocation());
+        } else if (offset - tokenStart > TokenBuffer.MAX_LENGTH) {
+            throw new TokenizerException("Token too long at " + tokenLocation());
+        }
+        if (kind == TokenKind.VARIABLE) {
+            buffer.add(kind, buffer.nameIndex(identifier, 0, identifierLength, identifierHash),
+                       tokenStart, (int)(offset - tokenStart));
+        } else {
+            buffer.add(kind, (kind == TokenKind.INTEGER) ? tokenValue : 0,
+                       tokenStart, (int)(offset - tokenStart));
+        }
+    } // addTo
+
+    // reads all remaining tokens into the given buffer, without creating
+    // any Token objects; the buffer shares this tokenizer's LineIndex
+    public void tokenize(final TokenBuffer buffer) throws TokenizerException {
+        buffer.setLineIndex(lineIndex);
+        int kind = scan();
+        while (kind != TokenKind.NONE) {
+            addTo(buffer, kind);
+            kind = scan();
+        }
+    } // tokenize
+
+    // Reads one token into the given buffer, as tokenize does, and returns
+    // its TokenKind; at the end of the input, adds nothing and returns
+    // NONE.
+    public int next(final TokenBuffer buffer) throws TokenizerException {
+        buffer.setLineIndex(lineIndex);
+        final int kind = scan();
+        if (kind != TokenKind.NONE) {
+            addTo(buffer, kind);
+        }
+        return kind;
+    } // next
+
+    public TokenBuffer tokenizeToBuffer() throws TokenizerException {
+        final TokenBuffer buffer = new TokenBuffer();
+        tokenize(buffer);
+        return buffer;
+    }
+}
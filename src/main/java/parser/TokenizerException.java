@@ -0,0 +1,14 @@
+package parser;
+
+// represents tokenization failure
+public class TokenizerException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public TokenizerException(final String message) {
+        super(message);
+    }
+
+    public TokenizerException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
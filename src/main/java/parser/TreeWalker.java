@@ -0,0 +1,151 @@
+package parser;
+
+// Walks a tree, calling a Visitor for each node (see Visitor for the
+// order).  The walk doesn't recurse: it runs tasks from an explicit
+// stack, last in first out.  Visiting a node with sub-nodes pushes a task
+// to leave it, then (unless the visitor skips them) its sub-nodes, last
+// one first, so each node's kind is only looked at when it is visited.  The stack is
+// kept between walks, so once it has grown to fit the trees being
+// walked, a walk allocates nothing.
+//
+// Not thread-safe, and a visitor mustn't start another walk on the
+// TreeWalker walking it; use a TreeWalker per thread.
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TreeWalker {
+    private static final int INITIAL_STACK_SIZE = 16;
+
+    // tasks
+    private static final int VISIT = 0;
+    private static final int LEAVE_OP_EXP = 1;
+    private static final int LEAVE_PRINTLN_STMT = 2;
+    private static final int LEAVE_IF_STMT = 3;
+    private static final int LEAVE_BLOCK_STMT = 4;
+
+    // the stack: each task with its node
+    private Node[] nodes;
+    private int[] tasks;
+
+    public TreeWalker() {
+        nodes = new Node[INITIAL_STACK_SIZE];
+        tasks = new int[INITIAL_STACK_SIZE];
+    }
+
+    // makes room for count more tasks on top of numTasks
+    private void ensureRoom(final int numTasks, final int count) {
+        final int capacity = Math.max(tasks.length * 2, numTasks + count);
+        nodes = Arrays.copyOf(nodes, capacity);
+        tasks = Arrays.copyOf(tasks, capacity);
+    }
+
+    public void walk(final Program program, final Visitor visitor) {
+        walk(program.stmt, visitor);
+    }
+
+    // One loop, with the stack in locals: the visitor calls in between
+    // would otherwise make the JIT reload the fields for every push.  A
+    // node's first sub-node is walked straight away rather than pushed.
+    public void walk(final Node root, final Visitor visitor) {
+        Node[] nodes = this.nodes;
+        int[] tasks = this.tasks;
+        int numTasks = 0;
+        // the stack is cleared once at the end, up to the highest it got,
+        // rather than as each task is popped
+        int maxTasks = 0;
+        Node current = root;
+        try {
+            while (true) {
+                if (current instanceof IntegerExp) {
+                    visitor.visitIntegerExp((IntegerExp)current);
+                    current = null;
+                } else if (current instanceof VariableExp) {
+                    visitor.visitVariableExp((VariableExp)current);
+                    current = null;
+                } else {
+                    // room for the leave task and the sub-nodes (all but
+                    // the first would do, but an empty block still needs
+                    // its leave task)
+                    final int numSubnodes = (current instanceof BlockStmt) ?
+                        ((BlockStmt)current).stmts.size() :
+                        3;
+                    if (numTasks + numSubnodes + 1 > tasks.length) {
+                        ensureRoom(numTasks, numSubnodes + 1);
+                        nodes = this.nodes;
+                        tasks = this.tasks;
+                    }
+                    final Node node = current;
+                    current = null;
+                    if (node instanceof OpExp) {
+                        final OpExp exp = (OpExp)node;
+                        nodes[numTasks] = exp;
+                        tasks[numTasks++] = LEAVE_OP_EXP;
+                        if (visitor.enterOpExp(exp)) {
+                            nodes[numTasks] = exp.right;
+                            tasks[numTasks++] = VISIT;
+                            current = exp.left;
+                        }
+                    } else if (node instanceof PrintlnStmt) {
+                        final PrintlnStmt stmt = (PrintlnStmt)node;
+                        nodes[numTasks] = stmt;
+                        tasks[numTasks++] = LEAVE_PRINTLN_STMT;
+                        if (visitor.enterPrintlnStmt(stmt)) {
+                            current = stmt.exp;
+                        }
+                    } else if (node instanceof IfStmt) {
+                        final IfStmt stmt = (IfStmt)node;
+                        nodes[numTasks] = stmt;
+                        tasks[numTasks++] = LEAVE_IF_STMT;
+                        if (visitor.enterIfStmt(stmt)) {
+                            nodes[numTasks] = stmt.falseBranch;
+                            tasks[numTasks++] = VISIT;
+                            nodes[numTasks] = stmt.trueBranch;
+                            tasks[numTasks++] = VISIT;
+                            current = stmt.guard;
+                        }
+                    } else {
+                        final BlockStmt stmt = (BlockStmt)node;
+                        nodes[numTasks] = stmt;
+                        tasks[numTasks++] = LEAVE_BLOCK_STMT;
+                        if (visitor.enterBlockStmt(stmt) && numSubnodes > 0) {
+                            final List<Stmt> stmts = stmt.stmts;
+                            for (int index = numSubnodes - 1; index > 0; index--) {
+                                nodes[numTasks] = stmts.get(index);
+                                tasks[numTasks++] = VISIT;
+                            }
+                            current = stmts.get(0);
+                        }
+                    }
+                    if (numTasks > maxTasks) {
+                        maxTasks = numTasks;
+                    }
+                }
+
+                // with nothing to walk into, run tasks until one is a
+                // node to walk
+                while (current == null) {
+                    if (numTasks == 0) {
+                        return;
+                    }
+                    final Node node = nodes[--numTasks];
+                    final int task = tasks[numTasks];
+                    if (task == VISIT) {
+                        current = node;
+                    } else if (task == LEAVE_OP_EXP) {
+                        visitor.leaveOpExp((OpExp)node);
+                    } else if (task == LEAVE_PRINTLN_STMT) {
+                        visitor.leavePrintlnStmt((PrintlnStmt)node);
+                    } else if (task == LEAVE_IF_STMT) {
+                        visitor.leaveIfStmt((IfStmt)node);
+                    } else {
+                        visitor.leaveBlockStmt((BlockStmt)node);
+                    }
+                }
+            }
+        } finally {
+            // don't hold on to the tree, even if a visitor threw
+            Arrays.fill(nodes, 0, maxTasks, null);
+        }
+    } // walk
+}
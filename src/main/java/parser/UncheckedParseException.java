@@ -0,0 +1,15 @@
+package parser;
+
+// a ParseException or TokenizerException, where a checked exception can't
+// be thrown (see StreamingParser)
+public class UncheckedParseException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedParseException(final ParseException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    public UncheckedParseException(final TokenizerException cause) {
+        super(cause.getMessage(), cause);
+    }
+}
@@ -12,8 +12,9 @@ public class Variable {
     }
     
     public boolean equals(final Object other) {
-        return (other instanceof Variable &&
-                name.equals(((Variable)other).name));
+        return (this == other ||
+                (other instanceof Variable &&
+                 name.equals(((Variable)other).name)));
     }
 
     public String toString() {
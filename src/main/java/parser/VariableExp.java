@@ -8,8 +8,10 @@ public class VariableExp implements Exp {
     }
 
     public boolean equals(final Object other) {
-        return (other instanceof VariableExp &&
-                variable.equals(((VariableExp)other).variable));
+        // the parser builds one VariableExp per name, so uses are usually ==
+        return (this == other ||
+                (other instanceof VariableExp &&
+                 variable.equals(((VariableExp)other).variable)));
     }
 
     public int hashCode() {
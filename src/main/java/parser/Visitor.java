@@ -0,0 +1,31 @@
+package parser;
+
+// Called by a TreeWalker for each node of a tree, in source order.
+// Leaves get one call.  A node with sub-nodes gets an enter call before
+// its sub-nodes and a leave call after them; if enter returns false its
+// sub-nodes are skipped, but leave is still called.
+//
+// EmptyVisitor does nothing for every node, for visitors that only care
+// about a few kinds of node.
+
+public interface Visitor {
+    public void visitIntegerExp(IntegerExp exp);
+
+    public void visitVariableExp(VariableExp exp);
+
+    public boolean enterOpExp(OpExp exp);
+
+    public void leaveOpExp(OpExp exp);
+
+    public boolean enterPrintlnStmt(PrintlnStmt stmt);
+
+    public void leavePrintlnStmt(PrintlnStmt stmt);
+
+    public boolean enterIfStmt(IfStmt stmt);
+
+    public void leaveIfStmt(IfStmt stmt);
+
+    public boolean enterBlockStmt(BlockStmt stmt);
+
+    public void leaveBlockStmt(BlockStmt stmt);
+}
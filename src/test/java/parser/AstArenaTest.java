@@ -0,0 +1,98 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AstArenaTest {
+    @Test
+    public void testBuildByHandles() {
+        // if (x < 3) { println(x + 1); } else { }
+        final AstArena arena = new AstArena();
+        final int x = arena.addVariable("x");
+        final int guard = arena.addOp(x, AstArena.LESS_THAN, arena.addInteger(3));
+        final int println = arena.addPrintln(arena.addOp(arena.addVariable("x"),
+                                                         AstArena.PLUS,
+                                                         arena.addInteger(1)));
+        final int trueBranch = arena.addBlock(new int[]{ println }, 0, 1);
+        final int falseBranch = arena.addBlock(new int[0], 0, 0);
+        final int stmt = arena.addIf(guard, trueBranch, falseBranch);
+
+        assertEquals(AstArena.IF, arena.kind(stmt));
+        assertEquals(guard, arena.ifGuard(stmt));
+        assertEquals(1, arena.blockSize(trueBranch));
+        assertEquals(println, arena.blockStmt(trueBranch, 0));
+        assertEquals("x", arena.variableName(x));
+        assertEquals(new OpExp(new VariableExp(new Variable("x")),
+                               LessThanOp.INSTANCE,
+                               new IntegerExp(3)),
+                     arena.toExp(guard));
+
+        final List<Stmt> stmts = new ArrayList<Stmt>();
+        stmts.add(new PrintlnStmt(new OpExp(new VariableExp(new Variable("x")),
+                                            PlusOp.INSTANCE,
+                                            new IntegerExp(1))));
+        Asts.assertSameStructure(new IfStmt(new OpExp(new VariableExp(new Variable("x")),
+                                                      LessThanOp.INSTANCE,
+                                                      new IntegerExp(3)),
+                                            new BlockStmt(stmts),
+                                            new BlockStmt(new ArrayList<Stmt>())),
+                                 arena.toStmt(stmt));
+    }
+
+    @Test
+    public void testRoundTripsGeneratedPrograms() throws ParseException {
+        for (long seed = 0; seed < 5; seed++) {
+            final Program program = new Parser(Asts.generate(seed, 500)).parseProgram();
+            final AstArena arena = AstArena.fromProgram(program);
+            Asts.assertSameStructure(program.stmt, arena.toProgram().stmt);
+        }
+    }
+
+    @Test
+    public void testParseMatchesFromProgram() throws ParseException {
+        for (long seed = 0; seed < 5; seed++) {
+            final TokenBuffer tokens = Asts.generate(seed, 500);
+            final AstArena parsed = AstArena.parse(tokens);
+            final AstArena copied = AstArena.fromProgram(new Parser(tokens).parseProgram());
+            // the same rows, in the same order
+            assertEquals(copied.size(), parsed.size());
+            Asts.assertSameStructure(copied.toProgram().stmt, parsed.toProgram().stmt);
+        }
+    }
+
+    @Test
+    public void testParseSharesLeaves() throws ParseException, TokenizerException {
+        final AstArena arena =
+            AstArena.parse(new Tokenizer("{ println(x + 1); println(x + 1); }").tokenizeToBuffer());
+        // x, 1, two +s, two printlns and the block
+        assertEquals(7, arena.size());
+        final int first = arena.printlnExp(arena.blockStmt(arena.getRoot(), 0));
+        final int second = arena.printlnExp(arena.blockStmt(arena.getRoot(), 1));
+        assertEquals(arena.opLeft(first), arena.opLeft(second));
+        assertEquals("x", arena.variableName(arena.opLeft(second)));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testParseFailure() throws ParseException, TokenizerException {
+        AstArena.parse(new Tokenizer("{ println(x + ); }").tokenizeToBuffer());
+    }
+
+    @Test
+    public void testDeepNesting() {
+        // println(1 - (1 - (1 - ...))) nested far past any recursion limit
+        final AstArena arena = new AstArena();
+        int exp = arena.addInteger(1);
+        for (int depth = 0; depth < 1000000; depth++) {
+            exp = arena.addOp(arena.addInteger(1), AstArena.MINUS, exp);
+        }
+        arena.setRoot(arena.addPrintln(exp));
+        final Program program = arena.toProgram();
+        final AstArena copy = AstArena.fromProgram(program);
+        assertEquals(arena.size(), copy.size());
+        assertEquals(AstArena.PRINTLN, copy.kind(copy.getRoot()));
+    }
+}
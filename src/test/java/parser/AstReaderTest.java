@@ -0,0 +1,132 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AstReaderTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] write(final Program program) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AstWriter(out).write(program);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, ParseException, TokenizerException {
+        final Program program = new Parser(new Tokenizer("{ println(0 - 2147483647 - 1); " +
+                                                         "if (x < 300) { println(x == y); } else { } " +
+                                                         "println(x + 2147483647); }").tokenizeToBuffer())
+            .parseProgram();
+        final Program read = new AstReader().read(ByteBuffer.wrap(write(program)));
+        Asts.assertSameStructure(program.stmt, read.stmt);
+    }
+
+    @Test
+    public void testRoundTripGeneratedPrograms() throws IOException, ParseException {
+        for (long seed = 0; seed < 5; seed++) {
+            final Program program = new Parser(Asts.generate(seed, 500)).parseProgram();
+            final Path path = folder.newFile().toPath();
+            Files.write(path, write(program));
+            Asts.assertSameStructure(program.stmt, new AstReader().read(path).stmt);
+        }
+    }
+
+    @Test
+    public void testDeepNesting() throws IOException {
+        Exp exp = IntegerExp.valueOf(1);
+        for (int depth = 0; depth < 1000000; depth++) {
+            exp = new OpExp(IntegerExp.valueOf(1), MinusOp.INSTANCE, exp);
+        }
+        final Program read = new AstReader().read(ByteBuffer.wrap(write(new Program(new PrintlnStmt(exp)))));
+        assertTrue(read.stmt instanceof PrintlnStmt);
+    }
+
+    @Test
+    public void testMalformedInput() throws IOException {
+        final byte[] bytes = write(new Program(new PrintlnStmt(new OpExp(IntegerExp.valueOf(1),
+                                                                         PlusOp.INSTANCE,
+                                                                         IntegerExp.valueOf(2)))));
+        // every truncation, and the magic number broken
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                new AstReader().read(ByteBuffer.wrap(Arrays.copyOf(bytes, length)));
+                fail("read a program truncated to " + length + " bytes");
+            } catch (final IOException e) {}
+        }
+        bytes[0] = 0;
+        try {
+            new AstReader().read(ByteBuffer.wrap(bytes));
+            fail();
+        } catch (final IOException e) {
+            assertEquals("Not a program file", e.getMessage());
+        }
+    }
+
+    // the header, then the given bytes
+    private static ByteBuffer program(final int... body) {
+        final ByteBuffer bytes = ByteBuffer.allocate(5 + body.length);
+        bytes.putInt(AstWriter.MAGIC);
+        bytes.put((byte)AstWriter.VERSION);
+        for (final int b : body) {
+            bytes.put((byte)b);
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    private static void assertCorrupt(final ByteBuffer bytes, final String message) {
+        try {
+            new AstReader().read(bytes);
+            fail();
+        } catch (final IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCorruptCounts() {
+        // a name of Integer.MAX_VALUE bytes, and of -1
+        assertCorrupt(program(AstWriter.NEW_VARIABLE, 0xFF, 0xFF, 0xFF, 0xFF, 0x07, 'x'),
+                      "corrupt AST: name of 2147483647 bytes, with 1 left");
+        assertCorrupt(program(AstWriter.NEW_VARIABLE, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F, 'x'),
+                      "corrupt AST: name of -1 bytes, with 1 left");
+        assertCorrupt(program(AstWriter.INTEGER, 2, AstWriter.OP, 0),
+                      "corrupt AST: op of 2 sub-nodes, with 1 read");
+        assertCorrupt(program(AstWriter.BLOCK, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F),
+                      "corrupt AST: block of -1 sub-nodes, with 0 read");
+    }
+
+    @Test
+    public void testProgramCache() throws IOException, ParseException, TokenizerException {
+        final ProgramCache cache = new ProgramCache(folder.getRoot().toPath().resolve("cache"));
+        final String source = "{ println(x + 1); }";
+        assertNull(cache.get(source));
+        final Program parsed = cache.load(source);
+        assertTrue(Files.isRegularFile(cache.path(source)));
+        final Program cached = cache.get(source);
+        assertNotNull(cached);
+        Asts.assertSameStructure(parsed.stmt, cached.stmt);
+
+        // a corrupt entry is reparsed and replaced
+        Files.write(cache.path(source), new byte[]{ 1, 2, 3 });
+        assertNull(cache.get(source));
+        Asts.assertSameStructure(parsed.stmt, cache.load(source).stmt);
+        assertNotNull(cache.get(source));
+    }
+}
@@ -0,0 +1,36 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+// helpers for tests comparing ASTs
+public class Asts {
+    private Asts() {}
+
+    // compares statements part by part, so a failure shows where they differ
+    public static void assertSameStructure(final Stmt expected, final Stmt actual) {
+        if (expected instanceof BlockStmt) {
+            final List<Stmt> expectedStmts = ((BlockStmt)expected).stmts;
+            final List<Stmt> actualStmts = ((BlockStmt)actual).stmts;
+            assertEquals(expectedStmts.size(), actualStmts.size());
+            for (int index = 0; index < expectedStmts.size(); index++) {
+                assertSameStructure(expectedStmts.get(index), actualStmts.get(index));
+            }
+        } else if (expected instanceof IfStmt) {
+            final IfStmt expectedIf = (IfStmt)expected;
+            final IfStmt actualIf = (IfStmt)actual;
+            assertEquals(expectedIf.guard, actualIf.guard);
+            assertSameStructure(expectedIf.trueBranch, actualIf.trueBranch);
+            assertSameStructure(expectedIf.falseBranch, actualIf.falseBranch);
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+
+    public static TokenBuffer generate(final long seed, final long numStmts) {
+        final TokenBuffer tokens = new TokenBuffer();
+        new ProgramGenerator(seed, 4, 4, 3, 6).generate(numStmts, tokens);
+        return tokens;
+    }
+}
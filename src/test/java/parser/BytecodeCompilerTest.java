@@ -0,0 +1,80 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class BytecodeCompilerTest {
+    private static Interpreter interpreter(final String source) throws ParseException, TokenizerException {
+        return new Interpreter(new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram());
+    }
+
+    @Test
+    public void testMatchesInterpreter() throws ParseException, TokenizerException, CompilerException {
+        final Interpreter interpreter =
+            interpreter("{ println(1 + 2 - 5); println(x < y); println(x == y); println(100000 - x); " +
+                        "if (x < 5) { if (x == y) { println(0); } else { println(y - 2147483647); } } " +
+                        "else { println(x < 5 == 0); } }");
+        final CompiledProgram compiled = BytecodeCompiler.compile(interpreter);
+        assertEquals(2, compiled.numSlots());
+        final int[] frame = compiled.newFrame();
+        for (int x = 0; x < 8; x++) {
+            for (int y = 2; y < 5; y++) {
+                frame[compiled.slot("x")] = x;
+                frame[compiled.slot("y")] = y;
+                assertEquals(interpreter.run(frame), compiled.run(frame));
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedPrograms() throws ParseException, CompilerException {
+        for (long seed = 0; seed < 5; seed++) {
+            final Interpreter interpreter = new Interpreter(new Parser(Asts.generate(seed, 300)).parseProgram());
+            final CompiledProgram compiled = BytecodeCompiler.compile(interpreter);
+            final int[] frame = interpreter.newFrame();
+            for (int slot = 0; slot < frame.length; slot++) {
+                frame[slot] = slot * 7 - 10;
+            }
+            assertEquals(interpreter.run(frame), compiled.run(frame));
+        }
+    }
+
+    @Test
+    public void testSplitsLargePrograms() throws ParseException, TokenizerException, CompilerException {
+        // far more than 64 KB of bytecode, across many variables
+        final StringBuilder source = new StringBuilder("{");
+        for (int index = 0; index < 20000; index++) {
+            source.append("println(x" + (index % 300) + " + " + (index * 1000) + ");");
+        }
+        source.append("}");
+        final Interpreter interpreter = interpreter(source.toString());
+        final CompiledProgram compiled = BytecodeCompiler.compile(interpreter);
+        final int[] frame = interpreter.newFrame();
+        for (int slot = 0; slot < frame.length; slot++) {
+            frame[slot] = slot;
+        }
+        assertEquals(interpreter.run(frame), compiled.run(frame));
+    }
+
+    @Test
+    public void testNonBlockProgram() throws ParseException, TokenizerException, CompilerException {
+        assertEquals("3\n", BytecodeCompiler.compile(interpreter("println(1 + 2);")).run(new int[0]));
+    }
+
+    @Test(expected = CompilerException.class)
+    public void testStatementTooLarge() throws ParseException, CompilerException {
+        // one println of an expression with 100000 operators
+        final TokenBuffer tokens = new TokenBuffer();
+        tokens.add(TokenKind.PRINTLN, 0, -1);
+        tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+        tokens.add(TokenKind.INTEGER, 0, -1);
+        for (int index = 0; index < 100000; index++) {
+            tokens.add(TokenKind.PLUS, 0, -1);
+            tokens.add(TokenKind.INTEGER, 1, -1);
+        }
+        tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+        tokens.add(TokenKind.SEMICOLON, 0, -1);
+        BytecodeCompiler.compile(new Parser(tokens).parseProgram());
+    }
+}
@@ -0,0 +1,129 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ErrorRecoveryTest {
+    private static RecoveredProgram recover(final String source) throws TokenizerException {
+        return new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgramRecovering();
+    }
+
+    private static Stmt println(final int value) {
+        return new PrintlnStmt(new IntegerExp(value));
+    }
+
+    private static Stmt block(final Stmt... stmts) {
+        return new BlockStmt(new ArrayList<Stmt>(Arrays.asList(stmts)));
+    }
+
+    @Test
+    public void testNoErrorsGivesSameProgram() throws ParseException, TokenizerException {
+        final String source = "{ if (x < 1) { println(2); } else { } println(x + 3); }";
+        final RecoveredProgram recovered = recover(source);
+        assertFalse(recovered.hasErrors());
+        final Program expected = new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram();
+        Asts.assertSameStructure(expected.stmt, recovered.program.stmt);
+    }
+
+    @Test
+    public void testReportsEveryErrorInOnePass() throws TokenizerException {
+        // 0 {, 1-5 println(1);, 6-10 println(+);, 11-14 println(2),
+        // 15-19 println(3);, 20 println, 21 (, 22 4, 23 ), 24 ;, 25 }
+        final RecoveredProgram recovered =
+            recover("{ println(1); println(+); println(2) println(3); println(4); }");
+        final List<Diagnostic> diagnostics = recovered.diagnostics;
+        assertEquals(2, diagnostics.size());
+        assertEquals(8, diagnostics.get(0).position);
+        assertEquals("primary expression", diagnostics.get(0).expected);
+        assertEquals(15, diagnostics.get(1).position);
+        assertEquals("expected: SemicolonToken; received: PrintlnToken",
+                     diagnostics.get(1).getMessage());
+        // the statements in error are left out
+        Asts.assertSameStructure(block(println(1), println(4)), recovered.program.stmt);
+    }
+
+    @Test
+    public void testSkipsWholeBlocks() throws TokenizerException {
+        final RecoveredProgram recovered =
+            recover("{ if (1 <) { println(1); } else { println(2); } println(3); }");
+        assertEquals(1, recovered.diagnostics.size());
+        assertEquals(5, recovered.diagnostics.get(0).position);
+        Asts.assertSameStructure(block(println(3)), recovered.program.stmt);
+    }
+
+    @Test
+    public void testMissingElse() throws TokenizerException {
+        // 0 if, 1 (, 2 1, 3 ), 4-8 println(1);, 9 println
+        final RecoveredProgram recovered = recover("if (1) println(1); println(2);");
+        assertEquals(1, recovered.diagnostics.size());
+        assertEquals(new Diagnostic(9, "ElseToken", "PrintlnToken"), recovered.diagnostics.get(0));
+        final Stmt expected = block(new IfStmt(new IntegerExp(1), println(1), block()),
+                                    println(2));
+        Asts.assertSameStructure(expected, recovered.program.stmt);
+    }
+
+    @Test
+    public void testBadBranchBecomesEmptyBlock() throws TokenizerException {
+        final RecoveredProgram recovered = recover("if (1) println(; else println(2);");
+        assertEquals(1, recovered.diagnostics.size());
+        Asts.assertSameStructure(new IfStmt(new IntegerExp(1), block(), println(2)),
+                                 recovered.program.stmt);
+    }
+
+    @Test
+    public void testEndOfInputClosesOpenStatements() throws TokenizerException {
+        final RecoveredProgram recovered = recover("{ println(1); { if (1) println(2);");
+        assertEquals(1, recovered.diagnostics.size());
+        assertEquals("end of input", recovered.diagnostics.get(0).received);
+        final Stmt expected = block(println(1),
+                                    block(new IfStmt(new IntegerExp(1), println(2), block())));
+        Asts.assertSameStructure(expected, recovered.program.stmt);
+    }
+
+    @Test
+    public void testStrayTokens() throws TokenizerException {
+        final RecoveredProgram recovered = recover("} ) println(1); else");
+        // the first stray token, and what follows the statement
+        assertEquals(2, recovered.diagnostics.size());
+        assertEquals(0, recovered.diagnostics.get(0).position);
+        assertEquals(new Diagnostic(7, "end of input", "ElseToken"), recovered.diagnostics.get(1));
+        Asts.assertSameStructure(println(1), recovered.program.stmt);
+    }
+
+    @Test
+    public void testEmptyInput() throws TokenizerException {
+        final RecoveredProgram recovered = recover("");
+        assertEquals(1, recovered.diagnostics.size());
+        Asts.assertSameStructure(block(), recovered.program.stmt);
+    }
+
+    @Test
+    public void testParseProgramReportsRemainingTokens() throws TokenizerException {
+        try {
+            new Parser(new Tokenizer("println(1); println(2);").tokenizeToBuffer()).parseProgram();
+            fail("Expected ParseException");
+        } catch (final ParseException e) {
+            assertEquals("expected: end of input; received: PrintlnToken", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRecoveryLeavesParserUsable() throws TokenizerException {
+        final Parser parser = new Parser(new Tokenizer("println(1) println(2);").tokenizeToBuffer());
+        assertTrue(parser.parseProgramRecovering().hasErrors());
+        try {
+            parser.parseProgram();
+            fail("Expected ParseException");
+        } catch (final ParseException e) {
+            assertEquals("expected: SemicolonToken; received: PrintlnToken", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class HashConsingNodeFactoryTest {
+    private static Program parse(final String source,
+                                 final NodeFactory nodeFactory) throws ParseException, TokenizerException {
+        final Parser parser = new Parser(new Tokenizer(source).tokenizeToBuffer());
+        parser.setNodeFactory(nodeFactory);
+        return parser.parseProgram();
+    }
+
+    @Test
+    public void testEqualSubtreesAreShared() throws ParseException, TokenizerException {
+        final Program program = parse("{ println(x + 1); println(x + 1); " +
+                                      "if (x + 1) { } else { } println(1 + x); }",
+                                      new HashConsingNodeFactory());
+        final List<Stmt> stmts = ((BlockStmt)program.stmt).stmts;
+        assertSame(stmts.get(0), stmts.get(1));
+        final IfStmt ifStmt = (IfStmt)stmts.get(2);
+        assertSame(((PrintlnStmt)stmts.get(0)).exp, ifStmt.guard);
+        assertSame(ifStmt.trueBranch, ifStmt.falseBranch);
+        assertNotEquals(((PrintlnStmt)stmts.get(0)).exp, ((PrintlnStmt)stmts.get(3)).exp);
+    }
+
+    @Test
+    public void testSharedAcrossParses() throws ParseException, TokenizerException {
+        final HashConsingNodeFactory nodeFactory = new HashConsingNodeFactory();
+        final Program first = parse("println(x - (y < 2));", nodeFactory);
+        final Program second = parse("println(x - (y < 2));", nodeFactory);
+        assertSame(first.stmt, second.stmt);
+        nodeFactory.clear();
+        assertEquals(0, nodeFactory.size());
+    }
+
+    @Test
+    public void testSameStructureAsDefault() throws ParseException {
+        final HashConsingNodeFactory nodeFactory = new HashConsingNodeFactory();
+        for (long seed = 0; seed < 5; seed++) {
+            final TokenBuffer tokens = Asts.generate(seed, 500);
+            final Parser parser = new Parser(tokens);
+            parser.setNodeFactory(nodeFactory);
+            Asts.assertSameStructure(new Parser(tokens).parseProgram().stmt,
+                                     parser.parseProgram().stmt);
+        }
+    }
+
+    @Test
+    public void testOperandOrderChangesHash() {
+        // 1 + 2 and 2 + 1 used to collide, as the hash added the children's
+        final OpExp first = new OpExp(new IntegerExp(1), PlusOp.INSTANCE, new IntegerExp(2));
+        final OpExp second = new OpExp(new IntegerExp(2), PlusOp.INSTANCE, new IntegerExp(1));
+        assertNotEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, second);
+    }
+}
@@ -0,0 +1,109 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+public class IncrementalParserTest {
+    private static List<Token> generate(final long seed) {
+        final List<Token> tokens = new ArrayList<Token>();
+        new ProgramGenerator(seed, 4, 4, 3, 6).generate(50, new Consumer<Token>() {
+                public void accept(final Token token) {
+                    tokens.add(token);
+                }
+            });
+        return tokens;
+    }
+
+    @Test
+    public void testIntegerEditsMatchFullParse() throws ParseException {
+        final Random random = new Random(0);
+        final IncrementalParser incremental = new IncrementalParser(generate(1));
+        for (int edit = 0; edit < 200; edit++) {
+            final List<Token> tokens = incremental.getTokens();
+            final int position = random.nextInt(tokens.size());
+            if (tokens.get(position) instanceof IntegerToken) {
+                incremental.edit(position, position + 1,
+                                 Arrays.<Token>asList(new IntegerToken(random.nextInt(1000))));
+                Asts.assertSameStructure(new Parser(tokens).parseProgram().stmt,
+                                    incremental.getProgram().stmt);
+            }
+        }
+    }
+
+    @Test
+    public void testStmtInsertionsMatchFullParse() throws ParseException {
+        final Random random = new Random(1);
+        final IncrementalParser incremental = new IncrementalParser(generate(2));
+        final List<Token> println = Arrays.<Token>asList(new PrintlnToken(),
+                                                         new LeftParenToken(),
+                                                         new VariableToken("y"),
+                                                         new RightParenToken(),
+                                                         new SemicolonToken());
+        for (int edit = 0; edit < 100; edit++) {
+            final List<Token> tokens = incremental.getTokens();
+            final int position = 1 + random.nextInt(tokens.size() - 1);
+            // a statement can be inserted before any statement, or before a }
+            final Token next = tokens.get(position);
+            if (next instanceof PrintlnToken || next instanceof IfToken ||
+                next instanceof LeftCurlyToken || next instanceof RightCurlyToken) {
+                final Token previous = tokens.get(position - 1);
+                if (previous instanceof LeftCurlyToken ||
+                    previous instanceof RightCurlyToken ||
+                    previous instanceof SemicolonToken) {
+                    incremental.edit(position, position, println);
+                    Asts.assertSameStructure(new Parser(tokens).parseProgram().stmt,
+                                        incremental.getProgram().stmt);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUnchangedStmtsAreReused() throws ParseException {
+        // { println(1); println(2); }
+        final IncrementalParser incremental =
+            new IncrementalParser(Arrays.asList(new LeftCurlyToken(),
+                                                new PrintlnToken(),
+                                                new LeftParenToken(),
+                                                new IntegerToken(1),
+                                                new RightParenToken(),
+                                                new SemicolonToken(),
+                                                new PrintlnToken(),
+                                                new LeftParenToken(),
+                                                new IntegerToken(2),
+                                                new RightParenToken(),
+                                                new SemicolonToken(),
+                                                new RightCurlyToken()));
+        final List<Stmt> before = ((BlockStmt)incremental.getProgram().stmt).stmts;
+        incremental.edit(8, 9, Arrays.<Token>asList(new IntegerToken(3)));
+        final List<Stmt> after = ((BlockStmt)incremental.getProgram().stmt).stmts;
+        assertSame(before.get(0), after.get(0));
+        assertNotSame(before.get(1), after.get(1));
+        assertEquals(new PrintlnStmt(new IntegerExp(3)), after.get(1));
+    }
+
+    @Test
+    public void testFailedEditIsUndone() throws ParseException {
+        final List<Token> original = generate(3);
+        final IncrementalParser incremental = new IncrementalParser(original);
+        final Program before = incremental.getProgram();
+        try {
+            // drop the final }
+            incremental.edit(original.size() - 1, original.size(), new ArrayList<Token>());
+            fail("expected a ParseException");
+        } catch (final ParseException e) {
+            assertEquals(original, incremental.getTokens());
+            assertSame(before, incremental.getProgram());
+        }
+    }
+}
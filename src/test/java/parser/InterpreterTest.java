@@ -0,0 +1,99 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class InterpreterTest {
+    private static Interpreter compile(final String source) throws ParseException, TokenizerException {
+        return new Interpreter(new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram());
+    }
+
+    @Test
+    public void testArithmetic() throws ParseException, TokenizerException {
+        final Interpreter interpreter = compile("{ println(1 + 2 - 5); println(3 < 4); " +
+                                                "println(4 < 3); println(2 == 2); println(1 - 2 == 0 - 1); }");
+        assertEquals("-2\n1\n0\n1\n1\n", interpreter.run(interpreter.newFrame()));
+    }
+
+    @Test
+    public void testVariables() throws ParseException, TokenizerException {
+        final Interpreter interpreter = compile("{ println(x - y); println(y + x + x); }");
+        assertEquals(2, interpreter.numSlots());
+        assertEquals(-1, interpreter.slot("z"));
+        final int[] frame = interpreter.newFrame();
+        frame[interpreter.slot("x")] = 10;
+        frame[interpreter.slot("y")] = 3;
+        assertEquals("7\n23\n", interpreter.run(frame));
+    }
+
+    @Test
+    public void testIf() throws ParseException, TokenizerException {
+        final Interpreter interpreter =
+            compile("if (x < 5) { if (x == 0) { println(0); } else { println(1); } } else { println(5); }");
+        final int[] frame = interpreter.newFrame();
+        assertEquals("0\n", interpreter.run(frame));
+        assertEquals("0\n", interpreter.walk(frame));
+        frame[0] = 3;
+        assertEquals("1\n", interpreter.run(frame));
+        assertEquals("1\n", interpreter.walk(frame));
+        frame[0] = 7;
+        assertEquals("5\n", interpreter.run(frame));
+        assertEquals("5\n", interpreter.walk(frame));
+    }
+
+    @Test
+    public void testExtremeValuesAndLongOutput() throws ParseException, TokenizerException {
+        final Interpreter interpreter = compile("{ println(0 - 2147483647 - 1); println(2147483647 + 1); }");
+        assertEquals("-2147483648\n-2147483648\n", interpreter.run(interpreter.newFrame()));
+
+        // more output than fits in the buffer at once
+        final StringBuilder source = new StringBuilder("{");
+        final StringBuilder expected = new StringBuilder();
+        for (int index = 0; index < 5000; index++) {
+            source.append("println(" + index + ");");
+            expected.append(index).append('\n');
+        }
+        source.append("}");
+        final Interpreter longInterpreter = compile(source.toString());
+        assertEquals(expected.toString(), longInterpreter.run(longInterpreter.newFrame()));
+    }
+
+    @Test
+    public void testDeepNesting() throws ParseException {
+        // if (1) { if (1) { ... println(7); ... } else { } } else { }
+        final int depth = 100000;
+        final TokenBuffer tokens = new TokenBuffer();
+        for (int index = 0; index < depth; index++) {
+            tokens.add(TokenKind.IF, 0, -1);
+            tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+            tokens.add(TokenKind.INTEGER, 1, -1);
+            tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+        }
+        tokens.add(TokenKind.PRINTLN, 0, -1);
+        tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+        tokens.add(TokenKind.INTEGER, 7, -1);
+        tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+        tokens.add(TokenKind.SEMICOLON, 0, -1);
+        for (int index = 0; index < depth; index++) {
+            tokens.add(TokenKind.ELSE, 0, -1);
+            tokens.add(TokenKind.LEFT_CURLY, 0, -1);
+            tokens.add(TokenKind.RIGHT_CURLY, 0, -1);
+        }
+        final Interpreter interpreter = new Interpreter(new Parser(tokens).parseProgram());
+        assertEquals("7\n", interpreter.run(interpreter.newFrame()));
+        assertEquals("7\n", interpreter.walk(interpreter.newFrame()));
+    }
+
+    @Test
+    public void testWalkMatchesRun() throws ParseException {
+        for (long seed = 0; seed < 5; seed++) {
+            final Interpreter interpreter = new Interpreter(new Parser(Asts.generate(seed, 500)).parseProgram());
+            final int[] frame = interpreter.newFrame();
+            for (int slot = 0; slot < frame.length; slot++) {
+                frame[slot] = slot - 3;
+            }
+            assertEquals(interpreter.run(frame), interpreter.walk(frame));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class NodesTest {
+    private static Program parse(final String source) throws ParseException, TokenizerException {
+        return new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram();
+    }
+
+    private static BlockStmt block(final Stmt... stmts) {
+        return new BlockStmt(new ArrayList<Stmt>(Arrays.asList(stmts)));
+    }
+
+    // x + x + ... + x, depth additions deep
+    private static Exp chain(final int depth, final int last) {
+        Exp exp = new IntegerExp(0);
+        for (int index = 1; index <= depth; index++) {
+            exp = new OpExp(exp,
+                            PlusOp.INSTANCE,
+                            (index == depth) ? new IntegerExp(last) : new VariableExp(new Variable("x")));
+        }
+        return exp;
+    }
+
+    // depth blocks around a println of exp
+    private static Stmt nest(final int depth, final Exp exp) {
+        Stmt stmt = new PrintlnStmt(exp);
+        for (int index = 0; index < depth; index++) {
+            final List<Stmt> stmts = new ArrayList<Stmt>();
+            stmts.add(stmt);
+            stmt = new BlockStmt(stmts);
+        }
+        return stmt;
+    }
+
+    @Test
+    public void testEquality() throws ParseException, TokenizerException {
+        final String source = "{ if (x < 1) { println(2 - y); } else { } println(3); }";
+        final Program first = parse(source);
+        final Program second = parse(source);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first.stmt, second.stmt);
+
+        assertNotEquals(first, parse("{ if (x < 1) { println(2 - y); } else { } println(4); }"));
+        assertNotEquals(first, parse("{ if (x < 1) { println(2 - y); } else { } }"));
+        assertNotEquals(first, parse("{ if (x < 1) { println(y - 2); } else { } println(3); }"));
+        assertNotEquals(block(), block(new PrintlnStmt(new IntegerExp(1))));
+        assertNotEquals(new PrintlnStmt(new IntegerExp(1)), new IntegerExp(1));
+        assertNotEquals(new Program(block()), block());
+    }
+
+    @Test
+    public void testHashesMatchStructure() {
+        final OpExp exp = new OpExp(new IntegerExp(1), MinusOp.INSTANCE, new IntegerExp(2));
+        assertEquals(31 * (31 * 1 + MinusOp.INSTANCE.hashCode()) + 2, exp.hashCode());
+        assertEquals(31 * 7 + exp.hashCode(), new PrintlnStmt(exp).hashCode());
+        final BlockStmt block = block(new PrintlnStmt(exp), block());
+        assertEquals(block.stmts.hashCode(), block.hashCode());
+        // kept hashes don't change the result
+        assertEquals(block.stmts.hashCode(), block.hashCode());
+        assertNotEquals(block.hashCode(), new Program(block).hashCode());
+    }
+
+    @Test
+    public void testKeptHashesTellTreesApart() {
+        final BlockStmt first = block(new PrintlnStmt(new IntegerExp(1)));
+        final BlockStmt second = block(new PrintlnStmt(new IntegerExp(2)));
+        first.hashCode();
+        second.hashCode();
+        assertFalse(Nodes.equal(first, second));
+        assertTrue(Nodes.equal(first, block(new PrintlnStmt(new IntegerExp(1)))));
+    }
+
+    @Test
+    public void testKeptHashesStayRight() {
+        // a block's list is handed over, and can't be changed through it
+        final List<Stmt> stmts = new ArrayList<Stmt>();
+        stmts.add(new PrintlnStmt(new IntegerExp(1)));
+        final BlockStmt block = new BlockStmt(stmts);
+        final int hash = block.hashCode();
+        assertEquals(hash, block.hashCode());
+        try {
+            block.stmts.add(new PrintlnStmt(new IntegerExp(2)));
+            fail("expected an UnsupportedOperationException");
+        } catch (final UnsupportedOperationException e) {}
+
+        // an operator chain keeps its hash, which sub-trees holding it use
+        final Exp exp = chain(1000, 1);
+        final int expHash = exp.hashCode();
+        assertEquals(expHash, ((OpExp)exp).hash);
+        assertEquals(expHash, exp.hashCode());
+        assertEquals(31 * (31 * expHash + PlusOp.INSTANCE.hashCode()) + expHash,
+                     new OpExp(exp, PlusOp.INSTANCE, exp).hashCode());
+        final OpExp printed = (OpExp)chain(1000, 1);
+        assertEquals(31 * 7 + expHash, new PrintlnStmt(printed).hashCode());
+        assertEquals(expHash, printed.hash);
+    }
+
+    @Test
+    public void testPrinting() throws ParseException, TokenizerException, IOException {
+        final Program program = parse("{ if (x < 1) { println(2 - y); } else { } println(3); }");
+        final String expected =
+            "Program(BlockStmt(" +
+            "IfStmt(OpExp(VariableExp(Variable(x)), LessThanOp, IntegerExp(1)), " +
+            "BlockStmt(Println(OpExp(IntegerExp(2), MinusOp, VariableExp(Variable(y))))), " +
+            "BlockStmt()), " +
+            "Println(IntegerExp(3))))";
+        assertEquals(expected, program.toString());
+
+        final StringBuilder out = new StringBuilder("> ");
+        Nodes.print(program.stmt, out);
+        assertEquals("> " + expected.substring("Program(".length(), expected.length() - 1),
+                     out.toString());
+    }
+
+    @Test
+    public void testDeepTrees() {
+        // far deeper than recursion could manage
+        final int depth = 1000000;
+        final Stmt first = nest(depth, chain(depth, 1));
+        final Stmt second = nest(depth, chain(depth, 1));
+        final Stmt third = nest(depth, chain(depth, 2));
+        assertEquals(first, second);
+        assertNotEquals(first, third);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first.hashCode(), third.hashCode());
+
+        final String printed = first.toString();
+        assertTrue(printed.startsWith("BlockStmt(BlockStmt("));
+        // closed by the outermost OpExp, the println and every block
+        assertEquals(printed.length() - (depth + 2) - "IntegerExp(1)".length(),
+                     printed.lastIndexOf("IntegerExp(1)"));
+        assertEquals(depth * "BlockStmt()".length() +
+                     "Println()".length() +
+                     depth * "OpExp(, PlusOp, )".length() +
+                     "IntegerExp(0)".length() +
+                     (depth - 1) * "VariableExp(Variable(x))".length() +
+                     "IntegerExp(1)".length(),
+                     printed.length());
+    }
+}
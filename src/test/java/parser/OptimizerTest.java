@@ -0,0 +1,123 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class OptimizerTest {
+    private static Program parse(final String source) throws ParseException, TokenizerException {
+        return new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram();
+    }
+
+    @Test
+    public void testFoldsConstants() throws ParseException, TokenizerException {
+        final Optimizer optimizer = new Optimizer();
+        // 1 + 2 - (3 < 4) == 2 ==> ((3 - 1) == 2) ==> 1
+        final Stmt stmt = optimizer.optimize(parse("println(1 + 2 - (3 < 4) == 2);").stmt);
+        assertEquals(new PrintlnStmt(new IntegerExp(1)), stmt);
+        assertEquals(8, optimizer.getNumRemoved());
+    }
+
+    @Test
+    public void testKeepsVariables() throws ParseException, TokenizerException {
+        final Optimizer optimizer = new Optimizer();
+        // x + (2 - 1) ==> x + 1
+        final Exp exp = ((PrintlnStmt)optimizer.optimize(parse("println(x + (2 - 1));").stmt)).exp;
+        assertEquals(new OpExp(new VariableExp(new Variable("x")), PlusOp.INSTANCE, new IntegerExp(1)),
+                     exp);
+        assertEquals(2, optimizer.getNumRemoved());
+    }
+
+    @Test
+    public void testUnchangedTreeIsReused() throws ParseException, TokenizerException {
+        final Program program = parse("{ if (x < y) { println(x); } else { println(y - 1); } }");
+        final Optimizer optimizer = new Optimizer();
+        assertSame(program, optimizer.optimize(program));
+        assertEquals(0, optimizer.getNumRemoved());
+    }
+
+    @Test
+    public void testEliminatesDeadBranchesAndFlattens() throws ParseException, TokenizerException {
+        final Optimizer optimizer = new Optimizer();
+        final Stmt stmt = optimizer.optimize(parse("{ println(0); " +
+                                                   "if (2 < 1) { println(1); } else { println(2); { println(3); } } " +
+                                                   "{ } if (x) { { println(4); } } else { } }").stmt);
+        final List<Stmt> stmts = ((BlockStmt)stmt).stmts;
+        assertEquals(4, stmts.size());
+        assertEquals(new PrintlnStmt(new IntegerExp(0)), stmts.get(0));
+        assertEquals(new PrintlnStmt(new IntegerExp(2)), stmts.get(1));
+        assertEquals(new PrintlnStmt(new IntegerExp(3)), stmts.get(2));
+        final IfStmt ifStmt = (IfStmt)stmts.get(3);
+        assertEquals(1, ((BlockStmt)ifStmt.trueBranch).stmts.size());
+        // the if and its guard (4 nodes), the dead branch (3), and four
+        // blocks: the taken branch, the two nested ones and the empty one
+        assertEquals(11, optimizer.getNumRemoved());
+    }
+
+    @Test
+    public void testSameOutputAsUnoptimized() throws ParseException {
+        for (long seed = 0; seed < 5; seed++) {
+            final Program program = new Parser(Asts.generate(seed, 500)).parseProgram();
+            final Interpreter before = new Interpreter(program);
+            final Interpreter after = new Interpreter(new Optimizer().optimize(program));
+            final int[] frame = before.newFrame();
+            final int[] optimizedFrame = after.newFrame();
+            for (int slot = 0; slot < optimizedFrame.length; slot++) {
+                optimizedFrame[slot] = after.slotName(slot).length();
+                frame[before.slot(after.slotName(slot))] = optimizedFrame[slot];
+            }
+            assertEquals(before.run(frame), after.run(optimizedFrame));
+        }
+    }
+
+    @Test
+    public void testDeepNesting() {
+        // 1 - (1 - (1 - ...)), an even number of times ==> 0
+        Exp exp = IntegerExp.valueOf(1);
+        for (int depth = 0; depth < 1000000; depth++) {
+            exp = new OpExp(IntegerExp.valueOf(1), MinusOp.INSTANCE, exp);
+        }
+        assertEquals(new IntegerExp(1), new Optimizer().optimize(exp));
+    }
+
+    @Test
+    public void testFlattensNestedBlocksOnce() {
+        // a wide block under a deep chain of blocks, each with one more
+        // statement after the one it's in
+        final int width = 1000;
+        final int depth = 1000;
+        final List<Stmt> wide = new ArrayList<Stmt>();
+        for (int index = 0; index < width; index++) {
+            wide.add(new PrintlnStmt(IntegerExp.valueOf(index)));
+        }
+        Stmt stmt = new BlockStmt(wide);
+        for (int level = 0; level < depth; level++) {
+            final List<Stmt> stmts = new ArrayList<Stmt>();
+            stmts.add(stmt);
+            stmts.add(new PrintlnStmt(new VariableExp(new Variable("x"))));
+            stmt = new BlockStmt(stmts);
+        }
+
+        // only the outermost block is built, with every statement given
+        // to it once
+        final int[] numGiven = new int[2];
+        final Optimizer optimizer = new Optimizer(new DefaultNodeFactory() {
+                public BlockStmt blockStmt(final List<Stmt> stmts) {
+                    numGiven[0]++;
+                    numGiven[1] += stmts.size();
+                    return super.blockStmt(stmts);
+                }
+            });
+        final List<Stmt> stmts = ((BlockStmt)optimizer.optimize(stmt)).stmts;
+        assertEquals(1, numGiven[0]);
+        assertEquals(width + depth, numGiven[1]);
+        assertEquals(width + depth, stmts.size());
+        assertSame(wide.get(0), stmts.get(0));
+        assertSame(wide.get(width - 1), stmts.get(width - 1));
+        assertEquals(depth, optimizer.getNumRemoved());
+    }
+}
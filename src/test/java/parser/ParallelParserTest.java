@@ -0,0 +1,71 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ParallelParserTest {
+    @Test
+    public void testMatchesSequentialParse() throws ParseException {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long seed = 0; seed < 5; seed++) {
+                final TokenBuffer tokens = Asts.generate(seed, 2000);
+                Asts.assertSameStructure(new Parser(tokens).parseProgram().stmt,
+                                         new ParallelParser(tokens, pool).parseProgram().stmt);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testNonBlockProgram() throws ParseException {
+        // println(1);
+        final TokenBuffer tokens = new TokenBuffer();
+        tokens.add(TokenKind.PRINTLN, 0, -1);
+        tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+        tokens.add(TokenKind.INTEGER, 1, -1);
+        tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+        tokens.add(TokenKind.SEMICOLON, 0, -1);
+        assertEquals(new PrintlnStmt(new IntegerExp(1)),
+                     new ParallelParser(tokens).parseProgram().stmt);
+    }
+
+    @Test
+    public void testSameErrorAsSequentialParse() {
+        final TokenBuffer tokens = Asts.generate(7, 1000);
+        // break a statement in the middle: turn its first token into a `;`
+        int position = tokens.size() / 2;
+        while (tokens.kind(position) != TokenKind.PRINTLN) {
+            position++;
+        }
+        final TokenBuffer broken = new TokenBuffer();
+        for (int index = 0; index < tokens.size(); index++) {
+            if (index == position) {
+                broken.add(TokenKind.SEMICOLON, 0, -1);
+            } else if (tokens.kind(index) == TokenKind.VARIABLE) {
+                broken.addVariable(tokens.name(tokens.payload(index)), -1);
+            } else {
+                broken.add(tokens.kind(index), tokens.payload(index), -1);
+            }
+        }
+
+        String sequential = null;
+        String parallel = null;
+        try {
+            new Parser(broken).parseProgram();
+        } catch (final ParseException e) {
+            sequential = e.getMessage();
+        }
+        try {
+            new ParallelParser(broken).parseProgram();
+        } catch (final ParseException e) {
+            parallel = e.getMessage();
+        }
+        assertEquals(sequential, parallel);
+        assertEquals(false, sequential == null);
+    }
+}
@@ -0,0 +1,91 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class ParseMetricsTest {
+    private static Parser parser(final String source, final ParseMetrics metrics) throws TokenizerException {
+        final Parser parser = new Parser(new Tokenizer(source).tokenizeToBuffer());
+        parser.setParseListener(metrics);
+        return parser;
+    }
+
+    @Test
+    public void testCountsProgram() throws ParseException, TokenizerException {
+        final ParseMetrics metrics = new ParseMetrics();
+        // 22 tokens
+        parser("{ if (x < (1 + x)) { println(2); } else { } }", metrics).parseProgram();
+        assertEquals(22, metrics.getTokensConsumed());
+        final Map<String, Long> nodes = metrics.getNodesBuiltByType();
+        assertEquals(Long.valueOf(2), nodes.get("IntegerExp"));
+        // one VariableExp shared by both uses of x
+        assertEquals(Long.valueOf(1), nodes.get("VariableExp"));
+        assertEquals(Long.valueOf(2), nodes.get("OpExp"));
+        assertEquals(Long.valueOf(1), nodes.get("PrintlnStmt"));
+        assertEquals(Long.valueOf(1), nodes.get("IfStmt"));
+        assertEquals(Long.valueOf(3), nodes.get("BlockStmt"));
+        assertEquals(10, metrics.getNodesBuilt());
+        assertEquals(0, metrics.getParseErrors());
+        // the outer block, then < and ( and + inside the guard (the if
+        // itself waits only once its guard is parsed)
+        assertEquals(4, metrics.getMaxDepth());
+        assertEquals(Long.valueOf(1), metrics.getRuleCalls().get("parseProgram"));
+        assertTrue(metrics.getRuleNanos().get("parseProgram").longValue() > 0);
+        // the work within parseProgram
+        final Map<String, Long> calls = metrics.getRuleCalls();
+        assertEquals(Long.valueOf(3), calls.get("blockStmt"));
+        assertEquals(Long.valueOf(1), calls.get("ifStmt"));
+        assertEquals(Long.valueOf(1), calls.get("printlnStmt"));
+        assertEquals(Long.valueOf(2), calls.get("exp"));
+        final Map<String, Long> nanos = metrics.getRuleNanos();
+        assertTrue(nanos.get("parseProgram").longValue() >= nanos.get("ifStmt").longValue());
+        assertTrue(nanos.get("ifStmt").longValue() >= nanos.get("printlnStmt").longValue());
+    }
+
+    @Test
+    public void testCountsFailures() throws TokenizerException {
+        final ParseMetrics metrics = new ParseMetrics();
+        final Parser parser = parser("println(1 +);", metrics);
+        try {
+            parser.parseStmt(0);
+            fail();
+        } catch (final ParseException e) {}
+        try {
+            parser.parseAdditiveOp(0);
+            fail();
+        } catch (final ParseException e) {}
+        assertEquals(2, metrics.getParseErrors());
+        assertEquals(0, metrics.getTokensConsumed());
+        assertEquals(Long.valueOf(1), metrics.getRuleCalls().get("parseStmt"));
+        assertEquals(Long.valueOf(1), metrics.getRuleCalls().get("parseAdditiveOp"));
+        metrics.reset();
+        assertEquals(0, metrics.getParseErrors());
+        assertTrue(metrics.getRuleCalls().isEmpty());
+    }
+
+    @Test
+    public void testMBean() throws JMException, ParseException, TokenizerException {
+        final ParseMetrics metrics = new ParseMetrics();
+        parser("println(x);", metrics).parseProgram();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = metrics.register("test");
+        try {
+            assertEquals(Long.valueOf(5), server.getAttribute(name, "TokensConsumed"));
+            assertEquals(Long.valueOf(2), server.getAttribute(name, "NodesBuilt"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(Long.valueOf(0), server.getAttribute(name, "TokensConsumed"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
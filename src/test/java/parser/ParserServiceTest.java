@@ -0,0 +1,155 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class ParserServiceTest {
+    private static List<String> generateSources(final int count) throws IOException {
+        final List<String> sources = new ArrayList<String>();
+        for (int seed = 0; seed < count; seed++) {
+            final StringBuilder source = new StringBuilder();
+            new ProgramGenerator(seed, 3, 3, 3, 5).generateSource(20, source);
+            sources.add(source.toString());
+        }
+        return sources;
+    }
+
+    @Test
+    public void testParseAllMatchesParser() throws Exception {
+        final List<String> sources = generateSources(200);
+        final ParserService service = new ParserService(4);
+        try {
+            final Program[] programs = service.parseAll(sources);
+            assertEquals(sources.size(), programs.length);
+            for (int index = 0; index < programs.length; index++) {
+                final Program expected =
+                    new Parser(new Tokenizer(sources.get(index)).tokenize()).parseProgram();
+                Asts.assertSameStructure(expected.stmt, programs[index].stmt);
+            }
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test(expected = ParseException.class)
+    public void testParseAllThrowsParseFailure() throws Exception {
+        final List<String> sources = new ArrayList<String>(generateSources(10));
+        sources.add("{ println(1) }");
+        final ParserService service = new ParserService();
+        try {
+            service.parseAll(sources);
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testSubmitTokenizerFailure() throws InterruptedException {
+        final ParserService service = new ParserService(2);
+        try {
+            service.submit("{ x = 1 }").get();
+            fail("expected a TokenizerException");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof TokenizerException);
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testSubmitTokens() throws Exception {
+        final ParserService service = new ParserService(2);
+        try {
+            final Program program =
+                service.submitTokens(Arrays.asList(new PrintlnToken(),
+                                                   new LeftParenToken(),
+                                                   new VariableToken("x"),
+                                                   new RightParenToken(),
+                                                   new SemicolonToken())).get();
+            assertEquals(new PrintlnStmt(new VariableExp(new Variable("x"))), program.stmt);
+        } finally {
+            service.close();
+        }
+    }
+
+    // source text which holds up tokenizing until told to go on
+    private static class HeldSource implements CharSequence {
+        private final String source;
+        private final CountDownLatch started;
+        private final CountDownLatch go;
+        private boolean held;
+
+        public HeldSource(final String source, final CountDownLatch started, final CountDownLatch go) {
+            this.source = source;
+            this.started = started;
+            this.go = go;
+        }
+
+        public int length() {
+            if (!held) {
+                held = true;
+                started.countDown();
+                try {
+                    go.await();
+                } catch (final InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return source.length();
+        }
+
+        public char charAt(final int index) {
+            return source.charAt(index);
+        }
+
+        public CharSequence subSequence(final int start, final int end) {
+            return source.subSequence(start, end);
+        }
+
+        public String toString() {
+            return source;
+        }
+    }
+
+    @Test
+    public void testIdleWorkersAreCapped() throws Exception {
+        // 8 parses at once, on a service which keeps 2 workers
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final ParserService service = new ParserService(2);
+        final ParserService burst = new ParserService(executor);
+        try {
+            final CountDownLatch started = new CountDownLatch(8);
+            final CountDownLatch go = new CountDownLatch(1);
+            final List<CompletableFuture<Program>> futures = new ArrayList<CompletableFuture<Program>>();
+            for (int index = 0; index < 8; index++) {
+                futures.add(burst.submit(new HeldSource("println(" + index + ");", started, go)));
+            }
+            started.await();
+            go.countDown();
+            for (int index = 0; index < 8; index++) {
+                assertEquals(new PrintlnStmt(new IntegerExp(index)), futures.get(index).get().stmt);
+            }
+            assertEquals(Math.min(8, Runtime.getRuntime().availableProcessors()), burst.numIdleWorkers());
+
+            service.parseAll(generateSources(20));
+            assertTrue(service.numIdleWorkers() <= 2);
+        } finally {
+            burst.close();
+            executor.shutdown();
+            service.close();
+        }
+    }
+}
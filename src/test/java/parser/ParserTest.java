@@ -2,6 +2,9 @@ package parser;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import java.util.Arrays;
 
@@ -149,4 +152,332 @@ public class ParserTest {
                      parser.parseLessThanExp(0));
     }
 
+    @Test
+    public void testEqualsMixedOperator() throws ParseException {
+        // 1 < 2 == 3 ==> (1 < 2) == 3
+        final Parser parser = new Parser(Arrays.asList(new IntegerToken(1),
+                                                       new LessThanToken(),
+                                                       new IntegerToken(2),
+                                                       new EqualsToken(),
+                                                       new IntegerToken(3)));
+        final Exp expected = new OpExp(new OpExp(new IntegerExp(1),
+                                                 new LessThanOp(),
+                                                 new IntegerExp(2)),
+                                       new EqualsOp(),
+                                       new IntegerExp(3));
+        assertEquals(new ParseResult<Exp>(expected, 5),
+                     parser.parseEqualsExp(0));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testAdditiveExpMissingOperand() throws ParseException {
+        // 1 +
+        final Parser parser = new Parser(Arrays.asList(new IntegerToken(1),
+                                                       new PlusToken()));
+        parser.parseAdditiveExp(0);
+    }
+
+    @Test
+    public void testOperatorWithoutOperand() {
+        // 1 +, 1 <, and 1 ==: an operator commits to its right operand, so
+        // these throw, rather than parsing the 1 and leaving the operator
+        // for the caller as the exception-driven parser used to
+        final Token[] operators = {new PlusToken(), new LessThanToken(), new EqualsToken()};
+        for (int index = 0; index < operators.length; index++) {
+            final Parser parser = new Parser(Arrays.asList(new IntegerToken(1), operators[index]));
+            try {
+                if (index == 0) {
+                    parser.parseAdditiveExp(0);
+                } else if (index == 1) {
+                    parser.parseLessThanExp(0);
+                } else {
+                    parser.parseEqualsExp(0);
+                }
+                fail("expected a ParseException");
+            } catch (final ParseException e) {
+                assertEquals("expected: primary expression; received: end of input", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testBlockStmt() throws ParseException {
+        // { println(1); println(x); }
+        final Parser parser = new Parser(Arrays.asList(new LeftCurlyToken(),
+                                                       new PrintlnToken(),
+                                                       new LeftParenToken(),
+                                                       new IntegerToken(1),
+                                                       new RightParenToken(),
+                                                       new SemicolonToken(),
+                                                       new PrintlnToken(),
+                                                       new LeftParenToken(),
+                                                       new VariableToken("x"),
+                                                       new RightParenToken(),
+                                                       new SemicolonToken(),
+                                                       new RightCurlyToken()));
+        final ParseResult<Stmt> result = parser.parseStmt(0);
+        assertEquals(12, result.position);
+        assertEquals(Arrays.asList(new PrintlnStmt(new IntegerExp(1)),
+                                   new PrintlnStmt(new VariableExp(new Variable("x")))),
+                     ((BlockStmt)result.result).stmts);
+    }
+
+    @Test
+    public void testEmptyBlockProgram() throws ParseException {
+        // {}
+        final Parser parser = new Parser(Arrays.asList(new LeftCurlyToken(),
+                                                       new RightCurlyToken()));
+        final Program program = parser.parseProgram();
+        assertTrue(((BlockStmt)program.stmt).stmts.isEmpty());
+    }
+
+    @Test(expected = ParseException.class)
+    public void testBadStmtInBlock() throws ParseException {
+        // { println(1) }
+        final Parser parser = new Parser(Arrays.asList(new LeftCurlyToken(),
+                                                       new PrintlnToken(),
+                                                       new LeftParenToken(),
+                                                       new IntegerToken(1),
+                                                       new RightParenToken(),
+                                                       new RightCurlyToken()));
+        parser.parseProgram();
+    }
+
+    @Test
+    public void testVariableExpsAreShared() throws ParseException {
+        // x + x
+        final Parser parser = new Parser(Arrays.asList(new VariableToken("x"),
+                                                       new PlusToken(),
+                                                       new VariableToken("x")));
+        final OpExp exp = (OpExp)parser.parseExp(0).result;
+        assertSame(exp.left, exp.right);
+        assertSame(PlusOp.INSTANCE, exp.op);
+    }
+
+    @Test
+    public void testParensRightNested() throws ParseException {
+        // 1 - (2 - 3) == 4
+        final Parser parser = new Parser(Arrays.asList(new IntegerToken(1),
+                                                       new MinusToken(),
+                                                       new LeftParenToken(),
+                                                       new IntegerToken(2),
+                                                       new MinusToken(),
+                                                       new IntegerToken(3),
+                                                       new RightParenToken(),
+                                                       new EqualsToken(),
+                                                       new IntegerToken(4)));
+        final Exp expected = new OpExp(new OpExp(new IntegerExp(1),
+                                                 new MinusOp(),
+                                                 new OpExp(new IntegerExp(2),
+                                                           new MinusOp(),
+                                                           new IntegerExp(3))),
+                                       new EqualsOp(),
+                                       new IntegerExp(4));
+        assertEquals(new ParseResult<Exp>(expected, 9),
+                     parser.parseExp(0));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testUnclosedParen() throws ParseException {
+        // (1 + 2
+        final Parser parser = new Parser(Arrays.asList(new LeftParenToken(),
+                                                       new IntegerToken(1),
+                                                       new PlusToken(),
+                                                       new IntegerToken(2)));
+        parser.parseExp(0);
+    }
+
+    @Test
+    public void testIfStmt() throws ParseException {
+        // if (x) println(1); else {}
+        final Parser parser = new Parser(Arrays.asList(new IfToken(),
+                                                       new LeftParenToken(),
+                                                       new VariableToken("x"),
+                                                       new RightParenToken(),
+                                                       new PrintlnToken(),
+                                                       new LeftParenToken(),
+                                                       new IntegerToken(1),
+                                                       new RightParenToken(),
+                                                       new SemicolonToken(),
+                                                       new ElseToken(),
+                                                       new LeftCurlyToken(),
+                                                       new RightCurlyToken()));
+        final IfStmt stmt = (IfStmt)parser.parseProgram().stmt;
+        assertEquals(new VariableExp(new Variable("x")), stmt.guard);
+        assertEquals(new PrintlnStmt(new IntegerExp(1)), stmt.trueBranch);
+        assertTrue(((BlockStmt)stmt.falseBranch).stmts.isEmpty());
+    }
+
+    @Test
+    public void testDeeplyNestedParens() throws ParseException {
+        // ((((...(1)...)))) with a million levels
+        final int depth = 1000000;
+        final TokenBuffer tokens = new TokenBuffer();
+        for (int index = 0; index < depth; index++) {
+            tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+        }
+        tokens.add(TokenKind.INTEGER, 1, -1);
+        for (int index = 0; index < depth; index++) {
+            tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+        }
+        assertEquals(new ParseResult<Exp>(new IntegerExp(1), 2 * depth + 1),
+                     new Parser(tokens).parseExp(0));
+    }
+
+    @Test
+    public void testDeeplyNestedStmts() throws ParseException {
+        // if (1) { if (1) { ... {} ... } else {} } else {}, nested a million deep
+        final int depth = 1000000;
+        final TokenBuffer tokens = new TokenBuffer();
+        for (int index = 0; index < depth; index++) {
+            tokens.add(TokenKind.IF, 0, -1);
+            tokens.add(TokenKind.LEFT_PAREN, 0, -1);
+            tokens.add(TokenKind.INTEGER, 1, -1);
+            tokens.add(TokenKind.RIGHT_PAREN, 0, -1);
+            tokens.add(TokenKind.LEFT_CURLY, 0, -1);
+        }
+        tokens.add(TokenKind.LEFT_CURLY, 0, -1);
+        tokens.add(TokenKind.RIGHT_CURLY, 0, -1);
+        for (int index = 0; index < depth; index++) {
+            tokens.add(TokenKind.RIGHT_CURLY, 0, -1);
+            tokens.add(TokenKind.ELSE, 0, -1);
+            tokens.add(TokenKind.LEFT_CURLY, 0, -1);
+            tokens.add(TokenKind.RIGHT_CURLY, 0, -1);
+        }
+
+        Stmt stmt = new Parser(tokens).parseProgram().stmt;
+        int actualDepth = 0;
+        while (stmt instanceof IfStmt) {
+            final BlockStmt trueBranch = (BlockStmt)((IfStmt)stmt).trueBranch;
+            assertEquals(1, trueBranch.stmts.size());
+            stmt = trueBranch.stmts.get(0);
+            actualDepth++;
+        }
+        assertEquals(depth, actualDepth);
+    }
+
+    @Test
+    public void testRightAssociativeOperator() throws ParseException {
+        // 1 - 2 - 3 ==> 1 - (2 - 3), with - registered as right-associative
+        final OperatorTable table = OperatorTable.standard()
+            .register(TokenKind.MINUS, 3, true, MinusOp.INSTANCE);
+        final Parser parser = new Parser(TokenBuffer.of(Arrays.asList(new IntegerToken(1),
+                                                                      new MinusToken(),
+                                                                      new IntegerToken(2),
+                                                                      new MinusToken(),
+                                                                      new IntegerToken(3))),
+                                         table);
+        final Exp expected = new OpExp(new IntegerExp(1),
+                                       new MinusOp(),
+                                       new OpExp(new IntegerExp(2),
+                                                 new MinusOp(),
+                                                 new IntegerExp(3)));
+        assertEquals(new ParseResult<Exp>(expected, 5),
+                     parser.parseExp(0));
+    }
+
+    @Test
+    public void testRegisteredPrecedence() throws ParseException {
+        // 1 + 2 < 3 ==> 1 + (2 < 3), with < registered above +
+        final OperatorTable table = OperatorTable.standard()
+            .register(TokenKind.LESS_THAN, 4, false, LessThanOp.INSTANCE);
+        final Parser parser = new Parser(TokenBuffer.of(Arrays.asList(new IntegerToken(1),
+                                                                      new PlusToken(),
+                                                                      new IntegerToken(2),
+                                                                      new LessThanToken(),
+                                                                      new IntegerToken(3))),
+                                         table);
+        final Exp expected = new OpExp(new IntegerExp(1),
+                                       new PlusOp(),
+                                       new OpExp(new IntegerExp(2),
+                                                 new LessThanOp(),
+                                                 new IntegerExp(3)));
+        assertEquals(new ParseResult<Exp>(expected, 5),
+                     parser.parseExp(0));
+    }
+
+    @Test
+    public void testMemoizedStmtsAreReused() throws ParseException {
+        // { println(1); { println(2); } }
+        final Parser parser = new Parser(Arrays.asList(new LeftCurlyToken(),
+                                                       new PrintlnToken(),
+                                                       new LeftParenToken(),
+                                                       new IntegerToken(1),
+                                                       new RightParenToken(),
+                                                       new SemicolonToken(),
+                                                       new LeftCurlyToken(),
+                                                       new PrintlnToken(),
+                                                       new LeftParenToken(),
+                                                       new IntegerToken(2),
+                                                       new RightParenToken(),
+                                                       new SemicolonToken(),
+                                                       new RightCurlyToken(),
+                                                       new RightCurlyToken()));
+        parser.setMemoizing(true);
+        final BlockStmt outer = (BlockStmt)parser.parseProgram().stmt;
+        final ParseResult<Stmt> inner = parser.parseStmt(6);
+        assertSame(outer.stmts.get(1), inner.result);
+        assertEquals(13, inner.position);
+        assertEquals(new ParseResult<Exp>(new IntegerExp(2), 10),
+                     parser.parseExp(9));
+    }
+
+    @Test
+    public void testNewFactoryForgetsMemoized() throws ParseException {
+        // println(1 + 2);
+        final Parser parser = new Parser(Arrays.asList(new PrintlnToken(),
+                                                       new LeftParenToken(),
+                                                       new IntegerToken(1),
+                                                       new PlusToken(),
+                                                       new IntegerToken(2),
+                                                       new RightParenToken(),
+                                                       new SemicolonToken()));
+        parser.setMemoizing(true);
+        final Stmt plain = parser.parseStmt(0).result;
+        final HashConsingNodeFactory nodeFactory = new HashConsingNodeFactory();
+        parser.setNodeFactory(nodeFactory);
+        final Stmt shared = parser.parseStmt(0).result;
+        assertNotSame(plain, shared);
+        assertEquals(plain, shared);
+        assertTrue(nodeFactory.size() > 0);
+        assertSame(shared, parser.parseStmt(0).result);
+    }
+
+    @Test
+    public void testMemoizedFailure() {
+        // println(1 +
+        final Parser parser = new Parser(Arrays.asList(new PrintlnToken(),
+                                                       new LeftParenToken(),
+                                                       new IntegerToken(1),
+                                                       new PlusToken()));
+        parser.setMemoizing(true);
+        String first = null;
+        String second = null;
+        try {
+            parser.parseStmt(0);
+        } catch (final ParseException e) {
+            first = e.getMessage();
+        }
+        try {
+            parser.parseStmt(0);
+        } catch (final ParseException e) {
+            second = e.getMessage();
+        }
+        assertTrue(first != null);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testMemoTableGrows() {
+        final MemoTable table = new MemoTable();
+        for (int position = 0; position < 10000; position++) {
+            table.put(position % 3, position, Integer.valueOf(position), position + 1);
+        }
+        assertEquals(10000, table.size());
+        for (int position = 0; position < 10000; position++) {
+            assertEquals(Integer.valueOf(position), table.get(position % 3, position));
+            assertEquals(position + 1, table.foundNextPosition);
+        }
+        assertEquals(null, table.get(5, 0));
+    }
 }
@@ -0,0 +1,67 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+public class ProgramGeneratorTest {
+    private static List<Token> generateTokens(final ProgramGenerator generator, final long numStmts) {
+        final List<Token> tokens = new ArrayList<Token>();
+        generator.generate(numStmts, new Consumer<Token>() {
+                public void accept(final Token token) {
+                    tokens.add(token);
+                }
+            });
+        return tokens;
+    }
+
+    @Test
+    public void testSameSeedSameProgram() {
+        assertEquals(generateTokens(new ProgramGenerator(1, 4, 4, 4, 8), 100),
+                     generateTokens(new ProgramGenerator(1, 4, 4, 4, 8), 100));
+    }
+
+    @Test
+    public void testSourceTokenizesToSameTokens() throws IOException, TokenizerException {
+        final ProgramGenerator generator = new ProgramGenerator(2, 4, 4, 4, 8);
+        final StringBuilder source = new StringBuilder();
+        generator.generateSource(100, source);
+        assertEquals(generateTokens(generator, 100),
+                     new Tokenizer(source).tokenize());
+    }
+
+    @Test
+    public void testBufferMatchesTokens() {
+        final ProgramGenerator generator = new ProgramGenerator(3, 4, 4, 4, 8);
+        final TokenBuffer buffer = new TokenBuffer();
+        generator.generate(100, buffer);
+        final List<Token> tokens = generateTokens(generator, 100);
+        assertEquals(tokens.size(), buffer.size());
+        for (int position = 0; position < buffer.size(); position++) {
+            assertEquals(tokens.get(position), buffer.getToken(position));
+        }
+    }
+
+    @Test
+    public void testGeneratedProgramsParse() throws ParseException {
+        for (long seed = 0; seed < 20; seed++) {
+            final TokenBuffer buffer = new TokenBuffer();
+            new ProgramGenerator(seed, 6, 5, 6, 10).generate(200, buffer);
+            final BlockStmt block = (BlockStmt)new Parser(buffer).parseProgram().stmt;
+            assertEquals(200, block.stmts.size());
+        }
+    }
+
+    @Test
+    public void testDeepGeneratedProgramParses() throws ParseException {
+        final TokenBuffer buffer = new TokenBuffer();
+        new ProgramGenerator(4, 100000, 1, 2, 4).generate(1, buffer);
+        assertTrue(new Parser(buffer).parseProgram().stmt instanceof BlockStmt);
+    }
+}
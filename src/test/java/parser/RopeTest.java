@@ -0,0 +1,126 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RopeTest {
+    private static List<Integer> range(final int from, final int to) {
+        final List<Integer> items = new ArrayList<Integer>();
+        for (int item = from; item < to; item++) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Test
+    public void testOf() {
+        assertEquals(Collections.emptyList(), Rope.<Integer>empty());
+        assertEquals(range(0, 1000), Rope.of(range(0, 1000)));
+        final Rope<Integer> rope = Rope.of(range(0, 10));
+        assertSame(rope, Rope.of(rope));
+    }
+
+    @Test
+    public void testReplaceMatchesArrayList() {
+        final Random random = new Random(0);
+        final List<Integer> expected = range(0, 500);
+        Rope<Integer> rope = Rope.of(expected);
+        for (int edit = 0; edit < 2000; edit++) {
+            final int from = random.nextInt(expected.size() + 1);
+            // mostly small edits, sometimes long ones
+            final int maxLength = (random.nextInt(10) == 0) ? 200 : 3;
+            final int to = Math.min(expected.size(), from + random.nextInt(maxLength));
+            final List<Integer> items = range(edit * 1000, edit * 1000 + random.nextInt(maxLength));
+            final Rope<Integer> before = rope;
+            final List<Integer> beforeExpected = new ArrayList<Integer>(expected);
+
+            rope = rope.replace(from, to, items);
+            expected.subList(from, to).clear();
+            expected.addAll(from, items);
+            assertEquals(expected, rope);
+            // the old one is as it was
+            assertEquals(beforeExpected, before);
+        }
+    }
+
+    @Test
+    public void testWith() {
+        final List<Integer> expected = range(0, 300);
+        Rope<Integer> rope = Rope.of(expected);
+        for (int index = 0; index < 300; index += 7) {
+            rope = rope.with(index, -index);
+            expected.set(index, -index);
+        }
+        assertEquals(expected, rope);
+        assertEquals(range(0, 300), Rope.of(range(0, 300)));
+    }
+
+    @Test
+    public void testWeights() {
+        final Random random = new Random(1);
+        final int[] weights = new int[200];
+        for (int index = 0; index < weights.length; index++) {
+            weights[index] = 1 + random.nextInt(5);
+        }
+        Rope<Integer> rope = Rope.of(range(0, weights.length), weights);
+        for (int edit = 0; edit < 100; edit++) {
+            final int index = random.nextInt(weights.length);
+            weights[index] = 1 + random.nextInt(5);
+            rope = (edit % 2 == 0) ?
+                rope.with(index, index, weights[index]) :
+                rope.with(index, index);
+            if (edit % 2 == 1) {
+                weights[index] = rope.weight(index);
+            }
+
+            int total = 0;
+            for (int item = 0; item < weights.length; item++) {
+                assertEquals(weights[item], rope.weight(item));
+                assertEquals(total, rope.weightBefore(item));
+                for (int weight = total; weight < total + weights[item]; weight++) {
+                    assertEquals(item, rope.indexAtWeight(weight));
+                }
+                total += weights[item];
+            }
+            assertEquals(total, rope.weightBefore(weights.length));
+            assertEquals(weights.length, rope.indexAtWeight(total));
+        }
+    }
+
+    @Test
+    public void testReplaceKeepsWeights() {
+        final Rope<String> rope = Rope.of(Arrays.asList("a", "b", "c"), new int[] {2, 3, 4});
+        final Rope<String> replaced = rope.replace(1, 2, Arrays.asList("x", "y"));
+        assertEquals(Arrays.asList("a", "x", "y", "c"), replaced);
+        assertEquals(2, replaced.weight(0));
+        assertEquals(1, replaced.weight(1));
+        assertEquals(4, replaced.weight(3));
+        assertEquals(8, replaced.weightBefore(4));
+    }
+
+    @Test
+    public void testBadIndexes() {
+        final Rope<Integer> rope = Rope.of(range(0, 10));
+        try {
+            rope.get(10);
+            fail("expected an IndexOutOfBoundsException");
+        } catch (final IndexOutOfBoundsException e) {
+            assertEquals("Index 10 of 10", e.getMessage());
+        }
+        try {
+            rope.replace(5, 11, range(0, 1));
+            fail("expected an IndexOutOfBoundsException");
+        } catch (final IndexOutOfBoundsException e) {
+            assertEquals("Range 5 to 11 of 10", e.getMessage());
+        }
+    }
+}
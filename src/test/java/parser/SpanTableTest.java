@@ -0,0 +1,206 @@
+package parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SpanTableTest {
+    @Test
+    public void testTokenSpans() throws TokenizerException {
+        final TokenBuffer tokens = new Tokenizer("println(count  + 123);").tokenizeToBuffer();
+        assertEquals(0, tokens.offset(0));
+        assertEquals(7, tokens.length(0));
+        assertEquals(8, tokens.offset(2));
+        assertEquals(5, tokens.length(2));
+        assertEquals(17, tokens.offset(4));
+        assertEquals(20, tokens.endOffset(4));
+    }
+
+    @Test
+    public void testLinesAndColumns() throws TokenizerException {
+        final TokenBuffer tokens = new Tokenizer("{\n  println(1);\n\n}").tokenizeToBuffer();
+        final LineIndex lines = tokens.getLineIndex();
+        assertEquals(4, lines.numLines());
+        assertEquals("line 1, column 1", tokens.location(0));
+        assertEquals("line 2, column 3", tokens.location(1));
+        assertEquals("line 4, column 1", tokens.location(6));
+        // just after the last token
+        assertEquals("line 4, column 2", tokens.location(7));
+        assertEquals("token 3", TokenBuffer.of(new Tokenizer("{ }").tokenize()).location(3));
+    }
+
+    @Test
+    public void testParseExceptionPosition() throws TokenizerException {
+        final Parser parser = new Parser(new Tokenizer("{\n  println(1 +);\n}").tokenizeToBuffer());
+        try {
+            parser.parseProgram();
+            fail("Expected ParseException");
+        } catch (final ParseException e) {
+            assertEquals(5, e.position);
+            assertEquals("line 2, column 14", parser.location(e.position));
+        }
+    }
+
+    @Test
+    public void testNodeSpans() throws ParseException, TokenizerException {
+        // 0 {, 1 if, 2 (, 3 x, 4 <, 5 (, 6 1, 7 +, 8 x, 9 ), 10 ), 11 println,
+        // 12 (, 13 2, 14 ), 15 ;, 16 else, 17 {, 18 }, 19 }
+        final TokenBuffer tokens =
+            new Tokenizer("{ if (x < (1 + x)) println(2); else { } }").tokenizeToBuffer();
+        final Parser parser = new Parser(tokens);
+        final SpanTable spans = new SpanTable();
+        parser.setSpanTable(spans);
+        final Program program = parser.parseProgram();
+
+        final BlockStmt block = (BlockStmt)program.stmt;
+        assertEquals(Span.pack(0, 20), spans.get(program, block));
+        final IfStmt ifStmt = (IfStmt)block.stmts.get(0);
+        assertEquals(Span.pack(1, 18), spans.get(program, ifStmt));
+        // the parentheses around 1 + x are part of the <, not the +
+        final OpExp lessThan = (OpExp)ifStmt.guard;
+        assertEquals(Span.pack(3, 7), spans.get(block, lessThan));
+        assertEquals(Span.pack(6, 3), spans.get(block, lessThan.right));
+        assertEquals(Span.pack(11, 5), spans.get(block, ifStmt.trueBranch));
+        assertEquals(Span.pack(17, 2), spans.get(block, ifStmt.falseBranch));
+        // leaves are shared, so have no span
+        assertEquals(Span.NONE, spans.get(block, lessThan.left));
+        assertEquals(6, spans.size());
+
+        // in the order a TreeWalker leaves them: +, <, println, {}, if, {}
+        assertEquals(6, spans.start(0));
+        assertEquals(9, spans.end(0));
+        assertEquals(3, spans.start(1));
+        assertEquals(11, spans.start(2));
+        assertEquals(1, spans.start(4));
+        assertEquals(19, spans.end(4));
+        assertEquals(Span.pack(0, 20), spans.get(5));
+
+        // "x < (1 + x)" in the source
+        assertEquals(6, tokens.sourceStart(spans.get(block, lessThan)));
+        assertEquals(17, tokens.sourceEnd(spans.get(block, lessThan)));
+    }
+
+    @Test
+    public void testManyNodes() throws ParseException {
+        final TokenBuffer tokens = Asts.generate(5, 2000);
+        final Parser parser = new Parser(tokens);
+        final SpanTable spans = new SpanTable();
+        parser.setSpanTable(spans);
+        final Program program = parser.parseProgram();
+        // each top-level statement follows the last, seen as a walk
+        // leaves them
+        final Stmt root = program.stmt;
+        final Set<Stmt> stmts = Collections.newSetFromMap(new IdentityHashMap<Stmt, Boolean>());
+        stmts.addAll(((BlockStmt)root).stmts);
+        final int[] index = new int[1];
+        final int[] end = { 1 };
+        new TreeWalker().walk(root, new EmptyVisitor() {
+                private void leave(final Stmt stmt) {
+                    if (stmts.contains(stmt)) {
+                        assertEquals(end[0], spans.start(index[0]));
+                        end[0] = spans.end(index[0]);
+                    }
+                    index[0]++;
+                }
+
+                public void leaveOpExp(final OpExp exp) {
+                    index[0]++;
+                }
+
+                public void leavePrintlnStmt(final PrintlnStmt stmt) {
+                    leave(stmt);
+                }
+
+                public void leaveIfStmt(final IfStmt stmt) {
+                    leave(stmt);
+                }
+
+                public void leaveBlockStmt(final BlockStmt stmt) {
+                    leave(stmt);
+                }
+            });
+        assertEquals(tokens.size() - 1, end[0]);
+        assertEquals(spans.size(), index[0]);
+    }
+
+    @Test
+    public void testRecoveredSpans() throws TokenizerException {
+        // 0 {, 1 if, 2 (, 3 x, 4 ), 5 println, 6 (, 7 1, 8 +, 9 2, 10 3,
+        // 11 ), 12 ;, 13 println, 14 (, 15 4, 16 ), 17 ;, 18 }
+        final TokenBuffer tokens =
+            new Tokenizer("{ if (x) println(1 + 2 3); println(4); }").tokenizeToBuffer();
+        final Parser parser = new Parser(tokens);
+        final SpanTable spans = new SpanTable();
+        parser.setSpanTable(spans);
+        final RecoveredProgram recovered = parser.parseProgramRecovering();
+        final BlockStmt block = (BlockStmt)recovered.program.stmt;
+        final IfStmt ifStmt = (IfStmt)block.stmts.get(0);
+        // the true branch didn't parse, and there's no else: both are
+        // made up, and the 1 + 2 of the broken println is dropped
+        assertEquals(Span.NONE, spans.get(block, ifStmt.trueBranch));
+        assertEquals(Span.NONE, spans.get(block, ifStmt.falseBranch));
+        assertEquals(Span.pack(13, 5), spans.get(block, block.stmts.get(1)));
+        assertEquals(Span.pack(0, 19), spans.get(block, block));
+        assertEquals(5, spans.size());
+    }
+
+    private static long[] spans(final SpanTable table) {
+        final long[] spans = new long[table.size()];
+        for (int index = 0; index < spans.length; index++) {
+            spans[index] = table.get(index);
+        }
+        return spans;
+    }
+
+    @Test
+    public void testMemoizing() throws ParseException {
+        final TokenBuffer tokens = Asts.generate(6, 200);
+        final Parser parser = new Parser(tokens);
+        parser.setMemoizing(true);
+        final SpanTable table = new SpanTable();
+        parser.setSpanTable(table);
+        final Program first = parser.parseProgram();
+        final long[] firstSpans = spans(table);
+
+        // parsed again, not looked up, so every span is recorded again
+        table.clear();
+        final Program second = parser.parseProgram();
+        assertNotSame(first.stmt, second.stmt);
+        assertArrayEquals(firstSpans, spans(table));
+
+        // and memoizing carries on once the table is gone
+        parser.setSpanTable(null);
+        assertSame(parser.parseProgram().stmt, parser.parseProgram().stmt);
+    }
+
+    @Test
+    public void testOnlyTheParsedTree() throws ParseException, TokenizerException {
+        final Parser parser = new Parser(new Tokenizer("{ println(1 + 2); println(x); }").tokenizeToBuffer());
+        final SpanTable spans = new SpanTable();
+        parser.setSpanTable(spans);
+        final Program program = parser.parseProgram();
+        assertSame(program.stmt, spans.getRoot());
+        assertEquals(Span.pack(0, 14), spans.get(program, program.stmt));
+
+        // folding 1 + 2 makes a new tree
+        final Program optimized = new Optimizer().optimize(program);
+        try {
+            spans.get(optimized, ((BlockStmt)optimized.stmt).stmts.get(0));
+            fail("expected an IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("These spans were recorded for a different tree", e.getMessage());
+        }
+
+        spans.clear();
+        assertNull(spans.getRoot());
+    }
+}
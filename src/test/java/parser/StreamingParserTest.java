@@ -0,0 +1,164 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+public class StreamingParserTest {
+    private static List<Stmt> readAll(final String source) throws ParseException, TokenizerException {
+        final StreamingParser parser = new StreamingParser(new Tokenizer(source));
+        final List<Stmt> stmts = new ArrayList<Stmt>();
+        Stmt stmt = parser.nextStmt();
+        while (stmt != null) {
+            stmts.add(stmt);
+            stmt = parser.nextStmt();
+        }
+        assertNull(parser.nextStmt());
+        return stmts;
+    }
+
+    private static List<Stmt> parse(final String source) throws ParseException, TokenizerException {
+        final Stmt stmt = new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram().stmt;
+        final List<Stmt> stmts = new ArrayList<Stmt>();
+        if (stmt instanceof BlockStmt) {
+            stmts.addAll(((BlockStmt)stmt).stmts);
+        } else {
+            stmts.add(stmt);
+        }
+        return stmts;
+    }
+
+    private static void assertFails(final String source, final String message) throws TokenizerException {
+        try {
+            readAll(source);
+            fail("expected a ParseException");
+        } catch (final ParseException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMatchesParseProgram() throws IOException, ParseException, TokenizerException {
+        for (long seed = 0; seed < 5; seed++) {
+            final StringBuilder source = new StringBuilder();
+            new ProgramGenerator(seed, 4, 4, 3, 6).generateSource(500, source);
+            assertEquals(parse(source.toString()), readAll(source.toString()));
+        }
+    }
+
+    @Test
+    public void testTopLevels() throws ParseException, TokenizerException {
+        assertEquals(parse("{ }"), readAll("{ }"));
+        assertEquals(parse("println(1);"), readAll("println(1);"));
+        assertEquals(parse("if (x) { } else println(2);"), readAll("if (x) { } else println(2);"));
+        assertEquals(parse("{ { println(1); } if (x < 1) { } else { } }"),
+                     readAll("{ { println(1); } if (x < 1) { } else { } }"));
+    }
+
+    @Test
+    public void testErrors() throws TokenizerException {
+        assertFails("{ println(1);\n  println(2) println(3); }",
+                    "expected: SemicolonToken; received: PrintlnToken at line 2, column 14");
+        assertFails("{ println(1);\n",
+                    "expected: RightCurlyToken; received: end of input at line 1, column 14");
+        assertFails("{ println(1); }\nprintln(2);",
+                    "expected: end of input; received: PrintlnToken at line 2, column 1");
+        assertFails("println(1); }",
+                    "expected: end of input; received: RightCurlyToken at line 1, column 13");
+    }
+
+    @Test
+    public void testErrorPositionCountsFromStart() throws TokenizerException {
+        final StreamingParser parser = new StreamingParser(new Tokenizer("{ println(1); println(2 +); }"));
+        try {
+            parser.nextStmt();
+            parser.nextStmt();
+            fail("expected a ParseException");
+        } catch (final ParseException e) {
+            // { println ( 1 ) ; println ( 2 + ) ...
+            assertEquals(10, e.position);
+        }
+    }
+
+    @Test
+    public void testIterator() throws TokenizerException {
+        final StreamingParser parser = new StreamingParser(new Tokenizer("{ println(1); println(2); }"));
+        assertTrue(parser.hasNext());
+        assertTrue(parser.hasNext());
+        assertEquals(new PrintlnStmt(new IntegerExp(1)), parser.next());
+        assertEquals(new PrintlnStmt(new IntegerExp(2)), parser.next());
+        assertFalse(parser.hasNext());
+
+        assertEquals(2, StreamSupport.stream(new StreamingParser(new Tokenizer("{ { } { } }")).spliterator(),
+                                             false).count());
+
+        final StreamingParser broken = new StreamingParser(new Tokenizer("{ println(1); println(; }"));
+        broken.next();
+        try {
+            broken.hasNext();
+            fail("expected an UncheckedParseException");
+        } catch (final UncheckedParseException e) {
+            assertTrue(e.getCause() instanceof ParseException);
+        }
+        // nothing more after an error
+        assertFalse(broken.hasNext());
+    }
+
+    // { println(x0 + 0); println(x1 + 1); ... }, made up as it is read
+    private static class LogReader extends Reader {
+        private final long numStmts;
+        private long stmt;
+        private String pending;
+        private int pendingPosition;
+
+        public LogReader(final long numStmts) {
+            this.numStmts = numStmts;
+            pending = "{\n";
+        }
+
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (pendingPosition == pending.length()) {
+                if (stmt > numStmts) {
+                    return -1;
+                }
+                pending = (stmt == numStmts) ?
+                    "}\n" :
+                    "println(x" + (stmt % 100) + " + " + stmt + ");\n";
+                pendingPosition = 0;
+                stmt++;
+            }
+            final int numRead = Math.min(length, pending.length() - pendingPosition);
+            pending.getChars(pendingPosition, pendingPosition + numRead, buffer, offset);
+            pendingPosition += numRead;
+            return numRead;
+        }
+
+        public void close() {}
+    }
+
+    @Test
+    public void testLongInput() throws ParseException, TokenizerException {
+        // read as it is made up, never all in memory
+        final long numStmts = 2000000;
+        final Tokenizer tokenizer = new Tokenizer(new LogReader(numStmts));
+        final StreamingParser parser = new StreamingParser(tokenizer);
+        long count = 0;
+        Stmt stmt = parser.nextStmt();
+        while (stmt != null) {
+            count++;
+            stmt = parser.nextStmt();
+        }
+        assertEquals(numStmts, count);
+        assertEquals(numStmts + 3, tokenizer.getLineIndex().numLines());
+    }
+}
@@ -0,0 +1,71 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class SymbolTableTest {
+    private static int intern(final SymbolTable symbols, final String text, final int from, final int length) {
+        final String name = text.substring(from, from + length);
+        return symbols.intern(text.toCharArray(), from, length, name.hashCode());
+    }
+
+    @Test
+    public void testSameNameSameId() {
+        final SymbolTable symbols = new SymbolTable();
+        final String text = "count + total - count";
+        final int count = intern(symbols, text, 0, 5);
+        final int total = intern(symbols, text, 8, 5);
+        assertEquals(0, count);
+        assertEquals(1, total);
+        assertEquals(count, intern(symbols, text, 16, 5));
+        assertEquals(count, symbols.intern("count"));
+        assertEquals(2, symbols.size());
+        assertEquals(5, symbols.length(total));
+    }
+
+    @Test
+    public void testNamesAreMadeOnce() {
+        final SymbolTable symbols = new SymbolTable();
+        final int id = intern(symbols, "(abc)", 1, 3);
+        final String name = symbols.name(id);
+        assertEquals("abc", name);
+        assertSame(name, symbols.name(id));
+        final String given = "xyz";
+        assertSame(given, symbols.name(symbols.intern(given)));
+    }
+
+    @Test
+    public void testCollidingHashes() {
+        // "Aa" and "BB" have the same String.hashCode
+        final SymbolTable symbols = new SymbolTable();
+        assertNotEquals(symbols.intern("Aa"), symbols.intern("BB"));
+        assertEquals("Aa", symbols.name(symbols.intern("Aa")));
+        assertEquals("BB", symbols.name(symbols.intern("BB")));
+    }
+
+    @Test
+    public void testManyNames() {
+        final SymbolTable symbols = new SymbolTable();
+        for (int index = 0; index < 10000; index++) {
+            assertEquals(index, symbols.intern("name" + index));
+        }
+        for (int index = 0; index < 10000; index++) {
+            assertEquals(index, symbols.intern("name" + index));
+            assertEquals("name" + index, symbols.name(index));
+        }
+        symbols.clear();
+        assertEquals(0, symbols.size());
+        assertEquals(0, symbols.intern("name9999"));
+    }
+
+    @Test
+    public void testTokenizerSharesNames() throws TokenizerException {
+        final TokenBuffer tokens = new Tokenizer("{ println(ab + ab1); println(ab); }").tokenizeToBuffer();
+        assertEquals(2, tokens.numNames());
+        assertEquals(tokens.payload(3), tokens.payload(11));
+        assertEquals("ab1", tokens.name(tokens.payload(5)));
+    }
+}
@@ -0,0 +1,154 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TokenizerTest {
+    private static final String SOURCE = "if (x1 < 23 == foo) { println(x1 + 1 - 2); } else {}";
+
+    private static final List<Token> EXPECTED =
+        Arrays.asList(new IfToken(),
+                      new LeftParenToken(),
+                      new VariableToken("x1"),
+                      new LessThanToken(),
+                      new IntegerToken(23),
+                      new EqualsToken(),
+                      new VariableToken("foo"),
+                      new RightParenToken(),
+                      new LeftCurlyToken(),
+                      new PrintlnToken(),
+                      new LeftParenToken(),
+                      new VariableToken("x1"),
+                      new PlusToken(),
+                      new IntegerToken(1),
+                      new MinusToken(),
+                      new IntegerToken(2),
+                      new RightParenToken(),
+                      new SemicolonToken(),
+                      new RightCurlyToken(),
+                      new ElseToken(),
+                      new LeftCurlyToken(),
+                      new RightCurlyToken());
+
+    @Test
+    public void testCharSequence() throws TokenizerException {
+        assertEquals(EXPECTED, new Tokenizer(SOURCE).tokenize());
+    }
+
+    @Test
+    public void testReader() throws TokenizerException {
+        assertEquals(EXPECTED, new Tokenizer(new StringReader(SOURCE)).tokenize());
+    }
+
+    @Test
+    public void testByteBuffer() throws TokenizerException {
+        final ByteBuffer bytes = ByteBuffer.wrap(SOURCE.getBytes(StandardCharsets.US_ASCII));
+        assertEquals(EXPECTED, new Tokenizer(bytes).tokenize());
+    }
+
+    @Test
+    public void testKeywordPrefixIsVariable() throws TokenizerException {
+        assertEquals(Arrays.asList(new VariableToken("iffy"),
+                                   new VariableToken("elsewhere")),
+                     new Tokenizer("iffy elsewhere").tokenize());
+    }
+
+    @Test
+    public void testNextReturnsNullAtEnd() throws TokenizerException {
+        final Tokenizer tokenizer = new Tokenizer("  1 ");
+        assertEquals(new IntegerToken(1), tokenizer.next());
+        assertNull(tokenizer.next());
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testSingleEquals() throws TokenizerException {
+        new Tokenizer("x = 1").tokenize();
+    }
+
+    @Test(expected = TokenizerException.class)
+    public void testIntegerOverflow() throws TokenizerException {
+        new Tokenizer("2147483648").tokenize();
+    }
+
+    @Test
+    public void testTokenizeAndParse() throws TokenizerException, ParseException {
+        final Parser parser = new Parser(new Tokenizer(SOURCE).tokenize());
+        final Program program = parser.parseProgram();
+        assertEquals(IfStmt.class, program.stmt.getClass());
+    }
+
+    @Test
+    public void testTokensAreShared() throws TokenizerException {
+        final List<Token> tokens = new Tokenizer("x + x + 5 + 5").tokenize();
+        assertSame(tokens.get(0), tokens.get(2));
+        assertSame(PlusToken.INSTANCE, tokens.get(1));
+        assertSame(tokens.get(4), tokens.get(6));
+    }
+
+    @Test
+    public void testTokenizeToBuffer() throws TokenizerException {
+        final TokenBuffer buffer = new Tokenizer("x + 12 < x").tokenizeToBuffer();
+        assertEquals(5, buffer.size());
+        assertEquals(TokenKind.VARIABLE, buffer.kind(0));
+        assertEquals(TokenKind.PLUS, buffer.kind(1));
+        assertEquals(TokenKind.INTEGER, buffer.kind(2));
+        assertEquals(12, buffer.payload(2));
+        assertEquals(7, buffer.offset(3));
+        assertEquals(buffer.payload(0), buffer.payload(4));
+        assertEquals("x", buffer.name(buffer.payload(4)));
+    }
+
+    @Test
+    public void testBufferMatchesTokenList() throws TokenizerException, ParseException {
+        final TokenBuffer buffer = new Tokenizer(SOURCE).tokenizeToBuffer();
+        for (int index = 0; index < EXPECTED.size(); index++) {
+            assertEquals(EXPECTED.get(index), buffer.getToken(index));
+        }
+        assertEquals(new Parser(EXPECTED).parseProgram().stmt.getClass(),
+                     new Parser(buffer).parseProgram().stmt.getClass());
+    }
+
+    @Test
+    public void testOffsetsPastIntRange() {
+        // where a token and its line are, well past 2^31 characters in
+        final long offset = 5000000000L;
+        final LineIndex lines = new LineIndex();
+        lines.addLineStart(offset - 10);
+        final TokenBuffer buffer = new TokenBuffer();
+        buffer.setLineIndex(lines);
+        buffer.addVariable("x", offset, 3);
+        assertEquals(offset, buffer.offset(0));
+        assertEquals(3, buffer.length(0));
+        assertEquals(offset + 3, buffer.endOffset(0));
+        assertEquals("line 2, column 11", buffer.location(0));
+        assertEquals("line 2, column 14", buffer.location(1));
+
+        buffer.add(TokenKind.PLUS, 0, -1);
+        assertEquals(-1, buffer.offset(1));
+        assertEquals(-1, buffer.endOffset(1));
+    }
+
+    @Test
+    public void testTokenTooLong() throws TokenizerException {
+        final char[] name = new char[TokenBuffer.MAX_LENGTH + 1];
+        Arrays.fill(name, 'x');
+        // fine as a Token, which doesn't keep its length
+        assertEquals(1, new Tokenizer(new String(name)).tokenize().size());
+        try {
+            new Tokenizer(" " + new String(name)).tokenizeToBuffer();
+            fail("expected a TokenizerException");
+        } catch (final TokenizerException e) {
+            assertEquals("Token too long at offset 1 (line 1, column 2)", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TreeWalkerTest {
+    // writes down each call it gets
+    private static class RecordingVisitor implements Visitor {
+        public final StringBuilder calls = new StringBuilder();
+        // the visitor doesn't go into ifs
+        public boolean skipIfs;
+
+        private void record(final String call) {
+            if (calls.length() > 0) {
+                calls.append(' ');
+            }
+            calls.append(call);
+        }
+
+        public void visitIntegerExp(final IntegerExp exp) {
+            record(Integer.toString(exp.value));
+        }
+
+        public void visitVariableExp(final VariableExp exp) {
+            record(exp.variable.name);
+        }
+
+        public boolean enterOpExp(final OpExp exp) {
+            record("(");
+            return true;
+        }
+
+        public void leaveOpExp(final OpExp exp) {
+            record(exp.op.toString() + ")");
+        }
+
+        public boolean enterPrintlnStmt(final PrintlnStmt stmt) {
+            record("println");
+            return true;
+        }
+
+        public void leavePrintlnStmt(final PrintlnStmt stmt) {
+            record(";");
+        }
+
+        public boolean enterIfStmt(final IfStmt stmt) {
+            record("if");
+            return !skipIfs;
+        }
+
+        public void leaveIfStmt(final IfStmt stmt) {
+            record("fi");
+        }
+
+        public boolean enterBlockStmt(final BlockStmt stmt) {
+            record("{");
+            return true;
+        }
+
+        public void leaveBlockStmt(final BlockStmt stmt) {
+            record("}");
+        }
+    }
+
+    private static Program parse(final String source) throws ParseException, TokenizerException {
+        return new Parser(new Tokenizer(source).tokenizeToBuffer()).parseProgram();
+    }
+
+    @Test
+    public void testVisitsInSourceOrder() throws ParseException, TokenizerException {
+        final RecordingVisitor visitor = new RecordingVisitor();
+        new TreeWalker().walk(parse("{ if (x < 1) { println(2 - y); } else { } println(3); }"),
+                              visitor);
+        assertEquals("{ if ( x 1 LessThanOp) { println ( 2 y MinusOp) ; } { } fi println 3 ; }",
+                     visitor.calls.toString());
+    }
+
+    @Test
+    public void testSkipsSubnodes() throws ParseException, TokenizerException {
+        final RecordingVisitor visitor = new RecordingVisitor();
+        visitor.skipIfs = true;
+        new TreeWalker().walk(parse("{ if (x) { println(1); } else { } println(2); }"), visitor);
+        assertEquals("{ if fi println 2 ; }", visitor.calls.toString());
+    }
+
+    @Test
+    public void testWalksLeaf() {
+        final RecordingVisitor visitor = new RecordingVisitor();
+        new TreeWalker().walk(new IntegerExp(7), visitor);
+        assertEquals("7", visitor.calls.toString());
+    }
+
+    @Test
+    public void testDeepTrees() throws ParseException {
+        // a chain far deeper than recursion could manage
+        final int depth = 1000000;
+        Exp exp = new IntegerExp(0);
+        for (int index = 1; index <= depth; index++) {
+            exp = new OpExp(exp, new PlusOp(), new VariableExp(new Variable("x")));
+        }
+        Stmt stmt = new PrintlnStmt(exp);
+        for (int index = 0; index < depth; index++) {
+            final List<Stmt> stmts = new ArrayList<Stmt>();
+            stmts.add(stmt);
+            stmt = new BlockStmt(stmts);
+        }
+
+        final int[] counts = new int[3];
+        final TreeWalker walker = new TreeWalker();
+        final Visitor visitor = new EmptyVisitor() {
+            public void visitVariableExp(final VariableExp exp) {
+                counts[0]++;
+            }
+
+            public void leaveOpExp(final OpExp exp) {
+                counts[1]++;
+            }
+
+            public boolean enterBlockStmt(final BlockStmt stmt) {
+                counts[2]++;
+                return true;
+            }
+        };
+        walker.walk(stmt, visitor);
+        assertEquals(depth, counts[0]);
+        assertEquals(depth, counts[1]);
+        assertEquals(depth, counts[2]);
+
+        // the walker can be used again
+        walker.walk(new Program(stmt), visitor);
+        assertEquals(2 * depth, counts[0]);
+    }
+
+    @Test
+    public void testNestedEmptyBlocks() throws ParseException, TokenizerException {
+        // at some depth, the empty block's leave task is the one which
+        // fills the stack
+        for (int depth = 1; depth <= 100; depth++) {
+            final StringBuilder source = new StringBuilder();
+            for (int index = 0; index <= depth; index++) {
+                source.append('{');
+            }
+            for (int index = 0; index <= depth; index++) {
+                source.append('}');
+            }
+            final Parser parser = new Parser(new Tokenizer(source.toString()).tokenizeToBuffer());
+            final SpanTable spans = new SpanTable();
+            parser.setSpanTable(spans);
+            final Program program = parser.parseProgram();
+
+            final int[] numLeft = new int[1];
+            new TreeWalker().walk(program, new EmptyVisitor() {
+                    public void leaveBlockStmt(final BlockStmt stmt) {
+                        numLeft[0]++;
+                    }
+                });
+            assertEquals(depth + 1, numLeft[0]);
+            // which walks the same way
+            assertEquals(Span.pack(0, 2 * depth + 2), spans.get(program, program.stmt));
+        }
+    }
+}